@@ -1,7 +1,9 @@
 package ch.epfl.tchu;
 
 import java.util.*;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Multiensemble trié et immuable.
@@ -178,18 +180,60 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      * la taille du multiensemble
      */
     public Set<SortedBag<E>> subsetsOfSize(int size) {
-        Preconditions.     checkArgument(0 <= size && size <= size());
-        if (size == 0)
-            return Set.of(SortedBag.of());
-
-        var result = new HashSet<SortedBag<E>>();
-        for (var e1 : elements.keySet()) {
-            var s1 = SortedBag.of(e1);
-            this.difference(s1)
-                    .subsetsOfSize(size - 1)
-                    .forEach(e -> result.add(s1.union(e)));
+        return subsetsOfSizeStream(size).collect(Collectors.toSet());
+    }
+
+    /**
+     * Retourne un flot (paresseux) des sous-ensembles du multiensemble ayant une taille donnée.
+     * Chaque sous-ensemble distinct est produit exactement une fois, en parcourant les vecteurs
+     * de multiplicités par ordre lexicographique décroissant : les premiers sous-ensembles
+     * produits contiennent autant que possible des plus petits éléments.
+     * @param size la taille des sous-ensembles à retourner
+     * @return un flot des sous-ensembles de <code>this</code> de taille <code>size</code>
+     * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et
+     * la taille du multiensemble
+     */
+    public Stream<SortedBag<E>> subsetsOfSizeStream(int size) {
+        return StreamSupport.stream(
+                Spliterators.spliterator(subsetsOfSizeIterator(size),
+                        subsetsOfSizeCount(size),
+                        Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE),
+                false);
+    }
+
+    /**
+     * Retourne un itérateur sur les sous-ensembles du multiensemble ayant une taille donnée,
+     * dans le même ordre que <code>subsetsOfSizeStream</code>.
+     * @param size la taille des sous-ensembles à retourner
+     * @return un itérateur sur les sous-ensembles de <code>this</code> de taille <code>size</code>
+     * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et
+     * la taille du multiensemble
+     */
+    public Iterator<SortedBag<E>> subsetsOfSizeIterator(int size) {
+        Preconditions.checkArgument(0 <= size && size <= size());
+        return new SubsetsIterator(size);
+    }
+
+    /**
+     * Retourne le nombre de sous-ensembles du multiensemble ayant une taille donnée,
+     * sans les construire.
+     * @param size la taille des sous-ensembles à dénombrer
+     * @return le nombre de sous-ensembles distincts de <code>this</code> de taille <code>size</code>
+     * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et
+     * la taille du multiensemble
+     */
+    public long subsetsOfSizeCount(int size) {
+        Preconditions.checkArgument(0 <= size && size <= size());
+        // ways[s] : nombre de vecteurs de multiplicités de somme s pour les éléments déjà vus
+        var ways = new long[size + 1];
+        ways[0] = 1;
+        for (int max : elements.values()) {
+            for (int s = size; s > 0; --s) {
+                for (int n = 1; n <= Math.min(max, s); ++n)
+                    ways[s] += ways[s - n];
+            }
         }
-        return result;
+        return ways[size];
     }
 
     /**
@@ -270,6 +314,58 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
         return j.toString();
     }
 
+    // Itérateur sur les vecteurs de multiplicités de somme donnée, bornés par ceux du multiensemble.
+    private final class SubsetsIterator implements Iterator<SortedBag<E>> {
+        private final List<E> distinctElements = new ArrayList<>(elements.keySet());
+        private final int[] maxCounts = elements.values().stream().mapToInt(Integer::intValue).toArray();
+        private final int[] counts = new int[maxCounts.length];
+        private boolean hasNext = true;
+
+        private SubsetsIterator(int size) {
+            fill(0, size);
+        }
+
+        // Répartit count éléments sur les positions à partir de from, en remplissant d'abord les premières.
+        private void fill(int from, int count) {
+            for (int i = from; i < counts.length; ++i) {
+                counts[i] = Math.min(maxCounts[i], count);
+                count -= counts[i];
+            }
+        }
+
+        // Passe au vecteur suivant : décrémente la position la plus à droite qui peut l'être
+        // et répartit à nouveau les éléments qui la suivent.
+        private void advance() {
+            int tail = 0, capacity = 0;
+            for (int i = counts.length - 1; i >= 0; --i) {
+                if (counts[i] > 0 && tail < capacity) {
+                    counts[i] -= 1;
+                    fill(i + 1, tail + 1);
+                    return;
+                }
+                tail += counts[i];
+                capacity += maxCounts[i];
+            }
+            hasNext = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public SortedBag<E> next() {
+            if (!hasNext) throw new NoSuchElementException();
+            var subset = new TreeMap<E, Integer>();
+            for (int i = 0; i < counts.length; ++i) {
+                if (counts[i] > 0) subset.put(distinctElements.get(i), counts[i]);
+            }
+            advance();
+            return new SortedBag<>(subset);
+        }
+    }
+
     /**
      * Bâtisseur de multiensemble.
      * @param <E> le type des éléments du multiensemble à bâtir.
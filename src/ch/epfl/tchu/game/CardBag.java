@@ -0,0 +1,508 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Multiensemble trié et immuable de cartes, offrant la même interface que SortedBag.
+ * Les multiplicités des cartes sont stockées dans un seul entier de type long,
+ * à raison de 6 bits par carte (index = ordinal de la carte), de sorte que les
+ * opérations sur le multiensemble n'allouent au plus que le résultat.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class CardBag implements Iterable<Card> {
+
+    private static final int BITS_PER_CARD = 6;
+    private static final long COUNT_MASK = (1L << BITS_PER_CARD) - 1;
+
+    /**
+     * Multiplicité maximale d'une carte dans un multiensemble.
+     */
+    public static final int MAX_COUNT = (int) COUNT_MASK;
+
+    private static final CardBag EMPTY = new CardBag(0L, 0);
+    private static final CardBag[] SINGLETONS = computeSingletons();
+
+    private static CardBag[] computeSingletons() {
+        CardBag[] singletons = new CardBag[Card.COUNT];
+        for (Card c : Card.ALL)
+            singletons[c.ordinal()] = new CardBag(1L << shift(c), 1);
+        return singletons;
+    }
+
+    // Multiplicités des cartes, 6 bits par carte.
+    private final long counts;
+    private final int size;
+
+    private CardBag(long counts, int size) {
+        this.counts = counts;
+        this.size = size;
+    }
+
+    private static int shift(Card card) {
+        return card.ordinal() * BITS_PER_CARD;
+    }
+
+    private static int count(long counts, int ordinal) {
+        return (int) ((counts >>> (ordinal * BITS_PER_CARD)) & COUNT_MASK);
+    }
+
+    private static CardBag ofCounts(long counts, int size) {
+        return size == 0 ? EMPTY : new CardBag(counts, size);
+    }
+
+    /**
+     * Retourne un multiensemble vide.
+     * @return un multiensemble vide.
+     */
+    public static CardBag of() {
+        return EMPTY;
+    }
+
+    /**
+     * Retourne un multiensemble contenant une seule carte (partagé, aucune allocation).
+     * @param card l'unique carte du multiensemble
+     * @return un multiensemble ne contenant que la carte <code>card</code>
+     */
+    public static CardBag of(Card card) {
+        return SINGLETONS[card.ordinal()];
+    }
+
+    /**
+     * Crée un multiensemble contenant une carte avec une multiplicité donnée.
+     * @param n la multiplicité de la carte (entre 0 et MAX_COUNT)
+     * @param card la carte du multiensemble
+     * @return un multiensemble contenant <code>n</code> occurrences de <code>card</code>
+     * @throws IllegalArgumentException si <code>n</code> n'est pas compris entre 0 et MAX_COUNT
+     */
+    public static CardBag of(int n, Card card) {
+        return new Builder().add(n, card).build();
+    }
+
+    /**
+     * Crée un multiensemble contenant deux cartes, chacune avec une multiplicité donnée.
+     * @param n1 la multiplicité de la carte <code>c1</code> (>= 0)
+     * @param c1 la première carte du multiensemble
+     * @param n2 la multiplicité de la carte <code>c2</code> (>= 0)
+     * @param c2 la seconde carte du multiensemble
+     * @return un multiensemble contenant <code>n1</code> occurrences de <code>c1</code>,
+     * et <code>n2</code> de <code>c2</code>
+     * @throws IllegalArgumentException si une multiplicité est négative ou trop grande
+     */
+    public static CardBag of(int n1, Card c1, int n2, Card c2) {
+        return new Builder().add(n1, c1).add(n2, c2).build();
+    }
+
+    /**
+     * Crée un multiensemble contenant les cartes d'un itérable (p.ex. une liste ou un SortedBag).
+     * @param iterable l'itérable fournissant les cartes du multiensemble
+     * @return un multiensemble contenant exactement les mêmes cartes que <code>iterable</code>
+     */
+    public static CardBag of(Iterable<Card> iterable) {
+        var builder = new Builder();
+        if (iterable instanceof SortedBag<?>) {
+            @SuppressWarnings("unchecked")
+            SortedBag<Card> bag = (SortedBag<Card>) iterable;
+            bag.toMap().forEach((c, n) -> builder.add(n, c));
+        } else {
+            iterable.forEach(builder::add);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Retourne vrai ssi le multiensemble est vide.
+     * @return vrai ssi le multiensemble est vide.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Retourne le nombre de cartes du multiensemble (en temps constant).
+     * @return le nombre de cartes dans le multiensemble.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retourne la multiplicité de la carte donnée.
+     * @param card la carte dont la multiplicité doit être retournée
+     * @return la multiplicité de <code>card</code>, 0 si elle n'appartient pas au multiensemble
+     */
+    public int countOf(Card card) {
+        return count(counts, card.ordinal());
+    }
+
+    /**
+     * Retourne vrai ssi la carte donnée appartient au multiensemble (au moins une fois).
+     * @param card la carte dont la présence doit être testée
+     * @return vrai ssi <code>card</code> appartient au multiensemble
+     */
+    public boolean contains(Card card) {
+        return countOf(card) > 0;
+    }
+
+    /**
+     * Retourne vrai ssi le multiensemble donné est un sous-ensemble de celui-ci.
+     * @param that le multiensemble dont on doit déterminer s'il est un sous-ensemble
+     * @return vrai ssi <code>that</code> est un sous-ensemble de <code>this</code>
+     */
+    public boolean contains(CardBag that) {
+        if (that.size > size) return false;
+        for (int i = 0; i < Card.COUNT; ++i) {
+            if (count(that.counts, i) > count(counts, i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Retourne la carte d'index donné, les cartes étant triées.
+     * @param index l'index de la carte à retourner
+     * @return la carte d'index donné
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public Card get(int index) {
+        Objects.checkIndex(index, size);
+        for (Card c : Card.ALL) {
+            int count = countOf(c);
+            if (index < count)
+                return c;
+            index -= count;
+        }
+        throw new Error(); // ne devrait jamais se produire
+    }
+
+    /**
+     * Retourne l'union du multiensemble récepteur et du multiensemble donné.
+     * @param that le multiensemble à combiner avec le récepteur
+     * @return l'union de <code>this</code> et de <code>that</code>
+     * @throws IllegalArgumentException si une multiplicité de l'union dépasse MAX_COUNT
+     */
+    public CardBag union(CardBag that) {
+        if (that.isEmpty()) return this;
+        if (isEmpty()) return that;
+        long newCounts = 0;
+        for (int i = 0; i < Card.COUNT; ++i) {
+            int n = count(counts, i) + count(that.counts, i);
+            Preconditions.checkArgument(n <= MAX_COUNT);
+            newCounts |= (long) n << (i * BITS_PER_CARD);
+        }
+        return new CardBag(newCounts, size + that.size);
+    }
+
+    /**
+     * Retourne la différence entre le multiensemble récepteur et le multiensemble donné.
+     * @param that le multiensemble à combiner avec le récepteur
+     * @return la différence entre <code>this</code> et <code>that</code>
+     */
+    public CardBag difference(CardBag that) {
+        if (that.isEmpty()) return this;
+        long newCounts = 0;
+        int newSize = 0;
+        for (int i = 0; i < Card.COUNT; ++i) {
+            int n = Math.max(0, count(counts, i) - count(that.counts, i));
+            newCounts |= (long) n << (i * BITS_PER_CARD);
+            newSize += n;
+        }
+        return ofCounts(newCounts, newSize);
+    }
+
+    /**
+     * Retourne tous les sous-ensembles du multiensemble ayant une taille donnée.
+     * @param size la taille des sous-ensembles à retourner
+     * @return l'ensemble des sous-ensembles de <code>this</code> de taille <code>size</code>
+     * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et
+     * la taille du multiensemble
+     */
+    public Set<CardBag> subsetsOfSize(int size) {
+        return subsetsOfSizeStream(size).collect(Collectors.toSet());
+    }
+
+    /**
+     * Retourne un flot (paresseux) des sous-ensembles du multiensemble ayant une taille donnée,
+     * chaque sous-ensemble distinct étant produit exactement une fois, dans le même ordre que
+     * SortedBag.subsetsOfSizeStream (les plus petites cartes d'abord).
+     * @param size la taille des sous-ensembles à retourner
+     * @return un flot des sous-ensembles de <code>this</code> de taille <code>size</code>
+     * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et
+     * la taille du multiensemble
+     */
+    public Stream<CardBag> subsetsOfSizeStream(int size) {
+        return StreamSupport.stream(
+                Spliterators.spliterator(subsetsOfSizeIterator(size),
+                        subsetsOfSizeCount(size),
+                        Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE),
+                false);
+    }
+
+    /**
+     * Retourne un itérateur sur les sous-ensembles du multiensemble ayant une taille donnée,
+     * dans le même ordre que <code>subsetsOfSizeStream</code>.
+     * @param size la taille des sous-ensembles à retourner
+     * @return un itérateur sur les sous-ensembles de <code>this</code> de taille <code>size</code>
+     * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et
+     * la taille du multiensemble
+     */
+    public Iterator<CardBag> subsetsOfSizeIterator(int size) {
+        Preconditions.checkArgument(0 <= size && size <= size());
+        return new Iterator<>() {
+            private long subset = fill(0L, 0, size);
+            private boolean hasNext = true;
+
+            // Répartit count cartes sur les ordinaux à partir de from, en remplissant d'abord les premiers.
+            private long fill(long subset, int from, int count) {
+                for (int i = from; i < Card.COUNT; ++i) {
+                    int n = Math.min(count(counts, i), count);
+                    subset = (subset & ~(COUNT_MASK << (i * BITS_PER_CARD))) | (long) n << (i * BITS_PER_CARD);
+                    count -= n;
+                }
+                return subset;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return hasNext;
+            }
+
+            @Override
+            public CardBag next() {
+                if (!hasNext) throw new NoSuchElementException();
+                CardBag result = ofCounts(subset, size);
+
+                // décrémente l'ordinal le plus grand qui peut l'être et répartit à nouveau les cartes suivantes
+                int tail = 0, capacity = 0;
+                hasNext = false;
+                for (int i = Card.COUNT - 1; i >= 0; --i) {
+                    if (count(subset, i) > 0 && tail < capacity) {
+                        subset = fill(subset - (1L << (i * BITS_PER_CARD)), i + 1, tail + 1);
+                        hasNext = true;
+                        break;
+                    }
+                    tail += count(subset, i);
+                    capacity += count(counts, i);
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Retourne le nombre de sous-ensembles du multiensemble ayant une taille donnée,
+     * sans les construire.
+     * @param size la taille des sous-ensembles à dénombrer
+     * @return le nombre de sous-ensembles distincts de <code>this</code> de taille <code>size</code>
+     * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et
+     * la taille du multiensemble
+     */
+    public long subsetsOfSizeCount(int size) {
+        Preconditions.checkArgument(0 <= size && size <= size());
+        var ways = new long[size + 1];
+        ways[0] = 1;
+        for (int i = 0; i < Card.COUNT; ++i) {
+            int max = count(counts, i);
+            for (int s = size; s > 0; --s) {
+                for (int n = 1; n <= Math.min(max, s); ++n)
+                    ways[s] += ways[s - n];
+            }
+        }
+        return ways[size];
+    }
+
+    /**
+     * Retourne une liste contenant les cartes du multiensemble, dans l'ordre.
+     * @return une liste contenant les cartes de <code>this</code>
+     */
+    public List<Card> toList() {
+        var list = new ArrayList<Card>(size);
+        for (Card c : Card.ALL) {
+            for (int n = countOf(c); n > 0; --n) list.add(c);
+        }
+        return list;
+    }
+
+    /**
+     * Retourne un flot des cartes du multiensemble, dans l'ordre.
+     * @return un flot des cartes de <code>this</code>
+     */
+    public Stream<Card> stream() {
+        return toList().stream();
+    }
+
+    /**
+     * Retourne un itérateur sur les cartes du multiensemble, dans l'ordre.
+     * @return un itérateur sur les cartes de <code>this</code>
+     */
+    @Override
+    public Iterator<Card> iterator() {
+        return new Iterator<>() {
+            private int ordinal = nextOrdinal(0);
+            private int remaining = ordinal < Card.COUNT ? count(counts, ordinal) : 0;
+
+            private int nextOrdinal(int from) {
+                while (from < Card.COUNT && count(counts, from) == 0) ++from;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return ordinal < Card.COUNT;
+            }
+
+            @Override
+            public Card next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Card card = Card.ALL.get(ordinal);
+                if (--remaining == 0) {
+                    ordinal = nextOrdinal(ordinal + 1);
+                    remaining = ordinal < Card.COUNT ? count(counts, ordinal) : 0;
+                }
+                return card;
+            }
+        };
+    }
+
+    /**
+     * Retourne une table (immuable) associant sa multiplicité à chaque carte du multiensemble.
+     * @return une table associant sa multiplicité à chaque carte de <code>this</code>
+     */
+    public Map<Card, Integer> toMap() {
+        var map = new EnumMap<Card, Integer>(Card.class);
+        for (Card c : Card.ALL) {
+            int n = countOf(c);
+            if (n > 0) map.put(c, n);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Retourne l'ensemble des cartes du multiensemble.
+     * Attention : les cartes apparaissant plus d'une fois dans le multiensemble
+     * n'apparaissent qu'une seule fois dans l'ensemble retourné !
+     * @return l'ensemble des cartes du multiensemble.
+     */
+    public Set<Card> toSet() {
+        var set = EnumSet.noneOf(Card.class);
+        for (Card c : Card.ALL) {
+            if (contains(c)) set.add(c);
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Retourne un SortedBag contenant les mêmes cartes que ce multiensemble.
+     * @return un SortedBag égal à <code>this</code>
+     */
+    public SortedBag<Card> toSortedBag() {
+        var builder = new SortedBag.Builder<Card>();
+        for (Card c : Card.ALL) builder.add(countOf(c), c);
+        return builder.build();
+    }
+
+    /**
+     * Retourne la valeur de hachage du multiensemble.
+     * @return la valeur de hachage du multiensemble.
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(counts);
+    }
+
+    /**
+     * Retourne vrai ssi ce multiensemble est égal à l'objet donné (comparaison structurelle).
+     * @param that l'objet avec lequel comparer <code>this</code>
+     * @return vrai ssi <code>that</code> est un multiensemble de cartes égal à <code>this</code>
+     */
+    @Override
+    public boolean equals(Object that) {
+        return (that instanceof CardBag) && counts == ((CardBag) that).counts;
+    }
+
+    /**
+     * Retourne la représentation textuelle du multiensemble, identique à celle de SortedBag.
+     * @return la représentation textuelle de <code>this</code>
+     */
+    @Override
+    public String toString() {
+        var j = new StringJoiner(", ", "{", "}");
+        for (Card c : Card.ALL) {
+            int n = countOf(c);
+            if (n > 0) j.add((n > 1 ? n + "×" : "") + c);
+        }
+        return j.toString();
+    }
+
+    /**
+     * Bâtisseur de multiensemble de cartes.
+     */
+    public static final class Builder {
+        private long counts;
+        private int size;
+
+        /**
+         * Ajoute un nombre donné d'occurrences d'une carte au bâtisseur.
+         * @param count le nombre d'occurrences de la carte à ajouter
+         * @param card la carte à ajouter
+         * @return le bâtisseur (<code>this</code>)
+         * @throws IllegalArgumentException si <code>count</code> est négatif,
+         * ou si la multiplicité de la carte dépasse MAX_COUNT
+         */
+        public Builder add(int count, Card card) {
+            Preconditions.checkArgument(0 <= count && count(counts, card.ordinal()) + count <= MAX_COUNT);
+            counts += (long) count << shift(card);
+            size += count;
+            return this;
+        }
+
+        /**
+         * Ajoute une occurrence de la carte au bâtisseur.
+         * @param card la carte à ajouter
+         * @return le bâtisseur (<code>this</code>)
+         */
+        public Builder add(Card card) {
+            return add(1, card);
+        }
+
+        /**
+         * Ajoute toutes les cartes du multiensemble donné au bâtisseur.
+         * @param that le multiensemble dont les cartes sont à ajouter
+         * @return le bâtisseur (<code>this</code>)
+         */
+        public Builder add(CardBag that) {
+            for (Card c : Card.ALL) add(that.countOf(c), c);
+            return this;
+        }
+
+        /**
+         * Retourne vrai ssi le bâtisseur est actuellement vide.
+         * @return vrai ssi le bâtisseur est actuellement vide.
+         */
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Retourne la taille actuelle du bâtisseur.
+         * @return le nombre de cartes ajoutées au bâtisseur jusqu'à présent
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Retourne un multiensemble contenant les cartes ajoutées jusqu'à présent au bâtisseur.
+         * @return un multiensemble contenant les cartes ajoutées à <code>this</code>
+         */
+        public CardBag build() {
+            return size == 1 ? of(Card.ALL.get(Long.numberOfTrailingZeros(counts) / BITS_PER_CARD)) : ofCounts(counts, size);
+        }
+    }
+}
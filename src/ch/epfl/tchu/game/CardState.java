@@ -17,7 +17,7 @@ import ch.epfl.tchu.SortedBag;
 public final class CardState extends PublicCardState{
 
     private final Deck<Card> remainingDeck;
-    private final SortedBag<Card> discardCards;
+    private final CardBag discardCards;
 
     /**
      *
@@ -25,7 +25,7 @@ public final class CardState extends PublicCardState{
      * @param remainingDeck la pioche de cartes
      * @param discardCards la defausse de carte
      */
-    private CardState(List<Card> faceUpCards, Deck<Card> remainingDeck, SortedBag<Card> discardCards) {
+    private CardState(List<Card> faceUpCards, Deck<Card> remainingDeck, CardBag discardCards) {
         super(faceUpCards, remainingDeck.size(), discardCards.size());
         this.remainingDeck = remainingDeck;
         this.discardCards = discardCards;
@@ -41,7 +41,33 @@ public final class CardState extends PublicCardState{
      */
     public static CardState of(Deck<Card> deck) {
         Preconditions.checkArgument(deck.size() >= Constants.FACE_UP_CARDS_COUNT);
-        return new CardState(deck.topCards(Constants.FACE_UP_CARDS_COUNT).toList(), deck.withoutTopCards(Constants.FACE_UP_CARDS_COUNT), SortedBag.of());
+        return new CardState(deck.topCards(Constants.FACE_UP_CARDS_COUNT).toList(), deck.withoutTopCards(Constants.FACE_UP_CARDS_COUNT), CardBag.of());
+    }
+
+    /**
+     * @param faceUpCards les cartes faces visibles,
+     * @param deck        la pioche,
+     * @param discards    la defausse,
+     * @return un etat des cartes constitue des tas donnes.
+     * @throws IllegalArgumentException si le nombre de cartes faces visibles n'est pas 5.
+     */
+    static CardState of(List<Card> faceUpCards, Deck<Card> deck, CardBag discards) {
+        Preconditions.checkArgument(faceUpCards.size() == Constants.FACE_UP_CARDS_COUNT);
+        return new CardState(List.copyOf(faceUpCards), deck, discards);
+    }
+
+    /**
+     * @return la pioche
+     */
+    Deck<Card> deck() {
+        return remainingDeck;
+    }
+
+    /**
+     * @return la defausse
+     */
+    CardBag discards() {
+        return discardCards;
     }
 
     /**
@@ -96,7 +122,7 @@ public final class CardState extends PublicCardState{
      */
     public CardState withDeckRecreatedFromDiscards(Random rng) {
         Preconditions.checkArgument(remainingDeck.isEmpty());
-        return new CardState(faceUpCards(), Deck.of(SortedBag.of(this.discardCards), rng),  SortedBag.of());
+        return new CardState(faceUpCards(), Deck.of(discardCards, rng), CardBag.of());
     }
 
     /**
@@ -106,6 +132,6 @@ public final class CardState extends PublicCardState{
      *         mais avec les cartes donnees ajoutees a la defausse.
      */
     public CardState withMoreDiscardedCards(SortedBag<Card> additionalDiscards) {
-        return new CardState(faceUpCards(), remainingDeck, SortedBag.of(this.discardCards).union(additionalDiscards));
+        return new CardState(faceUpCards(), remainingDeck, discardCards.union(CardBag.of(additionalDiscards)));
     }
 }
@@ -3,12 +3,15 @@ package ch.epfl.tchu.game;
 import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
 
 /**
  * classe représentant une pioche.
+ * Les cartes sont stockées dans un tableau (jamais modifié) partagé par toutes les pioches qui en sont tirées,
+ * seule la position du sommet changeant d'une pioche à l'autre : retirer des cartes du sommet se fait donc
+ * en temps constant, sans copie.
  *
  * @author Rasan Younis (329880)
  *         Elyes Ben Chaabane (330441)
@@ -17,10 +20,12 @@ import java.util.Random;
  */
 public final class Deck<C extends Comparable<C>> {
 
-    private final List<C> cardDeck;
+    private final Object[] cards;
+    private final int top;
 
-    private Deck(List<C> cardDeck) {
-        this.cardDeck = cardDeck;
+    private Deck(Object[] cards, int top) {
+        this.cards = cards;
+        this.top = top;
     }
 
     /**
@@ -30,23 +35,50 @@ public final class Deck<C extends Comparable<C>> {
      * @return un tas de cartes ayant les memes cartes que le multiensemble cards, melangees au moyen du generateur de nombres aleatoires rng
      */
     public static <C extends Comparable<C>> Deck<C> of(SortedBag<C> cards, Random rng) {
-        List<C> cardDeck = cards.toList();
-        Collections.shuffle(cardDeck, rng);
-        return new Deck<>(cardDeck);
+        Object[] shuffled = cards.toList().toArray();
+        shuffle(shuffled, rng);
+        return new Deck<>(shuffled, 0);
+    }
+
+    /**
+     * @param cards multiensemble de cartes a melanger
+     * @param rng   generateur aleatoire pour melanger les cartes
+     * @return un tas de cartes ayant les memes cartes que le multiensemble cards, melangees comme par
+     * of(cards.toSortedBag(), rng), mais sans passer par un multiensemble trie intermediaire.
+     */
+    static Deck<Card> of(CardBag cards, Random rng) {
+        Object[] shuffled = new Object[cards.size()];
+        int i = 0;
+        for (Card c : Card.ALL) {
+            for (int n = cards.countOf(c); n > 0; --n) {
+                shuffled[i++] = c;
+            }
+        }
+        shuffle(shuffled, rng);
+        return new Deck<>(shuffled, 0);
+    }
+
+    /**
+     * @param cards cartes du tas, de son sommet a sa base
+     * @param <C>   type de cartes
+     * @return un tas constitue des cartes donnees, dans l'ordre donne
+     */
+    static <C extends Comparable<C>> Deck<C> of(List<C> cards) {
+        return new Deck<>(cards.toArray(), 0);
     }
 
     /**
      * @return le nombre de cartes que contient le tas
      */
     public int size() {
-        return cardDeck.size();
+        return cards.length - top;
     }
 
     /**
      * @return boolean true si le tas est vide
      */
     public boolean isEmpty() {
-        return cardDeck.isEmpty();
+        return top == cards.length;
     }
 
     /**
@@ -55,8 +87,17 @@ public final class Deck<C extends Comparable<C>> {
      */
     public C topCard() {
         Preconditions.checkArgument(!isEmpty());
-        C topCard = cardDeck.get(0);
-        return topCard;
+        return get(0);
+    }
+
+    /**
+     * @param index position d'une carte dans le tas, 0 etant son sommet
+     * @return la carte a la position donnee
+     * @throws IndexOutOfBoundsException si la position n'est pas comprise entre 0 et la taille du tas (exclue)
+     */
+    @SuppressWarnings("unchecked")
+    C get(int index) {
+        return (C) cards[top + Objects.checkIndex(index, size())];
     }
 
     /**
@@ -75,8 +116,11 @@ public final class Deck<C extends Comparable<C>> {
      */
     public SortedBag<C> topCards(int count) {
         Preconditions.checkArgument(count <= size() && count >= 0);
-        List<C> topC = cardDeck.subList(0, count);
-        return SortedBag.of(topC);
+        SortedBag.Builder<C> topC = new SortedBag.Builder<>();
+        for (int i = 0; i < count; ++i) {
+            topC.add(get(i));
+        }
+        return topC.build();
     }
 
     /**
@@ -86,7 +130,17 @@ public final class Deck<C extends Comparable<C>> {
      */
     public Deck<C> withoutTopCards(int count) {
         Preconditions.checkArgument(count >= 0 && count <= this.size());
-        return new Deck<>(cardDeck.subList(count, size()));
+        return count == 0 ? this : new Deck<>(cards, top + count);
     }
 
+    // melange le tableau donne exactement comme Collections.shuffle le ferait d'une liste de memes elements,
+    // pour qu'une partie jouee avec une graine donnee ne change pas
+    private static void shuffle(Object[] cards, Random rng) {
+        for (int i = cards.length; i > 1; --i) {
+            int j = rng.nextInt(i);
+            Object card = cards[i - 1];
+            cards[i - 1] = cards[j];
+            cards[j] = card;
+        }
+    }
 }
@@ -6,6 +6,7 @@ import ch.epfl.tchu.gui.Info;
 import ch.epfl.tchu.gui.StringsFr;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Classe du jeu permettant de faire tourner le jeu.
@@ -15,16 +16,45 @@ import java.util.*;
  */
 public final class Game {
 
-    private static Map<PlayerId, Player> playerMap;
-    private static Map<PlayerId, String> playerNameMap;
-    private static Map<PlayerId, Info> playerInfoMap;
-    private static Player player1;
-    private static Player player2;
-    private static Info playerInfo1;
-    private static Info playerInfo2;
-    private static GameState gameState;
+    private final Map<PlayerId, Player> playerMap;
+    private final Player player1;
+    private final Player player2;
+    private final TchuMap map;
+    private final Random rng;
+    private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+    private Map<PlayerId, String> playerNameMap;
+    private Map<PlayerId, Info> playerInfoMap;
+    private Info playerInfo1;
+    private Info playerInfo2;
+    private GameState gameState;
+    //lus par d'autres fils que celui de la partie (p.ex. les statistiques d'un serveur)
+    private volatile int turnCount;
+    private volatile Map<PlayerId, Integer> finalPoints = Map.of();
 
-    private Game() {}
+    /**
+     * construit une partie, dont l'etat lui est propre, entre les joueurs donnes.
+     * plusieurs instances peuvent etre jouees en parallele, chacune sur son propre fil d'execution.
+     * aucun joueur n'est contacte avant l'appel a play().
+     *
+     * @param players     joueurs de la partie.
+     * @param map         carte de la partie, dont les billets constituent la pioche de billets.
+     * @param rng         generateur aleatoire propre a la partie.
+     * @throws IllegalArgumentException si la table des joueurs ne contient pas exactement deux joueurs.
+     */
+    public Game(Map<PlayerId, Player> players,
+                TchuMap map,
+                Random rng) {
+        //check si les maps playerNames et players ont une taille de 2.
+        Preconditions.checkArgument(players.size() == PlayerId.COUNT);
+
+        //EnumMap : les joueurs sont toujours parcourus dans l'ordre de PlayerId
+        playerMap = Collections.unmodifiableMap(new EnumMap<>(players));
+        player1 = players.get(PlayerId.PLAYER_1);
+        player2 = players.get(PlayerId.PLAYER_2);
+        this.rng = Objects.requireNonNull(rng);
+        this.map = Objects.requireNonNull(map);
+        gameState = GameState.initial(map, rng);
+    }
 
     /**
      * @param initialCards cartes utilisees pour s'emparer de la route
@@ -38,30 +68,30 @@ public final class Game {
     }
 
     /**
-     * méthode pour faire tourner le jeu.
+     * méthode pour faire tourner une partie, sur le fil d'execution appelant.
      *
      * @param players     liste des joueurs.
-     * @param tickets     tickets que le joueur
+     * @param map         carte de la partie.
      * @param rng         Random.
      */
     public static void play(Map<PlayerId, Player> players,
-                            SortedBag<Ticket> tickets,
+                            TchuMap map,
                             Random rng) {
-        //check si les maps playerNames et players ont une taille de 2.
-        Preconditions.checkArgument(players.size() == PlayerId.COUNT);
+        new Game(players, map, rng).play();
+    }
 
+    /**
+     * méthode pour faire tourner la partie, du debut jusqu'au decompte final des points.
+     */
+    public void play() {
         boolean lastTurnBegins = false;
-        playerMap = Map.copyOf(players);
-        String player1Name = players.get(PlayerId.PLAYER_1).getName();
-        String player2Name = players.get(PlayerId.PLAYER_2).getName();
+        String player1Name = player1.getName();
+        String player2Name = player2.getName();
 
         playerNameMap = Map.of(PlayerId.PLAYER_1, player1Name, PlayerId.PLAYER_2, player2Name);
-        player1 = players.get(PlayerId.PLAYER_1);
-        player2 = players.get(PlayerId.PLAYER_2);
         playerInfo1 = new Info(player1Name);
         playerInfo2 = new Info(player2Name);
         playerInfoMap = Map.of(PlayerId.PLAYER_1, playerInfo1, PlayerId.PLAYER_2, playerInfo2);
-        gameState = GameState.initial(tickets, rng);
         //debut de la partie
         beginGame();
 
@@ -79,19 +109,51 @@ public final class Game {
     }
 
     /**
-     * met à jour le jeu pour les deux joueurs.
+     * ajoute un spectateur a la partie, qui recoit des lors les informations et les etats publics du jeu.
+     * peut etre appelee par n'importe quel fil d'execution, y compris pendant la partie.
+     *
+     * @param spectator spectateur a ajouter
      */
-    private static void update() {
+    public void addSpectator(Spectator spectator) {
+        spectator.initMap(map);
+        spectators.add(spectator);
+    }
+
+    /**
+     * @return le nombre de tours joues jusqu'a present dans la partie.
+     */
+    public int turnCount() {
+        return turnCount;
+    }
+
+    /**
+     * @return la table associant a chaque joueur ses points finaux (bonus du plus long chemin compris),
+     *         ou une table vide si la partie n'est pas terminee.
+     */
+    public Map<PlayerId, Integer> finalPoints() {
+        return finalPoints;
+    }
+
+    /**
+     * met à jour le jeu pour les deux joueurs et les spectateurs.
+     */
+    private void update() {
         playerMap.keySet().forEach(p -> playerMap.get(p).updateState(gameState, gameState.playerState(p)));
+        if (!spectators.isEmpty()) {
+            //les spectateurs ne recoivent qu'une copie de la partie publique de l'etat
+            PublicGameState publicState = gameState.publicState();
+            spectators.forEach(s -> s.updateState(publicState));
+        }
     }
 
     /**
-     * annonce les informations au joueurs.
+     * annonce les informations au joueurs et aux spectateurs.
      *
      * @param info information a communiquer
      */
-    private static void announceInfo(String info) {
+    private void announceInfo(String info) {
         playerMap.values().forEach(p -> p.receiveInfo(info));
+        spectators.forEach(s -> s.receiveInfo(info));
     }
 
     /**
@@ -100,8 +162,8 @@ public final class Game {
      * @param currentPlayer     le joueur actuel
      * @param currentPlayerInfo instance Info liee au joueur
      */
-    private static void drawTickets(Player currentPlayer,
-                                    Info currentPlayerInfo) {
+    private void drawTickets(Player currentPlayer,
+                             Info currentPlayerInfo) {
         announceInfo(currentPlayerInfo.drewTickets(Constants.IN_GAME_TICKETS_COUNT));
         SortedBag<Ticket> topTickets = gameState.topTickets(Constants.IN_GAME_TICKETS_COUNT);
         SortedBag<Ticket> chosenTickets = currentPlayer.chooseTickets(topTickets);
@@ -117,9 +179,9 @@ public final class Game {
      * @param currentPlayerInfo instance Info liee au joueur
      * @param rng               generateur aleatoir
      */
-    private static void drawCards(Player currentPlayer,
-                                  Info currentPlayerInfo,
-                                  Random rng) {
+    private void drawCards(Player currentPlayer,
+                           Info currentPlayerInfo,
+                           Random rng) {
         gameState = gameState.withCardsDeckRecreatedIfNeeded(rng);
 
         for (int i = 0; i < 2; ++i) {
@@ -149,10 +211,10 @@ public final class Game {
      * @param currentPlayerInfo instance Info liee au joueur
      * @param rng               generateur aleatoir
      */
-    private static void claimRoute(Route route,
-                                   Player currentPlayer,
-                                   Info currentPlayerInfo,
-                                   Random rng) {
+    private void claimRoute(Route route,
+                            Player currentPlayer,
+                            Info currentPlayerInfo,
+                            Random rng) {
         SortedBag<Card> initialClaimCards = currentPlayer.initialClaimCards();
         List<Card> topDeckCards = new ArrayList<>();
         gameState = gameState.withCardsDeckRecreatedIfNeeded(rng);
@@ -163,30 +225,29 @@ public final class Game {
             claimOvergroundRoute(route, initialClaimCards, currentPlayerInfo);
         }
     }
-    private static void claimOvergroundRoute(Route route,
-                                             SortedBag<Card> initialClaimCards,
-                                             Info currentPlayerInfo){
+    private void claimOvergroundRoute(Route route,
+                                      SortedBag<Card> initialClaimCards,
+                                      Info currentPlayerInfo){
         gameState = gameState.withClaimedRoute(route, initialClaimCards);
         announceInfo(currentPlayerInfo.claimedRoute(route, initialClaimCards));
     }
-    private static void claimUndergroundRoute(List<Card> topDeckCards,
-                                              Random rng,
-                                              SortedBag<Card> initialClaimCards,
-                                              Route route,
-                                              Info currentPlayerInfo,
-                                              Player currentPlayer) {
-
-        //sequence pour obtenir les 3 cartes du sommet de la pioche
-        gameState = gameState.withMoreDiscardedCards(SortedBag.of());
+    private void claimUndergroundRoute(List<Card> topDeckCards,
+                                       Random rng,
+                                       SortedBag<Card> initialClaimCards,
+                                       Route route,
+                                       Info currentPlayerInfo,
+                                       Player currentPlayer) {
+
+        //sequence pour obtenir les 3 cartes du sommet de la pioche, qui sont ensuite defaussees ;
+        //les cartes initiales restent dans la main du joueur tant que la route n'est pas prise
         for (int i = 0; i < Constants.ADDITIONAL_TUNNEL_CARDS; ++i) {
             topDeckCards.add(gameState.topCard());
             gameState = gameState.withoutTopCard();
             gameState = gameState.withCardsDeckRecreatedIfNeeded(rng);
         }
-        gameState = gameState.withMoreDiscardedCards(initialClaimCards);
-
-
         SortedBag<Card> drawnCards = SortedBag.of(topDeckCards);
+        gameState = gameState.withMoreDiscardedCards(drawnCards);
+
         int additionalCardsNumber = numberOfAdditionalCards(initialClaimCards, SortedBag.of(topDeckCards), route);
 
         announceInfo(currentPlayerInfo.attemptsTunnelClaim(route, initialClaimCards));
@@ -223,7 +284,7 @@ public final class Game {
      *
      * @param rng generateur aleatoir
      */
-    private static boolean playerTurn(Random rng) {
+    private boolean playerTurn(Random rng) {
         Player currentPlayer = playerMap.get(gameState.currentPlayerId());
         Info currentPlayerInfo = new Info(playerNameMap.get(gameState.currentPlayerId()));
 
@@ -251,6 +312,7 @@ public final class Game {
         }
         update();
 
+        ++turnCount;
         boolean lastTurnBegin = gameState.lastTurnBegins();
         gameState = gameState.forNextTurn();
         return lastTurnBegin;
@@ -262,10 +324,10 @@ public final class Game {
      *  - les fait choisir leur tickets de depart
      *  - determine qui va jouer en premier
      */
-    private static void beginGame() {
-        //communique a chaque joueur son id + noms des joueurs.
+    private void beginGame() {
+        //communique a chaque joueur son id + noms des joueurs + carte.
 
-        playerMap.keySet().forEach(p -> playerMap.get(p).initPlayers(p, playerNameMap));
+        playerMap.keySet().forEach(p -> playerMap.get(p).initPlayers(p, playerNameMap, map));
 
         Info currentPlayerInfo = new Info(playerNameMap.get(gameState.currentPlayerId()));
 
@@ -296,9 +358,9 @@ public final class Game {
     /**
      * méthode appelé lors de la fin de partie
      */
-    private static void gameOver() {
-        Trail trailPlayer1 = Trail.longest(gameState.playerState(PlayerId.PLAYER_1).routes());
-        Trail trailPlayer2 = Trail.longest(gameState.playerState(PlayerId.PLAYER_2).routes());
+    private void gameOver() {
+        Trail trailPlayer1 = gameState.playerState(PlayerId.PLAYER_1).longestTrail();
+        Trail trailPlayer2 = gameState.playerState(PlayerId.PLAYER_2).longestTrail();
         int fPoints1 = gameState.playerState(PlayerId.PLAYER_1).finalPoints();
         int fPoints2 = gameState.playerState(PlayerId.PLAYER_2).finalPoints();
 
@@ -315,6 +377,8 @@ public final class Game {
             fPoints2 += Constants.LONGEST_TRAIL_BONUS_POINTS;
         }
 
+        finalPoints = Map.of(PlayerId.PLAYER_1, fPoints1, PlayerId.PLAYER_2, fPoints2);
+
         //si player 1 a le meme nombre de points que player 2.
         if (fPoints1 > fPoints2) {
             announceInfo(playerInfo1.won(fPoints1, fPoints2));
@@ -330,8 +394,8 @@ public final class Game {
 
 //    ################################# EXTENSIONS ###############################
 
-    private static void destroyRoute(Route route,
-                                     Info currentPlayerInfo) {
+    private void destroyRoute(Route route,
+                              Info currentPlayerInfo) {
         gameState = gameState.withDestructedRoute(route);
         announceInfo(currentPlayerInfo.destroyedRoute(route));
 
@@ -0,0 +1,503 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * classe représentant le journal d'une partie : la graine de son générateur aléatoire, la carte (dont les billets
+ * forment la pioche de billets), les noms des joueurs et, dans l'ordre où la partie (Game) les a demandées, toutes les décisions des joueurs.
+ * Le jeu étant déterministe une fois ces éléments fixés, le journal suffit à reconstituer chacun de ses états
+ * (voir GameReplay).
+ * Chaque décision est codée sur un ou deux octets, relativement aux possibilités offertes au joueur
+ * (masque des billets gardés, index d'une route, index d'un ensemble de cartes possibles, etc.), l'index d'une route
+ * n'occupant deux octets que sur une carte de plus de 256 routes.
+ * La carte étant écrite avec le journal, celui-ci peut être relu sans elle.
+ * Une partie interrompue peut être reprise (voir resume) : rejouée depuis le début avec les décisions
+ * du journal, elle repasse par les mêmes états, jusqu'au premier tour qu'il ne contient pas en entier.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class GameJournal {
+
+    private static final int FORMAT_VERSION = 2;
+
+    //codes de choix de cartes particuliers, les autres valeurs etant des index
+    static final int NO_CARDS = 0xFF;
+    static final int EXPLICIT_CARDS = 0xFE;
+
+    private final long seed;
+    private final TchuMap map;
+    private final Map<PlayerId, String> playerNames;
+    private final byte[] decisions;
+
+    private GameJournal(long seed, TchuMap map, Map<PlayerId, String> playerNames, byte[] decisions) {
+        this.seed = seed;
+        this.map = map;
+        this.playerNames = Map.copyOf(playerNames);
+        this.decisions = decisions;
+    }
+
+    /**
+     * @param map  carte de la partie
+     * @param seed graine du generateur aleatoire de la partie
+     * @return un enregistreur, au moyen duquel creer la partie a journaliser
+     */
+    public static Recorder recorder(TchuMap map, long seed) {
+        return new Recorder(Objects.requireNonNull(map), seed, null);
+    }
+
+    /**
+     * @return un enregistreur continuant ce journal : la partie qu'il cree reprend les decisions des tours
+     *         complets du journal, sans les demander aux joueurs, puis celles des joueurs, qui sont ajoutees
+     *         au journal ; un tour interrompu est ainsi rejoue en entier par son joueur
+     */
+    public Recorder resume() {
+        byte[] completeTurns = withCompleteTurns().decisions;
+        Recorder recorder = new Recorder(map, seed, new Reader(map, completeTurns));
+        recorder.decisions.writeBytes(completeTurns);
+        return recorder;
+    }
+
+    /**
+     * @return ce journal, reduit aux decisions de ses tours complets (tels que GameReplay les relit)
+     */
+    private GameJournal withCompleteTurns() {
+        int size = new GameReplay(this, Integer.MAX_VALUE).completeTurnsSize();
+        return size == decisions.length
+                ? this
+                : new GameJournal(seed, map, playerNames, Arrays.copyOf(decisions, size));
+    }
+
+    /**
+     * @return la graine du generateur aleatoire de la partie
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * @return la carte de la partie, dont les billets forment la pioche de billets
+     */
+    public TchuMap map() {
+        return map;
+    }
+
+    /**
+     * @return les noms des joueurs, ou une table vide si la partie n'a pas commence
+     */
+    public Map<PlayerId, String> playerNames() {
+        return playerNames;
+    }
+
+    /**
+     * @return la taille, en octets, des decisions journalisees
+     */
+    public int decisionsSize() {
+        return decisions.length;
+    }
+
+    /**
+     * @return les decisions, a relire au moyen de Reader
+     */
+    Reader reader() {
+        return new Reader(map, decisions);
+    }
+
+    /**
+     * @param map une carte
+     * @return vrai ssi les index des routes de la carte donnee sont codes sur deux octets plutot qu'un
+     */
+    private static boolean hasWideRouteIndices(TchuMap map) {
+        return map.routes().size() > 1 << Byte.SIZE;
+    }
+
+    /**
+     * ecrit le journal.
+     *
+     * @param out sortie de donnees
+     * @throws IOException en cas d'erreur d'entree/sortie
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(seed);
+        byte[] mapBytes = map.text().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(mapBytes.length);
+        out.write(mapBytes);
+        out.writeBoolean(!playerNames.isEmpty());
+        if (!playerNames.isEmpty()) {
+            for (PlayerId id : PlayerId.ALL) {
+                out.writeUTF(playerNames.get(id));
+            }
+        }
+        out.writeInt(decisions.length);
+        out.write(decisions);
+    }
+
+    /**
+     * lit un journal ecrit par writeTo.
+     *
+     * @param in entree de donnees
+     * @return le journal lu
+     * @throws IOException              en cas d'erreur d'entree/sortie
+     * @throws IllegalArgumentException si le format du journal est inconnu ou si sa carte n'est pas valide
+     */
+    public static GameJournal readFrom(DataInput in) throws IOException {
+        Preconditions.checkArgument(in.readUnsignedByte() == FORMAT_VERSION);
+        long seed = in.readLong();
+        byte[] mapBytes = new byte[in.readInt()];
+        in.readFully(mapBytes);
+        TchuMap map = TchuMap.parse(new String(mapBytes, StandardCharsets.UTF_8));
+        Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+        if (in.readBoolean()) {
+            for (PlayerId id : PlayerId.ALL) {
+                names.put(id, in.readUTF());
+            }
+        }
+        byte[] decisions = new byte[in.readInt()];
+        in.readFully(decisions);
+        return new GameJournal(seed, map, names, decisions);
+    }
+
+    /**
+     * classe représentant l'enregistreur du journal d'une partie : il enveloppe les joueurs de façon à noter
+     * chacune de leurs décisions.
+     * Lors d'une reprise, les décisions déjà journalisées sont relues au lieu d'être demandées aux joueurs,
+     * qui ne reçoivent alors ni les informations ni les états intermédiaires, mais seulement le dernier état
+     * avant leur première décision.
+     * Le journal peut être obtenu (journal) par un autre fil que celui de la partie.
+     */
+    public static final class Recorder {
+        private final TchuMap map;
+        private final long seed;
+        //ecrit par le fil de la partie, lu par journal ; ByteArrayOutputStream est synchronise
+        private final ByteArrayOutputStream decisions = new ByteArrayOutputStream();
+        private final Map<PlayerId, String> playerNames = new EnumMap<>(PlayerId.class);
+        private final Reader replay;
+
+        private Recorder(TchuMap map, long seed, Reader replay) {
+            this.map = map;
+            this.seed = seed;
+            this.replay = replay;
+        }
+
+        /**
+         * cree la partie a journaliser, dont le generateur aleatoire est initialise avec la graine de l'enregistreur.
+         * les decisions sont notees dans l'ordre ou la partie les demande, elle doit donc etre jouee sur un seul fil.
+         *
+         * @param players joueurs de la partie
+         * @return la partie
+         */
+        public Game newGame(Map<PlayerId, Player> players) {
+            Map<PlayerId, Player> recorded = new EnumMap<>(PlayerId.class);
+            players.forEach((id, p) -> recorded.put(id, new RecordingPlayer(id, p)));
+            return new Game(recorded, map, new Random(seed));
+        }
+
+        /**
+         * @return le journal des decisions des tours complets notes jusqu'ici, celles du tour en cours etant
+         *         omises, de sorte que la reprise d'une partie interrompue en plein tour recommence ce tour
+         */
+        public GameJournal journal() {
+            Map<PlayerId, String> names;
+            synchronized (playerNames) {
+                names = playerNames.size() == PlayerId.COUNT ? Map.copyOf(playerNames) : Map.of();
+            }
+            return new GameJournal(seed, map, names, decisions.toByteArray()).withCompleteTurns();
+        }
+
+        /**
+         * @return la taille, en octets, des decisions notees jusqu'ici
+         */
+        public int decisionsSize() {
+            return decisions.size();
+        }
+
+        private boolean isReplaying() {
+            return replay != null && !replay.isExhausted();
+        }
+
+        private void write(int b) {
+            decisions.write(b);
+        }
+
+        private void writeRoute(Route route) {
+            int index = map.indexOf(route);
+            if (hasWideRouteIndices(map)) {
+                write(index >>> Byte.SIZE);
+            }
+            write(index & 0xFF);
+        }
+
+        private void writeCards(SortedBag<Card> cards, List<SortedBag<Card>> options, int emptyCode) {
+            if (cards.isEmpty() && emptyCode != EXPLICIT_CARDS) {
+                write(emptyCode);
+                return;
+            }
+            int index = options.indexOf(cards);
+            if (0 <= index && index < EXPLICIT_CARDS) {
+                write(index);
+            } else {
+                //choix hors des possibilites offertes : note tel quel
+                write(EXPLICIT_CARDS);
+                write(cards.size());
+                cards.forEach(c -> write(c.ordinal()));
+            }
+        }
+
+        private void writeTickets(SortedBag<Ticket> chosen, SortedBag<Ticket> options) {
+            //masque des billets gardes parmi ceux proposes (au plus 5)
+            int mask = 0;
+            SortedBag<Ticket> remaining = chosen;
+            for (int i = 0; i < options.size(); ++i) {
+                Ticket t = options.get(i);
+                if (remaining.contains(t)) {
+                    mask |= 1 << i;
+                    remaining = remaining.difference(SortedBag.of(t));
+                }
+            }
+            write(mask);
+        }
+
+        /**
+         * classe représentant un joueur dont les décisions sont notées dans le journal.
+         */
+        private final class RecordingPlayer implements Player {
+            private final PlayerId id;
+            private final Player player;
+            private SortedBag<Ticket> initialTickets = SortedBag.of();
+            private Route claimedRoute;
+            //etat retenu pendant la relecture, transmis au joueur avant sa premiere decision
+            private PublicGameState heldState;
+            private PlayerState heldOwnState;
+
+            private RecordingPlayer(PlayerId id, Player player) {
+                this.id = id;
+                this.player = Objects.requireNonNull(player);
+            }
+
+            @Override
+            public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames, TchuMap map) {
+                player.initPlayers(ownId, playerNames, map);
+            }
+
+            @Override
+            public void receiveInfo(String info) {
+                if (!isReplaying()) {
+                    player.receiveInfo(info);
+                }
+            }
+
+            @Override
+            public void updateState(PublicGameState newState, PlayerState ownState) {
+                if (isReplaying()) {
+                    heldState = newState;
+                    heldOwnState = ownState;
+                } else {
+                    heldState = null;
+                    player.updateState(newState, ownState);
+                }
+            }
+
+            /**
+             * @return vrai ssi la decision doit etre relue du journal ; sinon, transmet au joueur l'etat
+             *         retenu pendant la relecture, avant que la decision ne lui soit demandee
+             */
+            private boolean replays() {
+                if (isReplaying()) {
+                    return true;
+                }
+                if (heldState != null) {
+                    player.updateState(heldState, heldOwnState);
+                    heldState = null;
+                }
+                return false;
+            }
+
+            @Override
+            public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+                initialTickets = tickets;
+                player.setInitialTicketChoice(tickets);
+            }
+
+            @Override
+            public SortedBag<Ticket> chooseInitialTickets() {
+                if (replays()) {
+                    return replay.tickets(initialTickets);
+                }
+                SortedBag<Ticket> chosen = player.chooseInitialTickets();
+                writeTickets(chosen, initialTickets);
+                return chosen;
+            }
+
+            @Override
+            public TurnKind nextTurn() {
+                if (replays()) {
+                    return replay.turnKind();
+                }
+                TurnKind turn = player.nextTurn();
+                write(turn.ordinal());
+                return turn;
+            }
+
+            @Override
+            public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+                if (replays()) {
+                    return replay.tickets(options);
+                }
+                SortedBag<Ticket> chosen = player.chooseTickets(options);
+                writeTickets(chosen, options);
+                return chosen;
+            }
+
+            @Override
+            public int drawSlot() {
+                if (replays()) {
+                    return replay.drawSlot();
+                }
+                int slot = player.drawSlot();
+                write(slot);
+                return slot;
+            }
+
+            @Override
+            public Route claimedRoute() {
+                if (replays()) {
+                    claimedRoute = replay.route();
+                    return claimedRoute;
+                }
+                claimedRoute = player.claimedRoute();
+                writeRoute(claimedRoute);
+                return claimedRoute;
+            }
+
+            @Override
+            public SortedBag<Card> initialClaimCards() {
+                if (replays()) {
+                    return replay.cards(claimedRoute.possibleClaimCards());
+                }
+                SortedBag<Card> cards = player.initialClaimCards();
+                writeCards(cards, claimedRoute.possibleClaimCards(), EXPLICIT_CARDS);
+                return cards;
+            }
+
+            @Override
+            public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+                if (replays()) {
+                    return replay.cards(options);
+                }
+                SortedBag<Card> cards = player.chooseAdditionalCards(options);
+                writeCards(cards, options, NO_CARDS);
+                return cards;
+            }
+
+            @Override
+            public String getName() {
+                String name = player.getName();
+                synchronized (playerNames) {
+                    playerNames.put(id, name);
+                }
+                return name;
+            }
+
+            @Override
+            public Route destroyedRoute() {
+                if (replays()) {
+                    return replay.route();
+                }
+                Route route = player.destroyedRoute();
+                writeRoute(route);
+                return route;
+            }
+        }
+    }
+
+    /**
+     * classe représentant la relecture des décisions d'un journal, à partir d'une position donnée.
+     */
+    static final class Reader {
+        private final TchuMap map;
+        private final byte[] decisions;
+        private int position;
+
+        private Reader(TchuMap map, byte[] decisions) {
+            this.map = map;
+            this.decisions = decisions;
+        }
+
+        /**
+         * @return la position de la prochaine decision
+         */
+        int position() {
+            return position;
+        }
+
+        /**
+         * @param position nouvelle position de lecture, obtenue par position()
+         */
+        void seek(int position) {
+            Objects.checkIndex(position, decisions.length + 1);
+            this.position = position;
+        }
+
+        /**
+         * @return vrai ssi toutes les decisions ont ete relues
+         */
+        boolean isExhausted() {
+            return position == decisions.length;
+        }
+
+        private int next() {
+            if (position == decisions.length) {
+                throw new NoSuchElementException();
+            }
+            return decisions[position++] & 0xFF;
+        }
+
+        Player.TurnKind turnKind() {
+            return Player.TurnKind.ALL.get(next());
+        }
+
+        int drawSlot() {
+            return (byte) next();
+        }
+
+        Route route() {
+            int index = next();
+            if (hasWideRouteIndices(map)) {
+                index = index << Byte.SIZE | next();
+            }
+            return map.routes().get(index);
+        }
+
+        SortedBag<Ticket> tickets(SortedBag<Ticket> options) {
+            int mask = next();
+            SortedBag.Builder<Ticket> chosen = new SortedBag.Builder<>();
+            for (int i = 0; i < options.size(); ++i) {
+                if ((mask & (1 << i)) != 0) {
+                    chosen.add(options.get(i));
+                }
+            }
+            return chosen.build();
+        }
+
+        SortedBag<Card> cards(List<SortedBag<Card>> options) {
+            int code = next();
+            if (code == NO_CARDS) {
+                return SortedBag.of();
+            }
+            if (code != EXPLICIT_CARDS) {
+                return options.get(code);
+            }
+            SortedBag.Builder<Card> cards = new SortedBag.Builder<>();
+            for (int i = next(); i > 0; --i) {
+                cards.add(Card.ALL.get(next()));
+            }
+            return cards.build();
+        }
+    }
+}
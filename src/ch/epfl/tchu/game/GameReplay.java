@@ -0,0 +1,299 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * classe représentant la relecture d'une partie journalisée (GameJournal) : les états du jeu sont reconstitués
+ * en réappliquant les transitions de GameState dans l'ordre où Game les applique, avec les décisions du journal
+ * et sans aucun joueur, ni aucune information à produire.
+ * Une première relecture complète note un instantané (état, position dans le journal et générateur aléatoire)
+ * tous les snapshotInterval tours, de sorte que l'état après n'importe quel tour s'obtient ensuite en relisant
+ * au plus snapshotInterval - 1 tours.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class GameReplay {
+
+    private final GameJournal journal;
+    private final int snapshotInterval;
+    private final List<Snapshot> snapshots = new ArrayList<>();
+    private final int turnCount;
+    private final boolean complete;
+    private final GameState finalState;
+    private final int completeTurnsSize;
+
+    /**
+     * relit entierement la partie du journal donne.
+     *
+     * @param journal          journal de la partie
+     * @param snapshotInterval nombre de tours entre deux instantanes
+     * @throws IllegalArgumentException si l'intervalle n'est pas positif
+     */
+    public GameReplay(GameJournal journal, int snapshotInterval) {
+        Preconditions.checkArgument(snapshotInterval > 0);
+        this.journal = journal;
+        this.snapshotInterval = snapshotInterval;
+
+        Cursor cursor = new Cursor(journal);
+        boolean begun = cursor.beginGame();
+        boolean complete = begun;
+        while (complete && !cursor.isOver()) {
+            if (cursor.turn % snapshotInterval == 0) {
+                snapshots.add(cursor.snapshot());
+            }
+            complete = cursor.playTurn();
+        }
+        this.complete = complete;
+        this.turnCount = cursor.turn;
+        this.finalState = cursor.state;
+        this.completeTurnsSize = begun ? cursor.decisions.position() : 0;
+    }
+
+    /**
+     * @return le journal relu
+     */
+    public GameJournal journal() {
+        return journal;
+    }
+
+    /**
+     * @return le nombre de tours complets du journal
+     */
+    public int turnCount() {
+        return turnCount;
+    }
+
+    /**
+     * @return vrai ssi la partie du journal est allee a son terme, et n'a pas ete interrompue
+     *         par la deconnexion ou un coup invalide d'un joueur
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return l'etat du jeu apres le dernier tour complet
+     */
+    public GameState finalState() {
+        return finalState;
+    }
+
+    /**
+     * @return la taille, en octets, des decisions du journal jusqu'a la fin du dernier tour complet, ou 0 si
+     *         le choix des billets initiaux n'y est pas complet
+     */
+    int completeTurnsSize() {
+        return completeTurnsSize;
+    }
+
+    /**
+     * @param turn nombre de tours joues, 0 designant l'etat apres le choix des billets initiaux
+     * @return l'etat du jeu a la fin du tour donne, tel que Game l'a passe au tour suivant
+     * @throws IndexOutOfBoundsException si le tour n'est pas compris entre 0 et turnCount() inclus
+     */
+    public GameState stateAfterTurn(int turn) {
+        if (turn == turnCount) {
+            return finalState;
+        }
+        Objects.checkIndex(turn, turnCount);
+        Cursor cursor = snapshots.get(turn / snapshotInterval).restore(journal);
+        while (cursor.turn < turn) {
+            cursor.playTurn();
+        }
+        return cursor.state;
+    }
+
+    /**
+     * classe représentant un instantané de la relecture au début d'un tour.
+     */
+    private static final class Snapshot {
+        private final int turn;
+        private final GameState state;
+        private final int position;
+        private final int lastTurns;
+        private final ReplayRandom rng;
+
+        private Snapshot(Cursor cursor) {
+            this.turn = cursor.turn;
+            this.state = cursor.state;
+            this.position = cursor.decisions.position();
+            this.lastTurns = cursor.lastTurns;
+            this.rng = cursor.rng.copy();
+        }
+
+        private Cursor restore(GameJournal journal) {
+            Cursor cursor = new Cursor(journal);
+            cursor.turn = turn;
+            cursor.state = state;
+            cursor.lastTurns = lastTurns;
+            cursor.rng = rng.copy();
+            cursor.decisions.seek(position);
+            return cursor;
+        }
+    }
+
+    /**
+     * classe représentant un générateur aléatoire produisant la même suite que java.util.Random
+     * pour la même graine (dont l'algorithme est spécifié), mais dont l'état peut être copié.
+     */
+    private static final class ReplayRandom extends Random {
+        private static final long serialVersionUID = 1L;
+        private static final long MULTIPLIER = 0x5DEECE66DL;
+        private static final long ADDEND = 0xBL;
+        private static final long MASK = (1L << 48) - 1;
+
+        private long state;
+
+        private ReplayRandom(long seed) {
+            super(seed);
+        }
+
+        private ReplayRandom copy() {
+            ReplayRandom copy = new ReplayRandom(0);
+            copy.state = state;
+            return copy;
+        }
+
+        @Override
+        public synchronized void setSeed(long seed) {
+            state = (seed ^ MULTIPLIER) & MASK;
+        }
+
+        @Override
+        protected int next(int bits) {
+            state = (state * MULTIPLIER + ADDEND) & MASK;
+            return (int) (state >>> (48 - bits));
+        }
+    }
+
+    /**
+     * classe représentant la position courante d'une relecture.
+     * Ses méthodes reproduisent, transition par transition, celles de Game.
+     */
+    private static final class Cursor {
+        private final TchuMap map;
+        private final GameJournal.Reader decisions;
+        private ReplayRandom rng;
+        private GameState state;
+        private int turn;
+        //-1 tant que le dernier tour n'a pas commence, puis nombre de tours restant a jouer
+        private int lastTurns = -1;
+
+        private Cursor(GameJournal journal) {
+            this.map = journal.map();
+            this.decisions = journal.reader();
+            this.rng = new ReplayRandom(journal.seed());
+        }
+
+        private Snapshot snapshot() {
+            return new Snapshot(this);
+        }
+
+        private boolean isOver() {
+            return lastTurns == 0;
+        }
+
+        /**
+         * @return vrai ssi le journal contient la totalite du debut de partie
+         */
+        private boolean beginGame() {
+            GameState s = GameState.initial(map, rng);
+            SortedBag<Ticket> t1 = s.topTickets(Constants.INITIAL_TICKETS_COUNT);
+            s = s.withoutTopTickets(Constants.INITIAL_TICKETS_COUNT);
+            SortedBag<Ticket> t2 = s.topTickets(Constants.INITIAL_TICKETS_COUNT);
+            s = s.withoutTopTickets(Constants.INITIAL_TICKETS_COUNT);
+            state = s;
+            try {
+                SortedBag<Ticket> chosen1 = decisions.tickets(t1);
+                SortedBag<Ticket> chosen2 = decisions.tickets(t2);
+                state = s.withInitiallyChosenTickets(PlayerId.PLAYER_1, chosen1)
+                        .withInitiallyChosenTickets(PlayerId.PLAYER_2, chosen2);
+                return true;
+            } catch (NoSuchElementException | IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        /**
+         * joue le tour suivant.
+         *
+         * @return vrai ssi le journal contient la totalite du tour, auquel cas seulement l'etat est modifie
+         */
+        private boolean playTurn() {
+            int position = decisions.position();
+            try {
+                GameState s = state;
+                switch (decisions.turnKind()) {
+                    case DRAW_TICKETS:
+                        SortedBag<Ticket> drawn = s.topTickets(Constants.IN_GAME_TICKETS_COUNT);
+                        s = s.withChosenAdditionalTickets(drawn, decisions.tickets(drawn));
+                        break;
+                    case DRAW_CARDS:
+                        s = s.withCardsDeckRecreatedIfNeeded(rng);
+                        for (int i = 0; i < 2; ++i) {
+                            int slot = decisions.drawSlot();
+                            s = s.withCardsDeckRecreatedIfNeeded(rng);
+                            s = slot == Constants.DECK_SLOT ? s.withBlindlyDrawnCard() : s.withDrawnFaceUpCard(slot);
+                        }
+                        break;
+                    case CLAIM_ROUTE:
+                        s = claimRoute(s, decisions.route());
+                        break;
+                    case DESTROY_ROUTE:
+                        s = s.withDestructedRoute(decisions.route());
+                        break;
+                }
+                boolean lastTurnBegins = s.lastTurnBegins();
+                state = s.forNextTurn();
+                if (lastTurns > 0) {
+                    --lastTurns;
+                } else if (lastTurnBegins && lastTurns < 0) {
+                    lastTurns = PlayerId.COUNT;
+                }
+                ++turn;
+                return true;
+            } catch (NoSuchElementException | IllegalArgumentException e) {
+                //journal interrompu, ou coup invalide d'un joueur sur lequel Game a echoue de meme
+                decisions.seek(position);
+                return false;
+            }
+        }
+
+        private GameState claimRoute(GameState s, Route route) {
+            SortedBag<Card> initialCards = decisions.cards(route.possibleClaimCards());
+            s = s.withCardsDeckRecreatedIfNeeded(rng);
+            if (route.level() != Route.Level.UNDERGROUND) {
+                return s.withClaimedRoute(route, initialCards);
+            }
+
+            SortedBag.Builder<Card> drawn = new SortedBag.Builder<>();
+            for (int i = 0; i < Constants.ADDITIONAL_TUNNEL_CARDS; ++i) {
+                drawn.add(s.topCard());
+                s = s.withoutTopCard();
+                s = s.withCardsDeckRecreatedIfNeeded(rng);
+            }
+            SortedBag<Card> drawnCards = drawn.build();
+            s = s.withMoreDiscardedCards(drawnCards);
+
+            int additionalCount = route.additionalClaimCardsCount(initialCards, drawnCards);
+            if (additionalCount == 0) {
+                return s.withClaimedRoute(route, initialCards);
+            }
+            s = s.withCardsDeckRecreatedIfNeeded(rng);
+            List<SortedBag<Card>> options = s.currentPlayerState().possibleAdditionalCards(additionalCount, initialCards);
+            if (options.isEmpty()) {
+                return s;
+            }
+            SortedBag<Card> additionalCards = decisions.cards(options);
+            return additionalCards.isEmpty() ? s : s.withClaimedRoute(route, initialCards.union(additionalCards));
+        }
+    }
+}
@@ -14,54 +14,159 @@ import java.util.*;
  */
 public final class GameState extends PublicGameState {
 
+    private final TchuMap map;
     private final Deck<Ticket> ticketDeck;
     private final PlayerId currentPlayer;
-    private final Map<PlayerId, PlayerState> playerStateMap;
+    private final PlayerPair<PlayerState> playerStates;
     private final CardState cardState;
     private final PlayerId lastPlayer;
 
     /**
      * construit l'état du jeu.
      *
+     * @param map           carte de la partie,
      * @param ticketDeck    pioche de tickets,
      * @param cardState     etat des cartes,
      * @param currentPlayer joueur actuel,
      * @param playerState   etat des joueurs,
      * @param lastPlayer    dernier joueur a avoir jouer son tour ou null si le premier tour n'a pas ete joue.
      */
-    private GameState(Deck<Ticket> ticketDeck, CardState cardState, PlayerId currentPlayer,
-                      Map<PlayerId, PlayerState> playerState, PlayerId lastPlayer) {
-        super(ticketDeck.size(), cardState, currentPlayer, Map.copyOf(playerState), lastPlayer);
+    private GameState(TchuMap map, Deck<Ticket> ticketDeck, CardState cardState, PlayerId currentPlayer,
+                      PlayerPair<PlayerState> playerState, PlayerId lastPlayer) {
+        super(ticketDeck.size(), cardState, currentPlayer, playerState, lastPlayer);
+        this.map = map;
         this.ticketDeck = ticketDeck;
         this.cardState = cardState;
         this.currentPlayer = currentPlayer;
-        this.playerStateMap = Map.copyOf(playerState);
+        this.playerStates = playerState;
         this.lastPlayer = lastPlayer;
     }
 
     /**
-     * @param tickets multiensemble de tickets qui va servir comme pioche de ticket
-     * @param rng     generateur aleotoire
+     * @param map carte de la partie, dont les billets vont servir comme pioche de ticket
+     * @param rng generateur aleotoire
      * @return etat d'un jeu.
      */
-    public static GameState initial(SortedBag<Ticket> tickets, Random rng) {
-        Deck<Ticket> ticketDeck = Deck.of(tickets, rng);
+    public static GameState initial(TchuMap map, Random rng) {
+        Deck<Ticket> ticketDeck = Deck.of(SortedBag.of(map.tickets()), rng);
 
         //Distribution des cartes dans le deck
         Deck<Card> allCardDeck = Deck.of(Constants.ALL_CARDS, rng);
         Deck<Card> initialCardDeck = allCardDeck.withoutTopCards(8);
 
-        //Creation de la map et repartition des cartes au sein des joueurs
-        Map<PlayerId, PlayerState> playerState = new EnumMap<>(PlayerId.class);
-
-        playerState.put(PlayerId.PLAYER_1, PlayerState.initial(allCardDeck.topCards(Constants.INITIAL_CARDS_COUNT)));
-        playerState.put(PlayerId.PLAYER_2, PlayerState.initial(allCardDeck.withoutTopCards(Constants.INITIAL_CARDS_COUNT).topCards(Constants.INITIAL_CARDS_COUNT)));
+        //repartition des cartes au sein des joueurs
+        PlayerPair<PlayerState> playerState = PlayerPair.of(
+                PlayerState.initial(allCardDeck.topCards(Constants.INITIAL_CARDS_COUNT)),
+                PlayerState.initial(allCardDeck.withoutTopCards(Constants.INITIAL_CARDS_COUNT).topCards(Constants.INITIAL_CARDS_COUNT)));
 
         //Choix du premier joueur
         PlayerId currentPlayer = PlayerId.ALL.get(rng.nextInt(2));
 
-        return new GameState(ticketDeck, CardState.of(initialCardDeck), currentPlayer, playerState, null);
+        return new GameState(map, ticketDeck, CardState.of(initialCardDeck), currentPlayer, playerState, null);
+
+    }
+
+    /**
+     * tire au hasard un état complet du jeu compatible avec ce qu'en sait un joueur : son propre état et l'état public.
+     * Les cartes qu'il ne voit pas (main de l'adversaire, pioche et défausse) sont réparties au hasard
+     * entre ces trois tas, et les billets qu'il ne possède pas entre la main de l'adversaire et la pioche.
+     *
+     * @param publicState état public du jeu,
+     * @param ownId       identité du joueur,
+     * @param ownState    état complet du joueur,
+     * @param map         carte de la partie, dont sont tirés les billets,
+     * @param rng         générateur aléatoire,
+     * @return un état du jeu dont l'état public et l'état du joueur donné sont ceux donnés,
+     * @throws IllegalArgumentException si les cartes que le joueur ne voit pas ne sont pas exactement celles
+     *                                  de la main de l'adversaire, de la pioche et de la défausse, ou si les billets
+     *                                  inconnus ne suffisent pas à remplir la main de l'adversaire et la pioche.
+     */
+    public static GameState sampled(PublicGameState publicState, PlayerId ownId, PlayerState ownState,
+                                    TchuMap map, Random rng) {
+        PublicPlayerState opponent = publicState.playerState(ownId.next());
+        PublicCardState cards = publicState.cardState();
+
+        List<Card> unknownCards = CardBag.of(Constants.ALL_CARDS)
+                .difference(ownState.cards())
+                .difference(CardBag.of(cards.faceUpCards()))
+                .toList();
+        int opponentCardsEnd = opponent.cardCount();
+        int deckEnd = opponentCardsEnd + cards.deckSize();
+        int unknownCount = deckEnd + cards.discardsSize();
+        Preconditions.checkArgument(unknownCards.size() == unknownCount);
+        Collections.shuffle(unknownCards, rng);
+
+        List<Ticket> unknownTickets = SortedBag.of(map.tickets()).difference(ownState.tickets()).toList();
+        Preconditions.checkArgument(opponent.ticketCount() + publicState.ticketsCount() <= unknownTickets.size());
+        Collections.shuffle(unknownTickets, rng);
 
+        PlayerState opponentState = new PlayerState(
+                SortedBag.of(unknownTickets.subList(0, opponent.ticketCount())),
+                CardBag.of(unknownCards.subList(0, opponentCardsEnd)),
+                opponent.routes());
+        Deck<Ticket> ticketDeck = Deck.of(SortedBag.of(unknownTickets.subList(opponent.ticketCount(),
+                opponent.ticketCount() + publicState.ticketsCount())), rng);
+        CardState cardState = CardState.of(cards.faceUpCards(),
+                Deck.of(CardBag.of(unknownCards.subList(opponentCardsEnd, deckEnd)), rng),
+                CardBag.of(unknownCards.subList(deckEnd, unknownCount)));
+
+        PlayerPair<PlayerState> playerStates = ownId == PlayerId.PLAYER_1
+                ? PlayerPair.of(ownState, opponentState)
+                : PlayerPair.of(opponentState, ownState);
+        return new GameState(map, ticketDeck, cardState, publicState.currentPlayerId(), playerStates, publicState.lastPlayer());
+    }
+
+    /**
+     * @param map           carte de la partie,
+     * @param ticketDeck    pioche de tickets,
+     * @param cardState     etat des cartes,
+     * @param currentPlayer joueur actuel,
+     * @param playerStates  etat des joueurs,
+     * @param lastPlayer    dernier joueur, ou null s'il n'est pas encore connu,
+     * @return l'état du jeu constitué des éléments donnés.
+     */
+    static GameState of(TchuMap map, Deck<Ticket> ticketDeck, CardState cardState, PlayerId currentPlayer,
+                        PlayerPair<PlayerState> playerStates, PlayerId lastPlayer) {
+        return new GameState(map, ticketDeck, cardState, currentPlayer, playerStates, lastPlayer);
+    }
+
+    /**
+     * @return la carte de la partie.
+     */
+    public TchuMap map() {
+        return map;
+    }
+
+    /**
+     * @return la pioche de tickets.
+     */
+    Deck<Ticket> ticketDeck() {
+        return ticketDeck;
+    }
+
+    /**
+     * @return une copie de la partie publique de l'état, qui, contrairement à l'état lui-même,
+     * ne donne accès ni à la pioche ni à l'état privé des joueurs, même par transtypage.
+     */
+    PublicGameState publicState() {
+        PublicCardState publicCardState = new PublicCardState(cardState.faceUpCards(),
+                cardState.deckSize(), cardState.discardsSize());
+        PlayerPair<PublicPlayerState> publicPlayerStates = PlayerPair.of(
+                publicPlayerState(PlayerId.PLAYER_1), publicPlayerState(PlayerId.PLAYER_2));
+        return new PublicGameState(ticketsCount(), publicCardState, currentPlayerId(), publicPlayerStates,
+                lastPlayer());
+    }
+
+    private PublicPlayerState publicPlayerState(PlayerId id) {
+        PlayerState state = playerStates.get(id);
+        return new PublicPlayerState(state.ticketCount(), state.cardCount(), state.routes(), state.longestTrail());
+    }
+
+    /**
+     * @return l'état complet des cartes, pioche et défausse comprises.
+     */
+    CardState completeCardState() {
+        return cardState;
     }
 
     /**
@@ -69,7 +174,7 @@ public final class GameState extends PublicGameState {
      */
     @Override
     public PlayerState playerState(PlayerId playerId) {
-        return playerStateMap.get(playerId);
+        return playerStates.get(playerId);
     }
 
     /**
@@ -77,7 +182,7 @@ public final class GameState extends PublicGameState {
      */
     @Override
     public PlayerState currentPlayerState() {
-        return playerStateMap.get(currentPlayerId());
+        return playerStates.get(currentPlayerId());
     }
 
     /**
@@ -97,7 +202,7 @@ public final class GameState extends PublicGameState {
      */
     public GameState withoutTopTickets(int count) {
         Preconditions.checkArgument(0 <= count && count <= ticketsCount());
-        return new GameState(ticketDeck.withoutTopCards(count), cardState, currentPlayer, playerStateMap, lastPlayer);
+        return new GameState(map, ticketDeck.withoutTopCards(count), cardState, currentPlayer, playerStates, lastPlayer);
     }
 
     /**
@@ -115,8 +220,8 @@ public final class GameState extends PublicGameState {
      */
     public GameState withoutTopCard() {
         Preconditions.checkArgument(!cardState.isDeckEmpty());
-        return new GameState(ticketDeck, cardState.withoutTopDeckCard(), currentPlayerId(),
-                new EnumMap<>(playerStateMap), lastPlayer());
+        return new GameState(map, ticketDeck, cardState.withoutTopDeckCard(), currentPlayerId(),
+                playerStates, lastPlayer());
     }
 
     /**
@@ -124,8 +229,8 @@ public final class GameState extends PublicGameState {
      * @return un état identique au récepteur mais avec les cartes données ajoutées à la défausse.
      */
     public GameState withMoreDiscardedCards(SortedBag<Card> discardedCards) {
-        return new GameState(ticketDeck, cardState.withMoreDiscardedCards(discardedCards),
-                currentPlayerId(), new EnumMap<>(playerStateMap), lastPlayer());
+        return new GameState(map, ticketDeck, cardState.withMoreDiscardedCards(discardedCards),
+                currentPlayerId(), playerStates, lastPlayer());
     }
 
     /**
@@ -135,8 +240,8 @@ public final class GameState extends PublicGameState {
      * mélangée au moyen du générateur aléatoire donné
      */
     public GameState withCardsDeckRecreatedIfNeeded(Random rng) {
-        return !cardState.isDeckEmpty() ? this : new GameState(ticketDeck, cardState.withDeckRecreatedFromDiscards(rng),
-                currentPlayerId(), Map.copyOf(playerStateMap), lastPlayer());
+        return !cardState.isDeckEmpty() ? this : new GameState(map, ticketDeck, cardState.withDeckRecreatedFromDiscards(rng),
+                currentPlayerId(), playerStates, lastPlayer());
     }
 
     /**
@@ -147,10 +252,10 @@ public final class GameState extends PublicGameState {
      * @throws IllegalArgumentException si le joueur en question possède déjà au moins un billet.
      */
     public GameState withInitiallyChosenTickets(PlayerId playerId, SortedBag<Ticket> chosenTickets) {
-        Preconditions.checkArgument(playerStateMap.get(playerId).tickets().isEmpty());
-        Map<PlayerId, PlayerState> newMap = new EnumMap<>(Map.copyOf(playerStateMap));
-        newMap.put(playerId, newMap.get(playerId).withAddedTickets(chosenTickets));
-        return new GameState(ticketDeck, cardState, currentPlayerId(), newMap, lastPlayer());
+        Preconditions.checkArgument(playerStates.get(playerId).tickets().isEmpty());
+        PlayerPair<PlayerState> newStates = playerStates.with(playerId,
+                playerStates.get(playerId).withAddedTickets(chosenTickets));
+        return new GameState(map, ticketDeck, cardState, currentPlayerId(), newStates, lastPlayer());
     }
 
     /**
@@ -164,10 +269,8 @@ public final class GameState extends PublicGameState {
     public GameState withChosenAdditionalTickets(SortedBag<Ticket> drawnTickets, SortedBag<Ticket> chosenTickets) {
         Preconditions.checkArgument(drawnTickets.contains(chosenTickets));
         PlayerState player = currentPlayerState().withAddedTickets(chosenTickets);
-        Map<PlayerId, PlayerState> newMap = new EnumMap<>(playerStateMap);
-        newMap.put(currentPlayer, player);
-        return new GameState(ticketDeck.withoutTopCards(drawnTickets.size()), cardState, currentPlayer,
-                newMap, lastPlayer);
+        return new GameState(map, ticketDeck.withoutTopCards(drawnTickets.size()), cardState, currentPlayer,
+                playerStates.with(currentPlayer, player), lastPlayer);
     }
 
     /**
@@ -178,11 +281,10 @@ public final class GameState extends PublicGameState {
      * @throws IllegalArgumentException s'il n'est pas possible de tirer des cartes.
      */
     public GameState withDrawnFaceUpCard(int slot) {
-        Map<PlayerId, PlayerState> stateMap = new EnumMap<>(playerStateMap);
-        stateMap.put(currentPlayerId(),
-                stateMap.get(currentPlayerId()).withAddedCard(cardState().faceUpCard(slot)));
+        PlayerPair<PlayerState> newStates = playerStates.with(currentPlayerId(),
+                currentPlayerState().withAddedCard(cardState().faceUpCard(slot)));
         CardState newCardState = cardState.withDrawnFaceUpCard(slot);
-        return new GameState(ticketDeck, newCardState, currentPlayerId(), stateMap, lastPlayer());
+        return new GameState(map, ticketDeck, newCardState, currentPlayerId(), newStates, lastPlayer());
     }
 
     /**
@@ -191,10 +293,9 @@ public final class GameState extends PublicGameState {
      * @throws IllegalArgumentException s'il n'est pas possible de tirer des cartes.
      */
     public GameState withBlindlyDrawnCard() {
-        Map<PlayerId, PlayerState> newMap = new EnumMap<>(playerStateMap);
-        newMap.put(currentPlayerId(),
-                newMap.get(currentPlayerId()).withAddedCard(cardState.topDeckCard()));
-        return new GameState(ticketDeck, cardState.withoutTopDeckCard(), currentPlayerId(), newMap, lastPlayer());
+        PlayerPair<PlayerState> newStates = playerStates.with(currentPlayerId(),
+                currentPlayerState().withAddedCard(cardState.topDeckCard()));
+        return new GameState(map, ticketDeck, cardState.withoutTopDeckCard(), currentPlayerId(), newStates, lastPlayer());
     }
 
     /**
@@ -204,10 +305,9 @@ public final class GameState extends PublicGameState {
      * s'est emparé de la route donnée au moyen des cartes données.
      */
     public GameState withClaimedRoute(Route route, SortedBag<Card> cards) {
-        Map<PlayerId, PlayerState> newMap = new EnumMap<>(playerStateMap);
-        newMap.put(currentPlayerId(),
-                newMap.get(currentPlayerId()).withClaimedRoute(route, cards));
-        return new GameState(ticketDeck, cardState.withMoreDiscardedCards(cards), currentPlayerId(), newMap, lastPlayer());
+        PlayerPair<PlayerState> newStates = playerStates.with(currentPlayerId(),
+                currentPlayerState().withClaimedRoute(route, cards));
+        return new GameState(map, ticketDeck, cardState.withMoreDiscardedCards(cards), currentPlayerId(), newStates, lastPlayer());
     }
 
     /**
@@ -215,7 +315,7 @@ public final class GameState extends PublicGameState {
      * cette méthode doit être appelée uniquement à la fin du tour d'un joueur.
      */
     public boolean lastTurnBegins() {
-        return (playerStateMap.get(currentPlayer).carCount() <= 2);
+        return (playerStates.get(currentPlayer).carCount() <= 2);
     }
 
     /**
@@ -226,17 +326,17 @@ public final class GameState extends PublicGameState {
      */
     public GameState forNextTurn() {
         return lastTurnBegins() ?
-                new GameState(ticketDeck, cardState, currentPlayerId().next(), playerStateMap, currentPlayer) :
-                new GameState(ticketDeck, cardState, currentPlayerId().next(), playerStateMap, lastPlayer);
+                new GameState(map, ticketDeck, cardState, currentPlayerId().next(), playerStates, currentPlayer) :
+                new GameState(map, ticketDeck, cardState, currentPlayerId().next(), playerStates, lastPlayer);
 
     }
 
     //    ########################################### EXTENSIONS #################################################
 
     public GameState withDestructedRoute(Route route) {
-        Map<PlayerId, PlayerState> newMap = new EnumMap<>(playerStateMap);
-        newMap.put(currentPlayerId(), newMap.get(currentPlayerId()).withoutCard(Card.BOMB));
-        newMap.put(currentPlayerId().next(), newMap.get(currentPlayerId().next()).withDestructedRoute(route));
-        return new GameState(ticketDeck, cardState.withMoreDiscardedCards(SortedBag.of(Card.BOMB)), currentPlayerId(), newMap, lastPlayer());
+        PlayerPair<PlayerState> newStates = playerStates
+                .with(currentPlayerId(), currentPlayerState().withoutCard(Card.BOMB))
+                .with(currentPlayerId().next(), playerStates.get(currentPlayerId().next()).withDestructedRoute(route));
+        return new GameState(map, ticketDeck, cardState.withMoreDiscardedCards(SortedBag.of(Card.BOMB)), currentPlayerId(), newStates, lastPlayer());
     }
 }
\ No newline at end of file
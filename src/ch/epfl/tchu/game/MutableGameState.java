@@ -0,0 +1,676 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * classe représentant un état (modifiable) du jeu, destiné aux moteurs de recherche qui explorent un grand
+ * nombre de coups hypothétiques : chaque transition de GameState y est appliquée sur place, dans des tableaux,
+ * sans créer d'objet, et peut être annulée par undo, les transitions s'annulant dans l'ordre inverse de
+ * celui dans lequel elles ont été appliquées.
+ * Un état se construit à partir d'un GameState et s'y convertit ; les mêmes transitions, appliquées
+ * aux deux, donnent des états égaux (y compris le mélange de la défausse, pour un même générateur aléatoire).
+ * Les routes doivent être celles de la carte de l'état (GameState.map).
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class MutableGameState {
+
+    private static final int NONE = -1;
+
+    // codes des transitions dans l'historique, empilés après leurs paramètres
+    private static final int DRAW_TICKETS = 0;
+    private static final int DRAW_FACE_UP_CARD = 1;
+    private static final int DRAW_BLIND_CARD = 2;
+    private static final int REMOVE_TOP_CARD = 3;
+    private static final int RECREATE_DECK = 4;
+    private static final int KEEP_DECK = 5;
+    private static final int CLAIM_ROUTE = 6;
+    private static final int DESTROY_ROUTE = 7;
+    private static final int NEXT_TURN = 8;
+
+    // pioche de tickets : les tickets d'index ticketTop et suivants
+    private final Ticket[] ticketDeck;
+    private int ticketTop;
+
+    // pioche de cartes : les cartes d'index deckTop (sommet) a deckEnd (exclu) ; une pioche recréée
+    // à partir de la défausse est écrite à la suite, de sorte que les cartes tirées restent en place
+    private Card[] deck;
+    private int deckTop;
+    private int deckEnd;
+    private final Card[] faceUpCards = new Card[Constants.FACE_UP_CARDS_COUNT];
+    private final int[] discards = new int[Card.COUNT];
+    private int discardsSize;
+
+    private final Ticket[][] tickets = new Ticket[PlayerId.COUNT][];
+    private final int[] ticketCounts = new int[PlayerId.COUNT];
+    private final int[][] cards = new int[PlayerId.COUNT][Card.COUNT];
+    private final int[] cardCounts = new int[PlayerId.COUNT];
+    private final TchuMap map;
+    // routes de chaque joueur, par index dans map.routes(), dans l'ordre de PlayerState.routes()
+    private final int[][] routes;
+    private final int[] routeCounts = new int[PlayerId.COUNT];
+    private final int[] routeOwners;
+    private final int[] carCounts = new int[PlayerId.COUNT];
+    private final int[] claimPoints = new int[PlayerId.COUNT];
+
+    private int currentPlayer;
+    private int lastPlayer;
+
+    private int[] history = new int[256];
+    private int historySize;
+    private int transitionCount;
+
+    private MutableGameState(TchuMap map, int ticketDeckSize, int deckCapacity) {
+        this.map = map;
+        ticketDeck = new Ticket[ticketDeckSize];
+        deck = new Card[deckCapacity];
+        routes = new int[PlayerId.COUNT][map.routes().size()];
+        routeOwners = new int[map.routes().size()];
+    }
+
+    /**
+     * @param state état (immuable) du jeu,
+     * @return un état modifiable égal à l'état donné, d'historique vide.
+     * @throws IllegalArgumentException si l'un des joueurs possède une route n'appartenant pas à la carte de l'état.
+     */
+    public static MutableGameState of(GameState state) {
+        Deck<Ticket> ticketDeck = state.ticketDeck();
+        CardState cardState = state.completeCardState();
+        Deck<Card> deck = cardState.deck();
+        int ticketCount = ticketDeck.size();
+        for (PlayerId id : PlayerId.ALL) {
+            ticketCount += state.playerState(id).ticketCount();
+        }
+
+        MutableGameState s = new MutableGameState(state.map(), ticketDeck.size(),
+                Math.max(deck.size() + cardState.discardsSize(), Constants.TOTAL_CARDS_COUNT));
+        for (int i = 0; i < ticketDeck.size(); ++i) {
+            s.ticketDeck[i] = ticketDeck.get(i);
+        }
+        for (int i = 0; i < deck.size(); ++i) {
+            s.deck[i] = deck.get(i);
+        }
+        s.deckEnd = deck.size();
+        for (int slot = 0; slot < Constants.FACE_UP_CARDS_COUNT; ++slot) {
+            s.faceUpCards[slot] = cardState.faceUpCard(slot);
+        }
+        for (Card c : Card.ALL) {
+            s.discards[c.ordinal()] = cardState.discards().countOf(c);
+        }
+        s.discardsSize = cardState.discardsSize();
+
+        Arrays.fill(s.routeOwners, NONE);
+        for (PlayerId id : PlayerId.ALL) {
+            int p = id.ordinal();
+            PlayerState playerState = state.playerState(id);
+            s.tickets[p] = new Ticket[ticketCount];
+            for (Ticket t : playerState.tickets()) {
+                s.tickets[p][s.ticketCounts[p]++] = t;
+            }
+            for (Card c : Card.ALL) {
+                s.cards[p][c.ordinal()] = playerState.cards().countOf(c);
+            }
+            s.cardCounts[p] = playerState.cardCount();
+            for (Route r : playerState.routes()) {
+                int index = s.map.indexOf(r);
+                Preconditions.checkArgument(index != NONE);
+                s.routes[p][s.routeCounts[p]++] = index;
+                s.routeOwners[index] = p;
+            }
+            s.carCounts[p] = playerState.carCount();
+            s.claimPoints[p] = playerState.claimPoints();
+        }
+        s.currentPlayer = state.currentPlayerId().ordinal();
+        s.lastPlayer = state.lastPlayer() == null ? NONE : state.lastPlayer().ordinal();
+        return s;
+    }
+
+    /**
+     * @return l'état (immuable) du jeu égal au récepteur.
+     */
+    public GameState toGameState() {
+        List<PlayerState> playerStates = new ArrayList<>(PlayerId.COUNT);
+        for (int p = 0; p < PlayerId.COUNT; ++p) {
+            CardBag.Builder playerCards = new CardBag.Builder();
+            for (Card c : Card.ALL) {
+                playerCards.add(cards[p][c.ordinal()], c);
+            }
+            List<Route> playerRoutes = new ArrayList<>(routeCounts[p]);
+            for (int i = 0; i < routeCounts[p]; ++i) {
+                playerRoutes.add(map.routes().get(routes[p][i]));
+            }
+            playerStates.add(new PlayerState(SortedBag.of(Arrays.asList(tickets[p]).subList(0, ticketCounts[p])),
+                    playerCards.build(), playerRoutes));
+        }
+
+        CardBag.Builder discardCards = new CardBag.Builder();
+        for (Card c : Card.ALL) {
+            discardCards.add(discards[c.ordinal()], c);
+        }
+        CardState cardState = CardState.of(Arrays.asList(faceUpCards),
+                Deck.of(Arrays.asList(deck).subList(deckTop, deckEnd)), discardCards.build());
+
+        return GameState.of(map, Deck.of(Arrays.asList(ticketDeck).subList(ticketTop, ticketDeck.length)), cardState,
+                PlayerId.ALL.get(currentPlayer), PlayerPair.of(playerStates.get(0), playerStates.get(1)),
+                lastPlayer == NONE ? null : PlayerId.ALL.get(lastPlayer));
+    }
+
+    /**
+     * @return l'identité du joueur courant.
+     */
+    public PlayerId currentPlayerId() {
+        return PlayerId.ALL.get(currentPlayer);
+    }
+
+    /**
+     * @return l'identité du dernier joueur, ou null si elle n'est pas encore connue.
+     */
+    public PlayerId lastPlayer() {
+        return lastPlayer == NONE ? null : PlayerId.ALL.get(lastPlayer);
+    }
+
+    /**
+     * @return le nombre de tickets de la pioche.
+     */
+    public int ticketsCount() {
+        return ticketDeck.length - ticketTop;
+    }
+
+    /**
+     * @return vrai ssi la pioche de tickets n'est pas vide.
+     */
+    public boolean canDrawTickets() {
+        return ticketTop < ticketDeck.length;
+    }
+
+    /**
+     * @param index position d'un ticket de la pioche, 0 étant son sommet,
+     * @return le ticket à la position donnée.
+     * @throws IndexOutOfBoundsException si la position n'est pas comprise entre 0 et la taille de la pioche (exclue).
+     */
+    public Ticket ticket(int index) {
+        Objects.checkIndex(index, ticketsCount());
+        return ticketDeck[ticketTop + index];
+    }
+
+    /**
+     * @return la taille de la pioche de cartes.
+     */
+    public int deckSize() {
+        return deckEnd - deckTop;
+    }
+
+    /**
+     * @return la taille de la défausse.
+     */
+    public int discardsSize() {
+        return discardsSize;
+    }
+
+    /**
+     * @return vrai ssi il est possible de tirer des cartes.
+     */
+    public boolean canDrawCards() {
+        return deckSize() + discardsSize >= Constants.FACE_UP_CARDS_COUNT;
+    }
+
+    /**
+     * @return la carte au sommet de la pioche.
+     * @throws IllegalArgumentException si la pioche est vide.
+     */
+    public Card topCard() {
+        Preconditions.checkArgument(deckTop < deckEnd);
+        return deck[deckTop];
+    }
+
+    /**
+     * @param slot emplacement d'une carte face visible,
+     * @return la carte face visible à l'emplacement donné.
+     * @throws IndexOutOfBoundsException si l'emplacement n'est pas compris entre 0 et 5 (exclu).
+     */
+    public Card faceUpCard(int slot) {
+        return faceUpCards[Objects.checkIndex(slot, Constants.FACE_UP_CARDS_COUNT)];
+    }
+
+    /**
+     * @param playerId identité d'un joueur,
+     * @return le nombre de tickets du joueur donné.
+     */
+    public int ticketCount(PlayerId playerId) {
+        return ticketCounts[playerId.ordinal()];
+    }
+
+    /**
+     * @param playerId identité d'un joueur,
+     * @param index    position d'un ticket du joueur,
+     * @return le ticket du joueur donné à la position donnée.
+     * @throws IndexOutOfBoundsException si la position n'est pas comprise entre 0 et le nombre de tickets du
+     *                                   joueur (exclu).
+     */
+    public Ticket ticket(PlayerId playerId, int index) {
+        Objects.checkIndex(index, ticketCount(playerId));
+        return tickets[playerId.ordinal()][index];
+    }
+
+    /**
+     * @param playerId identité d'un joueur,
+     * @return le nombre de cartes du joueur donné.
+     */
+    public int cardCount(PlayerId playerId) {
+        return cardCounts[playerId.ordinal()];
+    }
+
+    /**
+     * @param playerId identité d'un joueur,
+     * @param card     une carte,
+     * @return le nombre d'exemplaires de la carte donnée que possède le joueur donné.
+     */
+    public int cardCount(PlayerId playerId, Card card) {
+        return cards[playerId.ordinal()][card.ordinal()];
+    }
+
+    /**
+     * @param playerId identité d'un joueur,
+     * @return le nombre de wagons du joueur donné.
+     */
+    public int carCount(PlayerId playerId) {
+        return carCounts[playerId.ordinal()];
+    }
+
+    /**
+     * @param playerId identité d'un joueur,
+     * @return les points de construction du joueur donné.
+     */
+    public int claimPoints(PlayerId playerId) {
+        return claimPoints[playerId.ordinal()];
+    }
+
+    /**
+     * @param route une route de la carte,
+     * @return l'identité du joueur possédant la route donnée, ou null si elle est libre.
+     * @throws IllegalArgumentException si la route n'appartient pas à la carte.
+     */
+    public PlayerId routeOwner(Route route) {
+        int owner = routeOwners[routeIndex(route)];
+        return owner == NONE ? null : PlayerId.ALL.get(owner);
+    }
+
+    /**
+     * @param route une route de la carte,
+     * @return vrai ssi le joueur courant a assez de wagons et de cartes pour s'emparer de la route donnée
+     * (que la route soit libre ou non).
+     */
+    public boolean canClaimRoute(Route route) {
+        if (carCounts[currentPlayer] < route.length()) {
+            return false;
+        }
+        List<CardBag> options = route.possibleClaimCardBags();
+        for (int i = 0; i < options.size(); ++i) {
+            if (containsCards(cards[currentPlayer], options.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return vrai ssi le dernier tour commence,
+     * cette méthode doit être appelée uniquement à la fin du tour d'un joueur.
+     */
+    public boolean lastTurnBegins() {
+        return carCounts[currentPlayer] <= 2;
+    }
+
+    /**
+     * le joueur courant tire les drawnCount tickets du sommet de la pioche et garde ceux d'entre eux
+     * désignés par keptTickets, comme GameState.withChosenAdditionalTickets.
+     *
+     * @param drawnCount  nombre de tickets tirés,
+     * @param keptTickets ensemble des positions (à partir du sommet de la pioche) des tickets gardés,
+     *                    le bit i désignant le ticket à la position i.
+     * @throws IllegalArgumentException si drawnCount n'est pas compris entre 0 et la taille de la pioche,
+     *                                  ou si un ticket gardé n'a pas été tiré.
+     */
+    public void drawTickets(int drawnCount, int keptTickets) {
+        Preconditions.checkArgument(0 <= drawnCount && drawnCount <= ticketsCount()
+                && drawnCount < Integer.SIZE && keptTickets >>> drawnCount == 0);
+        int p = currentPlayer;
+        for (int i = 0; i < drawnCount; ++i) {
+            if ((keptTickets & 1 << i) != 0) {
+                tickets[p][ticketCounts[p]++] = ticketDeck[ticketTop + i];
+            }
+        }
+        ticketTop += drawnCount;
+        record(drawnCount, Integer.bitCount(keptTickets), DRAW_TICKETS);
+    }
+
+    /**
+     * le joueur courant prend la carte face visible à l'emplacement donné, remplacée par celle au sommet
+     * de la pioche, comme GameState.withDrawnFaceUpCard.
+     *
+     * @param slot emplacement de la carte face visible.
+     * @throws IndexOutOfBoundsException si l'emplacement n'est pas compris entre 0 et 5 (exclu).
+     * @throws IllegalArgumentException  si la pioche est vide.
+     */
+    public void drawFaceUpCard(int slot) {
+        Card card = faceUpCard(slot);
+        faceUpCards[slot] = topCard();
+        ++deckTop;
+        addCard(currentPlayer, card);
+        record(slot, card.ordinal(), DRAW_FACE_UP_CARD);
+    }
+
+    /**
+     * le joueur courant prend la carte au sommet de la pioche, comme GameState.withBlindlyDrawnCard.
+     *
+     * @throws IllegalArgumentException si la pioche est vide.
+     */
+    public void drawBlindCard() {
+        Card card = topCard();
+        ++deckTop;
+        addCard(currentPlayer, card);
+        record(DRAW_BLIND_CARD);
+    }
+
+    /**
+     * retire la carte au sommet de la pioche, comme GameState.withoutTopCard.
+     *
+     * @throws IllegalArgumentException si la pioche est vide.
+     */
+    public void removeTopCard() {
+        topCard();
+        ++deckTop;
+        record(REMOVE_TOP_CARD);
+    }
+
+    /**
+     * recrée la pioche à partir de la défausse si elle est vide, en la mélangeant comme
+     * GameState.withCardsDeckRecreatedIfNeeded ; dans tous les cas, l'appel compte pour une transition.
+     *
+     * @param rng générateur aléatoire.
+     */
+    public void recreateCardsDeckIfNeeded(Random rng) {
+        if (deckTop < deckEnd) {
+            record(KEEP_DECK);
+            return;
+        }
+        if (deck.length < deckEnd + discardsSize) {
+            deck = Arrays.copyOf(deck, Math.max(2 * deck.length, deckEnd + discardsSize));
+        }
+        //la défausse est écrite triée puis mélangée comme Collections.shuffle, qui est utilisé par Deck.of
+        int end = deckEnd;
+        for (int i = 0; i < Card.COUNT; ++i) {
+            for (int n = discards[i]; n > 0; --n) {
+                deck[end++] = Card.ALL.get(i);
+            }
+        }
+        for (int i = discardsSize; i > 1; --i) {
+            int j = deckEnd + rng.nextInt(i);
+            Card card = deck[deckEnd + i - 1];
+            deck[deckEnd + i - 1] = deck[j];
+            deck[j] = card;
+        }
+        ensureHistoryCapacity(Card.COUNT + 1);
+        for (int i = 0; i < Card.COUNT; ++i) {
+            history[historySize++] = discards[i];
+        }
+        history[historySize++] = RECREATE_DECK;
+        ++transitionCount;
+        deckEnd = end;
+        Arrays.fill(discards, 0);
+        discardsSize = 0;
+    }
+
+    /**
+     * le joueur courant s'empare de la route donnée au moyen des cartes données, qui sont défaussées,
+     * comme GameState.withClaimedRoute.
+     *
+     * @param route route libre de la carte,
+     * @param claimCards cartes utilisées.
+     * @throws IllegalArgumentException si la route n'appartient pas à la carte ou si elle n'est pas libre.
+     */
+    public void claimRoute(Route route, CardBag claimCards) {
+        int index = routeIndex(route);
+        Preconditions.checkArgument(routeOwners[index] == NONE);
+        int p = currentPlayer;
+        ensureHistoryCapacity(2 * Card.COUNT + 2);
+        for (int i = 0; i < Card.COUNT; ++i) {
+            int count = claimCards.countOf(Card.ALL.get(i));
+            //comme CardBag.difference, la main ne peut perdre que les cartes qu'elle contient
+            int removed = Math.min(count, cards[p][i]);
+            cards[p][i] -= removed;
+            cardCounts[p] -= removed;
+            discards[i] += count;
+            history[historySize++] = count;
+            history[historySize++] = removed;
+        }
+        discardsSize += claimCards.size();
+        routes[p][routeCounts[p]++] = index;
+        routeOwners[index] = p;
+        carCounts[p] -= route.length();
+        claimPoints[p] += route.claimPoints();
+        history[historySize++] = index;
+        history[historySize++] = CLAIM_ROUTE;
+        ++transitionCount;
+    }
+
+    /**
+     * le joueur courant défausse une carte bombe pour détruire la route donnée de son adversaire,
+     * comme GameState.withDestructedRoute.
+     *
+     * @param route route de la carte.
+     * @throws IllegalArgumentException si la route n'appartient pas à la carte.
+     */
+    public void destroyRoute(Route route) {
+        int index = routeIndex(route);
+        int p = currentPlayer;
+        int opponent = 1 - p;
+        int bomb = Card.BOMB.ordinal();
+        int removedBomb = cards[p][bomb] > 0 ? 1 : 0;
+        cards[p][bomb] -= removedBomb;
+        cardCounts[p] -= removedBomb;
+        discards[bomb] += 1;
+        discardsSize += 1;
+
+        int position = NONE;
+        if (routeOwners[index] == opponent) {
+            position = 0;
+            while (routes[opponent][position] != index) {
+                ++position;
+            }
+            System.arraycopy(routes[opponent], position + 1, routes[opponent], position,
+                    routeCounts[opponent] - position - 1);
+            --routeCounts[opponent];
+            routeOwners[index] = NONE;
+            carCounts[opponent] += route.length();
+            claimPoints[opponent] -= route.claimPoints();
+        }
+        record(removedBomb, position, index, DESTROY_ROUTE);
+    }
+
+    /**
+     * termine le tour du joueur courant, comme GameState.forNextTurn.
+     */
+    public void nextTurn() {
+        int previousLastPlayer = lastPlayer;
+        if (lastTurnBegins()) {
+            lastPlayer = currentPlayer;
+        }
+        currentPlayer = 1 - currentPlayer;
+        record(previousLastPlayer, NEXT_TURN);
+    }
+
+    /**
+     * @return le nombre de transitions pouvant être annulées, qui peut servir de marque à undo(int).
+     */
+    public int transitionCount() {
+        return transitionCount;
+    }
+
+    /**
+     * annule la dernière transition appliquée.
+     *
+     * @throws IllegalArgumentException s'il n'y a aucune transition à annuler.
+     */
+    public void undo() {
+        Preconditions.checkArgument(transitionCount > 0);
+        --transitionCount;
+        int p = currentPlayer;
+        switch (history[--historySize]) {
+            case DRAW_TICKETS:
+                ticketCounts[p] -= history[--historySize];
+                ticketTop -= history[--historySize];
+                break;
+            case DRAW_FACE_UP_CARD: {
+                Card card = Card.ALL.get(history[--historySize]);
+                int slot = history[--historySize];
+                removeCard(p, card);
+                faceUpCards[slot] = card;
+                --deckTop;
+                break;
+            }
+            case DRAW_BLIND_CARD:
+                removeCard(p, deck[--deckTop]);
+                break;
+            case REMOVE_TOP_CARD:
+                --deckTop;
+                break;
+            case RECREATE_DECK:
+                for (int i = Card.COUNT - 1; i >= 0; --i) {
+                    discards[i] = history[--historySize];
+                    discardsSize += discards[i];
+                }
+                deckEnd = deckTop;
+                break;
+            case KEEP_DECK:
+                break;
+            case CLAIM_ROUTE: {
+                int index = history[--historySize];
+                Route route = map.routes().get(index);
+                --routeCounts[p];
+                routeOwners[index] = NONE;
+                carCounts[p] += route.length();
+                claimPoints[p] -= route.claimPoints();
+                for (int i = Card.COUNT - 1; i >= 0; --i) {
+                    int removed = history[--historySize];
+                    int count = history[--historySize];
+                    cards[p][i] += removed;
+                    cardCounts[p] += removed;
+                    discards[i] -= count;
+                    discardsSize -= count;
+                }
+                break;
+            }
+            case DESTROY_ROUTE: {
+                int index = history[--historySize];
+                int position = history[--historySize];
+                int removedBomb = history[--historySize];
+                int opponent = 1 - p;
+                if (position != NONE) {
+                    Route route = map.routes().get(index);
+                    System.arraycopy(routes[opponent], position, routes[opponent], position + 1,
+                            routeCounts[opponent] - position);
+                    routes[opponent][position] = index;
+                    ++routeCounts[opponent];
+                    routeOwners[index] = opponent;
+                    carCounts[opponent] -= route.length();
+                    claimPoints[opponent] += route.claimPoints();
+                }
+                int bomb = Card.BOMB.ordinal();
+                discards[bomb] -= 1;
+                discardsSize -= 1;
+                cards[p][bomb] += removedBomb;
+                cardCounts[p] += removedBomb;
+                break;
+            }
+            case NEXT_TURN:
+                lastPlayer = history[--historySize];
+                currentPlayer = 1 - currentPlayer;
+                break;
+            default:
+                throw new Error(); // ne devrait jamais se produire
+        }
+    }
+
+    /**
+     * annule les dernières transitions appliquées, jusqu'à ce qu'il n'en reste que le nombre donné.
+     *
+     * @param transitionCount nombre de transitions à conserver.
+     * @throws IllegalArgumentException si le nombre donné est négatif ou dépasse le nombre de transitions.
+     */
+    public void undo(int transitionCount) {
+        Preconditions.checkArgument(0 <= transitionCount && transitionCount <= this.transitionCount);
+        while (this.transitionCount > transitionCount) {
+            undo();
+        }
+    }
+
+    private int routeIndex(Route route) {
+        int index = map.indexOf(route);
+        Preconditions.checkArgument(index != NONE);
+        return index;
+    }
+
+    private static boolean containsCards(int[] counts, CardBag bag) {
+        for (int i = 0; i < Card.COUNT; ++i) {
+            if (counts[i] < bag.countOf(Card.ALL.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addCard(int player, Card card) {
+        ++cards[player][card.ordinal()];
+        ++cardCounts[player];
+    }
+
+    private void removeCard(int player, Card card) {
+        --cards[player][card.ordinal()];
+        --cardCounts[player];
+    }
+
+    private void ensureHistoryCapacity(int size) {
+        if (history.length < historySize + size) {
+            history = Arrays.copyOf(history, Math.max(2 * history.length, historySize + size));
+        }
+    }
+
+    private void record(int transition) {
+        ensureHistoryCapacity(1);
+        history[historySize++] = transition;
+        ++transitionCount;
+    }
+
+    private void record(int a, int transition) {
+        ensureHistoryCapacity(2);
+        history[historySize++] = a;
+        history[historySize++] = transition;
+        ++transitionCount;
+    }
+
+    private void record(int a, int b, int transition) {
+        ensureHistoryCapacity(3);
+        history[historySize++] = a;
+        history[historySize++] = b;
+        history[historySize++] = transition;
+        ++transitionCount;
+    }
+
+    private void record(int a, int b, int c, int transition) {
+        ensureHistoryCapacity(4);
+        history[historySize++] = a;
+        history[historySize++] = b;
+        history[historySize++] = c;
+        history[historySize++] = transition;
+        ++transitionCount;
+    }
+}
@@ -31,11 +31,12 @@ public interface Player {
      *
      * @param ownId l'identité du joueur,
      * @param playerNames ensemble des identités de tout les joueurs,
+     * @param map la carte de la partie, dont sont tirées toutes les routes et tous les billets,
      * cette méthode est appelée au début de la partie pour communiquer au joueur sa propre identité ownId,
-     * ainsi que les noms des différents joueurs,
+     * ainsi que les noms des différents joueurs et la carte sur laquelle se joue la partie,
      *
      */
-    void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames);
+    void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames, TchuMap map);
 
     /**
      *
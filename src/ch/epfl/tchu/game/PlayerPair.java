@@ -0,0 +1,63 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * classe (immuable) associant une valeur a chacun des deux joueurs,
+ * utilisee a la place d'une Map pour les etats des joueurs afin que les
+ * transitions d'etat partagent tout ce qu'elles ne modifient pas.
+ *
+ * @param <T> type des valeurs associees aux joueurs
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+final class PlayerPair<T> {
+
+    private final T player1;
+    private final T player2;
+
+    private PlayerPair(T player1, T player2) {
+        this.player1 = Objects.requireNonNull(player1);
+        this.player2 = Objects.requireNonNull(player2);
+    }
+
+    /**
+     * @param player1 valeur du premier joueur
+     * @param player2 valeur du second joueur
+     * @return la paire des deux valeurs donnees
+     */
+    static <T> PlayerPair<T> of(T player1, T player2) {
+        return new PlayerPair<>(player1, player2);
+    }
+
+    /**
+     * @param map table associant une valeur a chacun des joueurs
+     * @return la paire des valeurs de la table donnee
+     * @throws IllegalArgumentException si la table ne contient pas exactement une valeur par joueur
+     */
+    static <T> PlayerPair<T> of(Map<PlayerId, ? extends T> map) {
+        Preconditions.checkArgument(map.size() == PlayerId.COUNT);
+        return new PlayerPair<>(map.get(PlayerId.PLAYER_1), map.get(PlayerId.PLAYER_2));
+    }
+
+    /**
+     * @param playerId identite du joueur
+     * @return la valeur associee au joueur donne
+     */
+    T get(PlayerId playerId) {
+        return playerId == PlayerId.PLAYER_1 ? player1 : player2;
+    }
+
+    /**
+     * @param playerId identite du joueur
+     * @param value    nouvelle valeur du joueur
+     * @return une paire identique a celle-ci, si ce n'est que la valeur du joueur donne est remplacee
+     */
+    PlayerPair<T> with(PlayerId playerId, T value) {
+        return playerId == PlayerId.PLAYER_1 ? new PlayerPair<>(value, player2) : new PlayerPair<>(player1, value);
+    }
+}
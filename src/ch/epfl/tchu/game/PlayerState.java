@@ -15,8 +15,14 @@ import java.util.stream.Collectors;
  */
 public final class PlayerState extends PublicPlayerState {
 
+    private static final int UNKNOWN_POINTS = Integer.MIN_VALUE;
+
     private final SortedBag<Ticket> tickets;
-    private final SortedBag<Card> cards;
+    private final CardBag cards;
+    // composantes connexes du reseau et points des billets, calcules a la premiere demande s'ils ne sont pas
+    // connus a la construction, puis tenus a jour d'un etat au suivant
+    private StationConnectivity connectivity;
+    private int ticketPoints;
 
     /**
      * construit l'etat d'un joueur possedant les billets, cartes et routes donnes.
@@ -25,9 +31,44 @@ public final class PlayerState extends PublicPlayerState {
      * @param routes: routes du joueur.
      */
     public PlayerState(SortedBag<Ticket> tickets, SortedBag<Card> cards, List<Route> routes) {
-        super(tickets.size(), cards.size(), routes);
+        this(tickets, CardBag.of(cards), routes);
+    }
+
+    /**
+     * construit l'etat d'un joueur possedant les billets, cartes et routes donnes.
+     * @param tickets: tickets du joueur.
+     * @param cards: cartes du joueur.
+     * @param routes: routes du joueur.
+     */
+    public PlayerState(SortedBag<Ticket> tickets, CardBag cards, List<Route> routes) {
+        this(tickets, cards, routes, null, null, UNKNOWN_POINTS);
+    }
+
+    /**
+     * construit l'etat d'un joueur dont le plus long chemin, la connectivite et les points des billets
+     * sont peut-etre deja connus.
+     * @param tickets: tickets du joueur.
+     * @param cards: cartes du joueur.
+     * @param routes: routes du joueur.
+     * @param longestTrail: plus long chemin constitue des routes donnees, ou null s'il n'est pas connu.
+     * @param connectivity: composantes connexes des routes donnees, ou null si elles ne sont pas connues.
+     * @param ticketPoints: points des billets donnes, ou UNKNOWN_POINTS s'ils ne sont pas connus.
+     */
+    private PlayerState(SortedBag<Ticket> tickets, CardBag cards, List<Route> routes, Trail longestTrail,
+                        StationConnectivity connectivity, int ticketPoints) {
+        super(tickets.size(), cards.size(), routes, longestTrail);
         this.tickets = tickets;
         this.cards = cards;
+        this.connectivity = connectivity;
+        this.ticketPoints = ticketPoints;
+    }
+
+    /**
+     * @param cards: nouvelles cartes du joueur.
+     * @return un etat identique au recepteur, si ce n'est que le joueur possede les cartes donnees.
+     */
+    private PlayerState withCards(CardBag cards) {
+        return new PlayerState(tickets, cards, routes(), longestTrail(), connectivity, ticketPoints);
     }
 
     /**
@@ -55,14 +96,19 @@ public final class PlayerState extends PublicPlayerState {
      * @return un etat identique au recepteur, si ce n'est que le joueur possede en plus les billets donnes.
      */
     public PlayerState withAddedTickets(SortedBag<Ticket> newTickets) {
-        return new PlayerState(tickets().union(newTickets), cards(), routes());
+        SortedBag<Ticket> allTickets = tickets().union(newTickets);
+        //seuls les nouveaux billets sont a evaluer
+        return ticketPoints == UNKNOWN_POINTS ?
+                new PlayerState(allTickets, cards(), routes(), longestTrail(), connectivity, UNKNOWN_POINTS) :
+                new PlayerState(allTickets, cards(), routes(), longestTrail(), connectivity,
+                        ticketPoints + ticketPoints(newTickets, connectivity));
     }
 
     /**
      *
      * @return les cartes du joueur.
      */
-    public SortedBag<Card> cards() {
+    public CardBag cards() {
         return cards;
     }
 
@@ -72,7 +118,7 @@ public final class PlayerState extends PublicPlayerState {
      * @return un etat identique au recepteur, si ce n'est que le joueur possede en plus la carte donnee
      */
     public PlayerState withAddedCard(Card card) {
-        return withAddedCards(SortedBag.of(card));
+        return withCards(cards.union(CardBag.of(card)));
     }
 
     /**
@@ -81,7 +127,7 @@ public final class PlayerState extends PublicPlayerState {
      * @return un etat identique au recepteur, si ce n'est que le joueur possede en plus les cartes donnees.
      */
     public PlayerState withAddedCards(SortedBag<Card> additionalCards) {
-        return new PlayerState(tickets(), cards.union(additionalCards), routes());
+        return withCards(cards.union(CardBag.of(additionalCards)));
     }
 
     /**
@@ -93,7 +139,12 @@ public final class PlayerState extends PublicPlayerState {
         if (carCount() < route.length()) {
             return false;
         }
-        return carCount() >= route.length() && !possibleClaimCards(route).isEmpty();
+        for (CardBag claimCards : route.possibleClaimCardBags()) {
+            if (cards.contains(claimCards)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -104,10 +155,15 @@ public final class PlayerState extends PublicPlayerState {
     public List<SortedBag<Card>> possibleClaimCards(Route route) {
         Preconditions.checkArgument(carCount() >= route.length());
 
-        return route.possibleClaimCards().
-                stream().
-                filter(cards::contains).
-                collect(Collectors.toList());
+        List<SortedBag<Card>> claimCards = route.possibleClaimCards();
+        List<CardBag> claimCardBags = route.possibleClaimCardBags();
+        List<SortedBag<Card>> possibleClaimCards = new ArrayList<>();
+        for (int i = 0; i < claimCardBags.size(); ++i) {
+            if (cards.contains(claimCardBags.get(i))) {
+                possibleClaimCards.add(claimCards.get(i));
+            }
+        }
+        return possibleClaimCards;
     }
 
     /**
@@ -131,20 +187,19 @@ public final class PlayerState extends PublicPlayerState {
 
         Color color = initialCards.stream().filter(Card.CARS::contains).map(Card::color).findFirst().orElse(null);
 
-        SortedBag<Card> playableCards = SortedBag.of(cards().
-                difference(initialCards).
-                stream().
-                filter(c -> c.color() == color || c.equals(Card.LOCOMOTIVE)).
-                collect(Collectors.toList()));
+        CardBag remainingCards = cards().difference(CardBag.of(initialCards));
+        CardBag playableCards = color == null ?
+                CardBag.of(remainingCards.countOf(Card.LOCOMOTIVE), Card.LOCOMOTIVE) :
+                CardBag.of(remainingCards.countOf(Card.of(color)), Card.of(color),
+                        remainingCards.countOf(Card.LOCOMOTIVE), Card.LOCOMOTIVE);
 
         if (playableCards.size() < additionalCardsCount) {
             return List.of();
         }
 
-        Set<SortedBag<Card>> cardsSet = playableCards.subsetsOfSize(additionalCardsCount);
-
-        return cardsSet.stream().
+        return playableCards.subsetsOfSizeStream(additionalCardsCount).
                 sorted(Comparator.comparingInt(cs -> cs.countOf(Card.LOCOMOTIVE))).
+                map(CardBag::toSortedBag).
                 collect(Collectors.toList());
     }
 
@@ -157,7 +212,27 @@ public final class PlayerState extends PublicPlayerState {
     public PlayerState withClaimedRoute(Route route, SortedBag<Card> claimCards) {
         List<Route> newRoutes = new ArrayList<>(routes());
         newRoutes.add(route);
-        return new PlayerState(tickets(), cards().difference(claimCards),newRoutes);
+
+        //la nouvelle route reunit au plus deux composantes, les autres restant les memes
+        StationConnectivity oldConnectivity = connectivity;
+        StationConnectivity newConnectivity = oldConnectivity instanceof StationBitPartition
+                && route.station1().id() < StationBitPartition.MAX_STATION_COUNT
+                && route.station2().id() < StationBitPartition.MAX_STATION_COUNT ?
+                ((StationBitPartition) oldConnectivity).withConnected(route.station1(), route.station2()) :
+                connectivity(newRoutes);
+        //les points des billets ne changent que si deux composantes ont ete reunies
+        int newTicketPoints = oldConnectivity == null || ticketPoints == UNKNOWN_POINTS ? UNKNOWN_POINTS
+                : newConnectivity == oldConnectivity ? ticketPoints
+                : ticketPoints(tickets, newConnectivity);
+
+        //seule la composante connexe contenant la nouvelle route peut contenir un chemin plus long
+        Trail longestTrail = longestTrail();
+        Trail componentTrail = Trail.longest(connectedRoutes(newRoutes, route, newConnectivity));
+        if (componentTrail.length() > longestTrail.length()) {
+            longestTrail = componentTrail;
+        }
+        return new PlayerState(tickets(), cards().difference(CardBag.of(claimCards)), newRoutes, longestTrail,
+                newConnectivity, newTicketPoints);
     }
 
     /**
@@ -165,15 +240,10 @@ public final class PlayerState extends PublicPlayerState {
      * @return le nombre de point(eventuellement negatif)btenus par le joueur grace a ses billets.
      */
     public int ticketPoints() {
-
-        int stationCount = routes().stream().mapToInt(r -> Math.max(r.station1().id(), r.station2().id())).max().orElse(0);
-
-        StationPartition.Builder stationPartitionB = new StationPartition.Builder(stationCount+1);
-        routes().forEach(r -> stationPartitionB.connect(r.station1(), r.station2()));
-
-        StationPartition stationPartition = stationPartitionB.build();
-
-        return tickets().stream().mapToInt(t -> t.points(stationPartition)).sum();
+        if (ticketPoints == UNKNOWN_POINTS) {
+            ticketPoints = ticketPoints(tickets, connectivity());
+        }
+        return ticketPoints;
     }
 
     /**
@@ -189,8 +259,72 @@ public final class PlayerState extends PublicPlayerState {
 
     public PlayerState withDestructedRoute(Route route) {
         List<Route> withoutDestroyedRoute = new ArrayList<>(routes());
-        withoutDestroyedRoute.remove(route);
-        return new PlayerState(tickets(), cards(), withoutDestroyedRoute);
+        boolean destroyed = withoutDestroyedRoute.remove(route);
+
+        //le plus long chemin ne change pas s'il n'emprunte pas la route detruite
+        Trail longestTrail = longestTrail().routes().contains(route) ?
+                Trail.longest(withoutDestroyedRoute) :
+                longestTrail();
+        //une composante peut se scinder en deux : la connectivite est recalculee a la premiere demande
+        return destroyed ?
+                new PlayerState(tickets(), cards(), withoutDestroyedRoute, longestTrail, null, UNKNOWN_POINTS) :
+                new PlayerState(tickets(), cards(), withoutDestroyedRoute, longestTrail, connectivity, ticketPoints);
+    }
+
+    /**
+     * @return les composantes connexes du reseau du joueur
+     */
+    StationConnectivity connectivity() {
+        if (connectivity == null) {
+            connectivity = connectivity(routes());
+        }
+        return connectivity;
+    }
+
+    /**
+     * @param tickets      billets
+     * @param connectivity composantes connexes d'un reseau
+     * @return la somme des points des billets donnes pour le reseau donne
+     */
+    private static int ticketPoints(SortedBag<Ticket> tickets, StationConnectivity connectivity) {
+        int points = 0;
+        for (Ticket t : tickets) {
+            points += t.points(connectivity);
+        }
+        return points;
+    }
+
+    /**
+     * @param routes       routes du reseau
+     * @param route        route du reseau
+     * @param connectivity composantes connexes du reseau
+     * @return les routes du reseau appartenant a la meme composante connexe que la route donnee.
+     */
+    private static List<Route> connectedRoutes(List<Route> routes, Route route, StationConnectivity connectivity) {
+        return routes.stream()
+                .filter(r -> connectivity.connected(r.station1(), route.station1()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param routes routes du reseau
+     * @return la partition des gares en composantes connexes du reseau, sous forme d'ensembles de bits
+     * si toutes les gares tiennent sur 64 bits (ce qui est le cas de ChMap)
+     */
+    private static StationConnectivity connectivity(List<Route> routes) {
+        int stationCount = 0;
+        for (Route r : routes) {
+            stationCount = Math.max(stationCount, Math.max(r.station1().id(), r.station2().id()) + 1);
+        }
+        if (stationCount <= StationBitPartition.MAX_STATION_COUNT) {
+            //toutes les gares codables sont prevues, pour que les routes suivantes puissent y etre ajoutees
+            StationBitPartition.Builder partition = new StationBitPartition.Builder(StationBitPartition.MAX_STATION_COUNT);
+            routes.forEach(r -> partition.connect(r.station1(), r.station2()));
+            return partition.build();
+        }
+        StationPartition.Builder partition = new StationPartition.Builder(stationCount);
+        routes.forEach(r -> partition.connect(r.station1(), r.station2()));
+        return partition.build();
     }
 
     public boolean canDestroyRoutes() {
@@ -198,7 +332,7 @@ public final class PlayerState extends PublicPlayerState {
     }
 
     public PlayerState withoutCard(Card card) {
-        return new PlayerState(tickets(), cards().difference(SortedBag.of(card)), routes());
+        return withCards(cards().difference(CardBag.of(card)));
     }
 
 }
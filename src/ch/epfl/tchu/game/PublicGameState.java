@@ -20,7 +20,7 @@ public class PublicGameState {
     private final PublicCardState cardState;
     private final PlayerId currentPlayerID;
     private final PlayerId lastPlayer;
-    private final Map<PlayerId, PublicPlayerState> playerState;
+    private final PlayerPair<? extends PublicPlayerState> playerState;
 
 
     /**
@@ -34,12 +34,20 @@ public class PublicGameState {
      */
     public PublicGameState(int ticketsCount, PublicCardState cardState, PlayerId currentPlayerId,
                            Map<PlayerId, PublicPlayerState> playerState, PlayerId lastPlayer) {
-        Preconditions.checkArgument(ticketsCount >= 0 && playerState.size() == PlayerId.COUNT);
+        this(ticketsCount, cardState, currentPlayerId, PlayerPair.of(playerState), lastPlayer);
+    }
+
+    /**
+     * construit un état publique du jeu partageant (sans la copier) la paire d'etats des joueurs donnee.
+     */
+    PublicGameState(int ticketsCount, PublicCardState cardState, PlayerId currentPlayerId,
+                    PlayerPair<? extends PublicPlayerState> playerState, PlayerId lastPlayer) {
+        Preconditions.checkArgument(ticketsCount >= 0);
         this.ticketDeckCount = ticketsCount;
         this.cardState = Objects.requireNonNull(cardState);
         this.currentPlayerID = Objects.requireNonNull(currentPlayerId);
         this.lastPlayer = lastPlayer;
-        this.playerState = Map.copyOf(playerState);
+        this.playerState = Objects.requireNonNull(playerState);
     }
 
     /**
@@ -97,7 +105,9 @@ public class PublicGameState {
      */
     public List<Route> claimedRoutes() {
         List<Route> routes = new ArrayList<>();
-        playerState.forEach((pId, pps) -> routes.addAll(pps.routes()));
+        for (PlayerId playerId : PlayerId.ALL) {
+            routes.addAll(playerState.get(playerId).routes());
+        }
         return routes;
     }
 
@@ -111,6 +121,15 @@ public class PublicGameState {
 
     //    #################################################### EXTENSIONS #################################################
 
+    /**
+     * @param playerId identite du joueur
+     * @return vrai ssi le joueur donne obtiendrait, en l'etat, le bonus du plus long chemin
+     * (les deux joueurs l'obtiennent en cas d'egalite).
+     */
+    public boolean holdsLongestTrailBonus(PlayerId playerId) {
+        return playerState(playerId).longestTrail().length() >= playerState(playerId.next()).longestTrail().length();
+    }
+
     public boolean routeIsDestroyableFor(PlayerId id, Route route) {
         return playerState.get(id.next()).routes().contains(route);
     }
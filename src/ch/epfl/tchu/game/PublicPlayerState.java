@@ -19,6 +19,8 @@ public class PublicPlayerState {
     private final List<Route> routes;
     private final int carCount;
     private final int claimPoints;
+    // plus long chemin du reseau, calcule a la premiere demande s'il n'est pas connu a la construction
+    private Trail longestTrail;
 
     /**
      * @param ticketCount nombre de billets que le joueur possède
@@ -28,6 +30,16 @@ public class PublicPlayerState {
      * ou si le nombre de wagons est inférieur à 0.
      */
     public PublicPlayerState(int ticketCount, int cardCount, List<Route> routes) {
+        this(ticketCount, cardCount, routes, null);
+    }
+
+    /**
+     * @param ticketCount  nombre de billets que le joueur possède
+     * @param cardCount    nombre de wagons du joueur
+     * @param routes       liste de routes que possède le joueur.
+     * @param longestTrail plus long chemin constitue des routes donnees, ou null s'il n'est pas connu
+     */
+    PublicPlayerState(int ticketCount, int cardCount, List<Route> routes, Trail longestTrail) {
         Preconditions.checkArgument(!(ticketCount < 0 || cardCount < 0));
         this.ticketCount = ticketCount;
         this.cardCount = cardCount;
@@ -40,6 +52,7 @@ public class PublicPlayerState {
         }
         this.carCount = carCount;
         this.claimPoints = points;
+        this.longestTrail = longestTrail;
     }
 
     /**
@@ -76,4 +89,15 @@ public class PublicPlayerState {
     public int claimPoints() {
         return claimPoints;
     }
+
+    /**
+     * @return le plus long chemin du reseau du joueur,
+     * tenu a jour a chaque route prise ou detruite, de sorte que cette methode est en temps constant.
+     */
+    public Trail longestTrail() {
+        if (longestTrail == null) {
+            longestTrail = Trail.longest(routes);
+        }
+        return longestTrail;
+    }
 }
\ No newline at end of file
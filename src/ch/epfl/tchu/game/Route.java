@@ -6,6 +6,7 @@ import ch.epfl.tchu.SortedBag;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * classe représentant les routes du jeu.
@@ -20,6 +21,9 @@ public final class Route {
     private final int length;
     private final Level level;
     private final Color color;
+    private final List<SortedBag<Card>> possibleClaimCards;
+    private final List<CardBag> possibleClaimCardBags;
+
     /**
      * Valide aux tests
      * Construit une nouvelle Route avec les attributs suivants
@@ -39,6 +43,10 @@ public final class Route {
         this.length = length;
         this.level = Objects.requireNonNull(level);
         this.color = color;
+        this.possibleClaimCards = computePossibleClaimCards();
+        this.possibleClaimCardBags = possibleClaimCards.stream()
+                .map(CardBag::of)
+                .collect(Collectors.toUnmodifiableList());
     }
 
     /**
@@ -109,6 +117,17 @@ public final class Route {
      * de la route en fonction de son type et de sa couleur (dans l'ordre croissant)
      */
     public List<SortedBag<Card>> possibleClaimCards() {
+        return possibleClaimCards;
+    }
+
+    /**
+     * @return les memes ensembles que possibleClaimCards(), dans le meme ordre, sous forme de CardBag
+     */
+    List<CardBag> possibleClaimCardBags() {
+        return possibleClaimCardBags;
+    }
+
+    private List<SortedBag<Card>> computePossibleClaimCards() {
         List<SortedBag<Card>> list = new ArrayList<>();
 
         List<Card> cardPossibilities = this.color == null ? List.copyOf(Card.CARS) : List.of(Card.of(this.color));
@@ -125,7 +144,7 @@ public final class Route {
                 list.add(SortedBag.of(i, Card.LOCOMOTIVE));
             }
         }
-        return list;
+        return List.copyOf(list);
     }
 
     /**
@@ -149,19 +168,6 @@ public final class Route {
         return Constants.ROUTE_CLAIM_POINTS.get(length);
     }
 
-    /**
-     *
-     * @return le voisin d'une route s'il existe, autrement soi-meme
-     */
-    public Route neighbor() {
-        return ChMap.routes()
-                .stream()
-                .filter(r -> stations1.equals(r.stations1)
-                        && stations2.equals(r.stations2)
-                        && !this.id().equals(r.id()))
-                .findFirst().orElse(this);
-    }
-
     public enum Level {
         OVERGROUND,
         UNDERGROUND
@@ -0,0 +1,394 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * classe représentant la table (immuable) des plus courtes distances, en nombre de wagons, entre toutes les
+ * paires de gares d'une carte, accompagnée pour chaque paire de la première route d'un plus court chemin.
+ * La table de la carte entière est calculée une seule fois par carte (tant qu'une autre carte n'est pas demandée) ;
+ * au cours d'une partie, des tables dérivées
+ * tiennent compte des routes bloquées (prises par l'adversaire) ou déjà possédées (qui ne coûtent plus rien) :
+ * seules les lignes (gares de départ) dont la route modifiée peut changer les distances y sont recalculées,
+ * les autres étant partagées avec la table d'origine.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class RouteDistances {
+
+    /**
+     * distance entre deux gares qu'aucun chemin ne relie.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // assez grand pour qu'aucun chemin ne l'atteigne, assez petit pour que la somme de deux ne deborde pas
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+    private static final int NONE = -1;
+
+    // table de la derniere carte demandee, la plupart des processus ne jouant que sur une seule carte
+    private static volatile RouteDistances lastInitial;
+
+    private final Graph graph;
+    // cout de chaque route : sa longueur, 0 si elle est possedee, INFINITY si elle est bloquee
+    private final int[] costs;
+    private final int[][] distances;
+    // pour chaque gare de depart, l'arbre de ses plus courts chemins : index de la premiere route du chemin
+    // menant a chaque gare, et de la derniere, ou NONE ; les lignes ne sont jamais modifiees une fois calculees
+    private final int[][] nextRoutes;
+    private final int[][] lastRoutes;
+
+    private RouteDistances(Graph graph, int[] costs, int[][] distances, int[][] nextRoutes, int[][] lastRoutes) {
+        this.graph = graph;
+        this.costs = costs;
+        this.distances = distances;
+        this.nextRoutes = nextRoutes;
+        this.lastRoutes = lastRoutes;
+    }
+
+    private static RouteDistances compute(Graph graph, int[] costs) {
+        int stationCount = graph.stationCount;
+        RouteDistances table = new RouteDistances(graph, costs, new int[stationCount][], new int[stationCount][],
+                new int[stationCount][]);
+        for (int s = 0; s < stationCount; ++s) {
+            table.computeRow(s);
+        }
+        return table;
+    }
+
+    /**
+     * @param map une carte,
+     * @return la table des distances de la carte donnée dont aucune route n'est prise.
+     */
+    public static RouteDistances initial(TchuMap map) {
+        RouteDistances initial = lastInitial;
+        if (initial == null || initial.graph.map != map) {
+            Graph graph = new Graph(map);
+            int[] costs = new int[graph.routes.size()];
+            for (int r = 0; r < costs.length; ++r) {
+                costs[r] = graph.routes.get(r).length();
+            }
+            initial = compute(graph, costs);
+            lastInitial = initial;
+        }
+        return initial;
+    }
+
+    /**
+     * @param map     une carte,
+     * @param owned   routes de la carte possédées, qui ne coûtent aucun wagon,
+     * @param blocked routes de la carte qu'aucun chemin ne peut emprunter,
+     * @return la table des distances de la carte dont les routes données sont possédées ou bloquées ; elle est
+     * calculée entièrement, ce qui est plus rapide que de dériver une table pour chacune d'un grand nombre de routes.
+     * @throws IllegalArgumentException si l'une des routes n'appartient pas à la carte.
+     */
+    public static RouteDistances of(TchuMap map, Collection<Route> owned, Collection<Route> blocked) {
+        RouteDistances initial = initial(map);
+        int[] costs = initial.costs.clone();
+        for (Route route : owned) {
+            costs[initial.routeIndex(route)] = 0;
+        }
+        for (Route route : blocked) {
+            costs[initial.routeIndex(route)] = INFINITY;
+        }
+        return compute(initial.graph, costs);
+    }
+
+    /**
+     * @param from gare de départ,
+     * @param to   gare d'arrivée,
+     * @return le plus petit nombre de wagons nécessaires pour relier les gares données,
+     * ou UNREACHABLE si aucun chemin ne les relie.
+     */
+    public int distance(Station from, Station to) {
+        int distance = distances[from.id()][to.id()];
+        return distance >= INFINITY ? UNREACHABLE : distance;
+    }
+
+    /**
+     * @param ticket un billet,
+     * @return le plus petit nombre de wagons nécessaires pour réaliser l'un des trajets du billet donné,
+     * ou UNREACHABLE si aucun ne peut l'être.
+     */
+    public int distance(Ticket ticket) {
+        int distance = UNREACHABLE;
+        List<Trip> trips = ticket.trips();
+        for (int i = 0; i < trips.size(); ++i) {
+            distance = Math.min(distance, distance(trips.get(i).from(), trips.get(i).to()));
+        }
+        return distance;
+    }
+
+    /**
+     * @param from gare de départ,
+     * @param to   gare d'arrivée,
+     * @return la première route d'un plus court chemin reliant les gares données,
+     * ou null si elles sont égales ou si aucun chemin ne les relie.
+     */
+    public Route nextRoute(Station from, Station to) {
+        int route = nextRoutes[from.id()][to.id()];
+        return route == NONE ? null : graph.routes.get(route);
+    }
+
+    /**
+     * @param from gare de départ,
+     * @param to   gare d'arrivée,
+     * @return les routes d'un plus court chemin reliant les gares données, de la gare de départ à celle d'arrivée,
+     * vide si elles sont égales ou si aucun chemin ne les relie.
+     */
+    public List<Route> path(Station from, Station to) {
+        //le chemin est remonte dans l'arbre de la gare de depart, qui ne peut pas contenir de cycle
+        //(contrairement a un chemin suivi d'arbre en arbre, a cause des routes ne coutant rien)
+        int[] last = lastRoutes[from.id()];
+        List<Route> path = new ArrayList<>();
+        int station = to.id();
+        while (last[station] != NONE) {
+            int route = last[station];
+            path.add(graph.routes.get(route));
+            station = graph.stations1[route] == station ? graph.stations2[route] : graph.stations1[route];
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * @param route une route de la carte,
+     * @return une table identique au récepteur, si ce n'est qu'aucun chemin ne peut plus emprunter la route donnée.
+     * @throws IllegalArgumentException si la route n'appartient pas à la carte.
+     */
+    public RouteDistances withBlockedRoute(Route route) {
+        return withCost(routeIndex(route), INFINITY);
+    }
+
+    /**
+     * @param route une route de la carte,
+     * @return une table identique au récepteur, si ce n'est que la route donnée ne coûte plus aucun wagon,
+     * comme une route déjà possédée.
+     * @throws IllegalArgumentException si la route n'appartient pas à la carte.
+     */
+    public RouteDistances withOwnedRoute(Route route) {
+        return withCost(routeIndex(route), 0);
+    }
+
+    private int routeIndex(Route route) {
+        int index = graph.map.indexOf(route);
+        Preconditions.checkArgument(index != NONE);
+        return index;
+    }
+
+    /**
+     * @param route index d'une route,
+     * @param cost  nouveau cout de la route,
+     * @return une table identique au recepteur, si ce n'est que la route donnee a le cout donne.
+     */
+    private RouteDistances withCost(int route, int cost) {
+        if (costs[route] == cost) {
+            return this;
+        }
+        int u = graph.stations1[route];
+        int v = graph.stations2[route];
+        int[] newCosts = costs.clone();
+        newCosts[route] = cost;
+        int oldCost = costs[bestRoute(costs, route)];
+        int newCost = newCosts[bestRoute(newCosts, route)];
+
+        RouteDistances table = new RouteDistances(graph, newCosts, distances.clone(), nextRoutes.clone(),
+                lastRoutes.clone());
+        for (int i = 0; i < graph.stationCount; ++i) {
+            int[] row = distances[i];
+            if (newCost < oldCost) {
+                //une route moins chere ne change les distances depuis i que si elle raccourcit le chemin vers
+                //l'une de ses extremites, et tout nouveau plus court chemin l'emprunte alors
+                if (row[u] + newCost < row[v] || row[v] + newCost < row[u]) {
+                    int[] newRow = new int[graph.stationCount];
+                    for (int j = 0; j < graph.stationCount; ++j) {
+                        newRow[j] = Math.min(row[j], Math.min(row[u] + newCost + distances[v][j],
+                                row[v] + newCost + distances[u][j]));
+                    }
+                    table.setRow(i, newRow);
+                }
+            } else if (lastRoutes[i][u] == route || lastRoutes[i][v] == route) {
+                //une route plus chere ne change les distances depuis i que si l'arbre des plus courts chemins
+                //depuis i l'emprunte, et seulement celles des gares situees sous elle dans cet arbre
+                table.computeSubtree(i, lastRoutes[i][u] == route ? u : v, lastRoutes[i]);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @param costs cout des routes,
+     * @param route index d'une route,
+     * @return l'index de la moins chere des routes reliant les memes gares que la route donnee.
+     */
+    private int bestRoute(int[] costs, int route) {
+        int neighbor = graph.neighbors[route];
+        return costs[neighbor] < costs[route] ? neighbor : route;
+    }
+
+    /**
+     * calcule les plus courtes distances depuis la gare donnee (algorithme de Dijkstra).
+     *
+     * @param source identite de la gare de depart.
+     */
+    private void computeRow(int source) {
+        int[] row = new int[graph.stationCount];
+        Arrays.fill(row, INFINITY);
+        boolean[] settled = new boolean[graph.stationCount];
+        row[source] = 0;
+        while (true) {
+            int station = NONE;
+            for (int s = 0; s < graph.stationCount; ++s) {
+                if (!settled[s] && row[s] < INFINITY && (station == NONE || row[s] < row[station])) {
+                    station = s;
+                }
+            }
+            if (station == NONE) {
+                break;
+            }
+            settled[station] = true;
+            for (int route : graph.stationRoutes[station]) {
+                int other = graph.stations1[route] == station ? graph.stations2[route] : graph.stations1[route];
+                row[other] = Math.min(row[other], row[station] + costs[route]);
+            }
+        }
+        setRow(source, row);
+    }
+
+    /**
+     * recalcule les plus courtes distances depuis la gare donnee, lorsque seules celles des gares situees
+     * sous une gare donnee de l'ancien arbre des plus courts chemins ont pu augmenter.
+     *
+     * @param source   identite de la gare de depart,
+     * @param root     identite de la gare dont le sous-arbre est a recalculer,
+     * @param oldLast  ancien arbre des plus courts chemins depuis la gare de depart.
+     */
+    private void computeSubtree(int source, int root, int[] oldLast) {
+        int[] row = distances[source].clone();
+        //1 : sous la gare donnee, 2 : ailleurs, 0 : pas encore determine
+        int[] below = new int[graph.stationCount];
+        below[root] = 1;
+        below[source] = 2;
+        int[] path = new int[graph.stationCount];
+        for (int s = 0; s < graph.stationCount; ++s) {
+            int length = 0;
+            int station = s;
+            while (below[station] == 0 && oldLast[station] != NONE) {
+                path[length++] = station;
+                int route = oldLast[station];
+                station = graph.stations1[route] == station ? graph.stations2[route] : graph.stations1[route];
+            }
+            int mark = below[station] == 1 ? 1 : 2;
+            for (int k = 0; k < length; ++k) {
+                below[path[k]] = mark;
+            }
+            below[s] = below[s] == 0 ? 2 : below[s];
+        }
+
+        //les gares du sous-arbre repartent de leurs voisines restees en place, puis Dijkstra entre elles
+        for (int s = 0; s < graph.stationCount; ++s) {
+            if (below[s] == 1) {
+                row[s] = INFINITY;
+                for (int route : graph.stationRoutes[s]) {
+                    int other = graph.stations1[route] == s ? graph.stations2[route] : graph.stations1[route];
+                    if (below[other] == 2) {
+                        row[s] = Math.min(row[s], row[other] + costs[route]);
+                    }
+                }
+            }
+        }
+        while (true) {
+            int station = NONE;
+            for (int s = 0; s < graph.stationCount; ++s) {
+                if (below[s] == 1 && row[s] < INFINITY && (station == NONE || row[s] < row[station])) {
+                    station = s;
+                }
+            }
+            if (station == NONE) {
+                break;
+            }
+            below[station] = 2;
+            for (int route : graph.stationRoutes[station]) {
+                int other = graph.stations1[route] == station ? graph.stations2[route] : graph.stations1[route];
+                row[other] = Math.min(row[other], row[station] + costs[route]);
+            }
+        }
+        setRow(source, row);
+    }
+
+    /**
+     * enregistre les distances donnees depuis la gare donnee, et construit l'arbre de plus courts chemins
+     * correspondant en parcourant, en largeur, les routes dont le cout est exactement la difference des
+     * distances de leurs extremites.
+     *
+     * @param source identite de la gare de depart,
+     * @param row    plus courtes distances depuis cette gare.
+     */
+    private void setRow(int source, int[] row) {
+        int[] next = new int[graph.stationCount];
+        int[] last = new int[graph.stationCount];
+        Arrays.fill(next, NONE);
+        Arrays.fill(last, NONE);
+        boolean[] visited = new boolean[graph.stationCount];
+        int[] queue = new int[graph.stationCount];
+        int tail = 0;
+        queue[tail++] = source;
+        visited[source] = true;
+        for (int head = 0; head < tail; ++head) {
+            int station = queue[head];
+            for (int route : graph.stationRoutes[station]) {
+                int other = graph.stations1[route] == station ? graph.stations2[route] : graph.stations1[route];
+                if (!visited[other] && costs[route] < INFINITY && row[station] + costs[route] == row[other]) {
+                    visited[other] = true;
+                    next[other] = station == source ? route : next[station];
+                    last[other] = route;
+                    queue[tail++] = other;
+                }
+            }
+        }
+        distances[source] = row;
+        nextRoutes[source] = next;
+        lastRoutes[source] = last;
+    }
+
+    /**
+     * classe représentant le graphe d'une carte, partagé par toutes ses tables : extrémités des routes
+     * (par index dans les routes de la carte), routes de chaque gare et route voisine de chaque route double.
+     */
+    private static final class Graph {
+        private final TchuMap map;
+        private final List<Route> routes;
+        private final int stationCount;
+        private final int[] stations1;
+        private final int[] stations2;
+        private final int[][] stationRoutes;
+        // route voisine d'une route double, ou la route elle-meme
+        private final int[] neighbors;
+
+        private Graph(TchuMap map) {
+            this.map = map;
+            routes = map.routes();
+            stationCount = map.stations().stream().mapToInt(Station::id).max().orElse(-1) + 1;
+            stations1 = new int[routes.size()];
+            stations2 = new int[routes.size()];
+            neighbors = new int[routes.size()];
+            for (int r = 0; r < routes.size(); ++r) {
+                Route route = routes.get(r);
+                stations1[r] = route.station1().id();
+                stations2[r] = route.station2().id();
+                neighbors[r] = map.indexOf(map.neighbor(route));
+            }
+            stationRoutes = new int[stationCount][0];
+            for (Station station : map.stations()) {
+                stationRoutes[station.id()] = map.routesAt(station).stream()
+                        .mapToInt(map::indexOf)
+                        .toArray();
+            }
+        }
+    }
+}
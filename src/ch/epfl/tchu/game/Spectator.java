@@ -0,0 +1,33 @@
+package ch.epfl.tchu.game;
+
+/**
+ * interface représentant un spectateur d'une partie : il reçoit, en lecture seule,
+ * les informations annoncées aux joueurs et l'état public du jeu, mais jamais l'état privé d'un joueur.
+ * Ses méthodes sont appelées par le fil d'exécution de la partie et ne doivent donc pas bloquer.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public interface Spectator {
+
+    /**
+     * est appelée lorsque le spectateur est ajouté à la partie, avant toute autre méthode.
+     *
+     * @param map la carte de la partie, dont sont tirées toutes les routes et tous les billets
+     */
+    void initMap(TchuMap map);
+
+    /**
+     * est appelée chaque fois qu'une information est communiquée aux joueurs.
+     *
+     * @param info une information sous forme de chaine de caracteres
+     */
+    void receiveInfo(String info);
+
+    /**
+     * est appelée chaque fois que l'état du jeu a changé.
+     *
+     * @param newState état public du jeu, qui n'est jamais un état complet (GameState)
+     */
+    void updateState(PublicGameState newState);
+}
@@ -0,0 +1,112 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.util.Objects;
+
+/**
+ * classe représentant la partition des gares en composantes connexes du reseau d'un joueur,
+ * chaque composante etant un ensemble de gares code sur 64 bits (le bit i etant celui de la gare d'identite i),
+ * de sorte que savoir si deux gares sont reliees revient a un ET bit a bit.
+ * Elle ne convient qu'aux cartes d'au plus 64 gares, comme ChMap et ses 51 gares.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class StationBitPartition implements StationConnectivity {
+
+    /**
+     * nombre maximal de gares d'une partition.
+     */
+    public static final int MAX_STATION_COUNT = Long.SIZE;
+
+    private final long[] components;
+
+    private StationBitPartition(long[] components) {
+        this.components = components;
+    }
+
+    /**
+     * retourne vrai si les gares donnees sont reliees par le reseau du joueur.
+     *
+     * @param s1 premiere gare
+     * @param s2 seconde gare
+     * @return true si les gares sont reliees par le reseau du joueur.
+     */
+    @Override
+    public boolean connected(Station s1, Station s2) {
+        return s1.id() >= components.length || s2.id() >= components.length ?
+                s1.id() == s2.id() : (components[s1.id()] & 1L << s2.id()) != 0;
+    }
+
+    /**
+     * @param station une gare
+     * @return l'ensemble des gares reliees a la gare donnee (elle comprise), le bit i etant celui de la gare
+     * d'identite i
+     */
+    public long component(Station station) {
+        return station.id() < components.length ? components[station.id()] : 1L << station.id();
+    }
+
+    /**
+     * @param s1 premiere gare
+     * @param s2 seconde gare
+     * @return une partition identique au recepteur, si ce n'est que les composantes des gares donnees y sont
+     * reunies, ou le recepteur lui-meme si elles l'etaient deja
+     * @throws IndexOutOfBoundsException si l'une des gares n'appartient pas a la partition
+     */
+    public StationBitPartition withConnected(Station s1, Station s2) {
+        long c1 = components[Objects.checkIndex(s1.id(), components.length)];
+        long c2 = components[Objects.checkIndex(s2.id(), components.length)];
+        if (c1 == c2) {
+            return this;
+        }
+        long[] newComponents = components.clone();
+        long union = c1 | c2;
+        for (long stations = union; stations != 0; stations &= stations - 1) {
+            newComponents[Long.numberOfTrailingZeros(stations)] = union;
+        }
+        return new StationBitPartition(newComponents);
+    }
+
+    public final static class Builder {
+
+        private final long[] components;
+
+        /**
+         * @param stationCount nombre de stations que le joueur peut connecter
+         * @throws IllegalArgumentException si le nombre de stations est negatif ou depasse MAX_STATION_COUNT
+         */
+        public Builder(int stationCount) {
+            Preconditions.checkArgument(0 <= stationCount && stationCount <= MAX_STATION_COUNT);
+            components = new long[stationCount];
+            for (int i = 0; i < stationCount; ++i) {
+                components[i] = 1L << i;
+            }
+        }
+
+        /**
+         * @return la partition des stations
+         */
+        public StationBitPartition build() {
+            return new StationBitPartition(components.clone());
+        }
+
+        /**
+         * Connecte les composantes des stations s1 et s2, en donnant leur union a chacune de leurs stations.
+         *
+         * @param s1 la premiere station
+         * @param s2 la deuxieme station
+         * @return le meme builder avec les deux composantes connectees
+         */
+        public Builder connect(Station s1, Station s2) {
+            long union = components[s1.id()] | components[s2.id()];
+            if (union != components[s1.id()]) {
+                for (long stations = union; stations != 0; stations &= stations - 1) {
+                    components[Long.numberOfTrailingZeros(stations)] = union;
+                }
+            }
+            return this;
+        }
+    }
+}
@@ -4,7 +4,7 @@ import ch.epfl.tchu.Preconditions;
 
 /**
  *
- * classe représentant les par
+ * classe représentant la partition des gares en composantes connexes du reseau d'un joueur.
  *
  * @author Rasan Younis (329880)
  *         Elyes Ben Chaabane (330441)
@@ -37,6 +37,8 @@ public final class StationPartition implements StationConnectivity {
     public final static class Builder {
 
         private final int[] partitionB;
+        // borne superieure de la hauteur de l'arbre de chaque representant
+        private final byte[] ranks;
 
         /**
          * Constructeur du Builder
@@ -46,6 +48,7 @@ public final class StationPartition implements StationConnectivity {
         public Builder(int stationCount) {
             Preconditions.checkArgument(stationCount >= 0);
             partitionB = new int[stationCount];
+            ranks = new byte[stationCount];
             for (int i = 0; i < stationCount; ++i) {
                 partitionB[i] = i;
             }
@@ -64,26 +67,40 @@ public final class StationPartition implements StationConnectivity {
         }
 
         /**
-         * Connecte les partitions qui représentent les stations s1 et s2
+         * Connecte les partitions qui représentent les stations s1 et s2,
+         * en rattachant l'arbre le moins haut à l'autre (union par rang).
          *
          * @param s1 la premiere station
          * @param s2 la deuxieme station
          * @return le meme builder avec les deux partitions connectees
          */
         public Builder connect(Station s1, Station s2) {
-            partitionB[representative(s1.id())] = representative(s2.id());
+            int r1 = representative(s1.id());
+            int r2 = representative(s2.id());
+            if (r1 != r2) {
+                if (ranks[r1] < ranks[r2]) {
+                    partitionB[r1] = r2;
+                } else {
+                    partitionB[r2] = r1;
+                    if (ranks[r1] == ranks[r2]) {
+                        ++ranks[r1];
+                    }
+                }
+            }
             return this;
         }
 
         /**
          * @param stationId la station dont nous cherchons le representant
-         * @return l'ID du representant
+         * @return l'ID du representant, chaque station du chemin parcouru etant au passage
+         * rattachee a son grand-parent (compression de chemin par division)
          */
         private int representative(int stationId) {
             while (partitionB[stationId] != stationId) {
+                partitionB[stationId] = partitionB[partitionB[stationId]];
                 stationId = partitionB[stationId];
             }
             return stationId;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,348 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.Route.Level;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * classe (immuable) représentant une carte du jeu : ses gares, ses routes et ses billets, chacun ayant une
+ * identite dense (la gare d'identite i est la i-eme, une route ou un billet est identifie par sa position),
+ * de sorte que toutes les recherches se font par index dans un tableau.
+ * Une carte peut etre lue dans un fichier texte (voir readFrom), une ligne par element :
+ * <pre>
+ * station &lt;code&gt; &lt;nom&gt;
+ * group &lt;nom&gt; &lt;code&gt;...
+ * route &lt;id&gt; &lt;gare1&gt; &lt;gare2&gt; &lt;longueur&gt; &lt;OVERGROUND|UNDERGROUND&gt; &lt;couleur|NEUTRAL&gt;
+ * ticket &lt;depart&gt; &lt;arrivee&gt; &lt;points&gt; [&lt;depart&gt; &lt;arrivee&gt; &lt;points&gt;...]
+ * </pre>
+ * les gares recevant leur identite dans l'ordre de leurs lignes, les groupes (des pays) designant, dans
+ * un billet, tous les trajets entre leurs gares, et les lignes vides ou commencant par # etant ignorees.
+ * Une carte peut aussi etre ecrite dans ce format (voir writeTo), par exemple pour etre envoyee a un client
+ * ou sauvegardee avec le journal d'une partie.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class TchuMap {
+
+    private static final String NEUTRAL_COLOR = "NEUTRAL";
+
+    private final List<Station> stations;
+    private final List<Route> routes;
+    private final List<Ticket> tickets;
+    private final Map<Route, Integer> routeIndices;
+    private final Map<Ticket, Integer> ticketIndices;
+    private final Map<String, Route> routesById;
+    private final int[] neighbors;
+    private final List<List<Route>> routesByStation;
+
+    private TchuMap(List<Station> stations, List<Route> routes, List<Ticket> tickets) {
+        this.stations = List.copyOf(stations);
+        this.routes = List.copyOf(routes);
+        this.tickets = List.copyOf(tickets);
+
+        for (int i = 0; i < stations.size(); ++i) {
+            Preconditions.checkArgument(stations.get(i).id() == i);
+        }
+        for (Ticket ticket : tickets) {
+            for (Trip trip : ticket.trips()) {
+                Preconditions.checkArgument(contains(trip.from()) && contains(trip.to()));
+            }
+        }
+
+        Map<Route, Integer> routeIndices = new HashMap<>();
+        Map<String, Route> routesById = new HashMap<>();
+        Map<List<Station>, Integer> routesByStations = new HashMap<>();
+        List<List<Route>> routesByStation = new ArrayList<>(stations.size());
+        for (int i = 0; i < stations.size(); ++i) {
+            routesByStation.add(new ArrayList<>());
+        }
+        neighbors = new int[routes.size()];
+        for (int i = 0; i < routes.size(); ++i) {
+            Route r = routes.get(i);
+            Preconditions.checkArgument(contains(r.station1()) && contains(r.station2())
+                    && routesById.putIfAbsent(r.id(), r) == null);
+            routeIndices.put(r, i);
+            routesByStation.get(r.station1().id()).add(r);
+            routesByStation.get(r.station2().id()).add(r);
+
+            //une route double relie les deux memes gares, dans le meme ordre
+            Integer sibling = routesByStations.putIfAbsent(r.stations(), i);
+            neighbors[i] = sibling == null ? i : sibling;
+            if (sibling != null) {
+                neighbors[sibling] = i;
+            }
+        }
+        Map<Ticket, Integer> ticketIndices = new HashMap<>();
+        for (int i = 0; i < tickets.size(); ++i) {
+            ticketIndices.putIfAbsent(tickets.get(i), i);
+        }
+
+        this.routeIndices = Map.copyOf(routeIndices);
+        this.ticketIndices = Map.copyOf(ticketIndices);
+        this.routesById = Map.copyOf(routesById);
+        routesByStation.replaceAll(List::copyOf);
+        this.routesByStation = List.copyOf(routesByStation);
+    }
+
+    /**
+     * @param stations gares de la carte, la gare d'identite i etant a la position i
+     * @param routes   routes de la carte, reliant des gares de la carte
+     * @param tickets  billets de la carte, dont les trajets relient des gares de la carte
+     * @return la carte constituee des elements donnes
+     * @throws IllegalArgumentException si les identites des gares ne sont pas denses, si une route ou un billet
+     *                                  concerne une gare n'appartenant pas a la carte, ou si deux routes ont la meme
+     *                                  identite
+     */
+    public static TchuMap of(List<Station> stations, List<Route> routes, List<Ticket> tickets) {
+        return new TchuMap(stations, routes, tickets);
+    }
+
+    /**
+     * @param resourceName nom d'une ressource (p.ex. "/ch.tchumap") contenant une carte au format de readFrom
+     * @return la carte lue dans la ressource donnee
+     * @throws UncheckedIOException     si la ressource est absente ou illisible
+     * @throws IllegalArgumentException si la ressource ne decrit pas une carte valide
+     */
+    public static TchuMap load(String resourceName) {
+        InputStream resource = TchuMap.class.getResourceAsStream(resourceName);
+        if (resource == null) {
+            throw new UncheckedIOException(new FileNotFoundException(resourceName));
+        }
+        try (Reader reader = new InputStreamReader(resource, StandardCharsets.UTF_8)) {
+            return readFrom(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param file fichier contenant une carte au format de readFrom
+     * @return la carte lue dans le fichier donne
+     * @throws UncheckedIOException     si le fichier est absent ou illisible
+     * @throws IllegalArgumentException si le fichier ne decrit pas une carte valide
+     */
+    public static TchuMap load(Path file) {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return readFrom(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * lit une carte au format decrit plus haut.
+     *
+     * @param reader lecteur de la description de la carte
+     * @return la carte lue
+     * @throws IOException              en cas d'erreur d'entree/sortie
+     * @throws IllegalArgumentException si la description n'est pas valide, le message donnant la ligne fautive
+     */
+    public static TchuMap readFrom(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        List<Station> stations = new ArrayList<>();
+        List<Route> routes = new ArrayList<>();
+        List<Ticket> tickets = new ArrayList<>();
+        Map<String, List<Station>> stationsByCode = new HashMap<>();
+
+        int lineNumber = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            ++lineNumber;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] words = line.split("\\s+");
+            try {
+                switch (words[0]) {
+                    case "station":
+                        String[] parts = line.split("\\s+", 3);
+                        Preconditions.checkArgument(parts.length == 3);
+                        Station station = new Station(stations.size(), parts[2]);
+                        Preconditions.checkArgument(stationsByCode.putIfAbsent(parts[1], List.of(station)) == null);
+                        stations.add(station);
+                        break;
+                    case "group":
+                        Preconditions.checkArgument(words.length > 2);
+                        List<Station> group = new ArrayList<>();
+                        for (int i = 2; i < words.length; ++i) {
+                            group.add(station(stationsByCode, words[i]));
+                        }
+                        Preconditions.checkArgument(stationsByCode.putIfAbsent(words[1], List.copyOf(group)) == null);
+                        break;
+                    case "route":
+                        Preconditions.checkArgument(words.length == 7);
+                        routes.add(new Route(words[1],
+                                station(stationsByCode, words[2]),
+                                station(stationsByCode, words[3]),
+                                Integer.parseInt(words[4]),
+                                Level.valueOf(words[5]),
+                                words[6].equals(NEUTRAL_COLOR) ? null : Color.valueOf(words[6])));
+                        break;
+                    case "ticket":
+                        Preconditions.checkArgument(words.length > 1 && words.length % 3 == 1);
+                        List<Trip> trips = new ArrayList<>();
+                        for (int i = 1; i < words.length; i += 3) {
+                            trips.addAll(Trip.all(stations(stationsByCode, words[i]),
+                                    stations(stationsByCode, words[i + 1]),
+                                    Integer.parseInt(words[i + 2])));
+                        }
+                        tickets.add(new Ticket(trips));
+                        break;
+                    default:
+                        throw new IllegalArgumentException();
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("ligne %d invalide : %s", lineNumber, line), e);
+            }
+        }
+        return of(stations, routes, tickets);
+    }
+
+    /**
+     * ecrit la carte au format lu par readFrom, chaque gare ayant pour code son identite et chaque billet
+     * etant decrit par la liste de ses trajets ; la carte relue a les memes gares, routes et billets, dans le meme
+     * ordre, de sorte que leurs positions y sont les memes.
+     *
+     * @param writer redacteur dans lequel ecrire la carte
+     * @throws IOException en cas d'erreur d'entree/sortie
+     */
+    public void writeTo(Writer writer) throws IOException {
+        for (Station station : stations) {
+            writer.write(String.format("station %d %s%n", station.id(), station.name()));
+        }
+        for (Route route : routes) {
+            writer.write(String.format("route %s %d %d %d %s %s%n", route.id(), route.station1().id(),
+                    route.station2().id(), route.length(), route.level(),
+                    route.color() == null ? NEUTRAL_COLOR : route.color()));
+        }
+        for (Ticket ticket : tickets) {
+            StringBuilder line = new StringBuilder("ticket");
+            for (Trip trip : ticket.trips()) {
+                line.append(String.format(" %d %d %d", trip.from().id(), trip.to().id(), trip.points()));
+            }
+            writer.write(line.append(System.lineSeparator()).toString());
+        }
+        writer.flush();
+    }
+
+    /**
+     * @param text description d'une carte au format decrit plus haut
+     * @return la carte decrite
+     * @throws IllegalArgumentException si la description n'est pas valide
+     */
+    public static TchuMap parse(String text) {
+        try {
+            return readFrom(new StringReader(text));
+        } catch (IOException e) {
+            //impossible, la lecture d'une chaine ne pouvant echouer
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return la description de la carte au format lu par readFrom, telle qu'ecrite par writeTo
+     */
+    public String text() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeTo(writer);
+        } catch (IOException e) {
+            //impossible, l'ecriture dans une chaine ne pouvant echouer
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    private static List<Station> stations(Map<String, List<Station>> stationsByCode, String code) {
+        List<Station> stations = stationsByCode.get(code);
+        Preconditions.checkArgument(stations != null);
+        return stations;
+    }
+
+    private static Station station(Map<String, List<Station>> stationsByCode, String code) {
+        List<Station> stations = stations(stationsByCode, code);
+        Preconditions.checkArgument(stations.size() == 1);
+        return stations.get(0);
+    }
+
+    private boolean contains(Station station) {
+        return station.id() < stations.size() && stations.get(station.id()) == station;
+    }
+
+    /**
+     * @return les gares de la carte, par ordre d'identite
+     */
+    public List<Station> stations() {
+        return stations;
+    }
+
+    /**
+     * @return les routes de la carte
+     */
+    public List<Route> routes() {
+        return routes;
+    }
+
+    /**
+     * @return les billets de la carte
+     */
+    public List<Ticket> tickets() {
+        return tickets;
+    }
+
+    /**
+     * @param id identite d'une gare
+     * @return la gare de la carte ayant l'identite donnee
+     * @throws IndexOutOfBoundsException si aucune gare de la carte n'a cette identite
+     */
+    public Station station(int id) {
+        return stations.get(id);
+    }
+
+    /**
+     * @param id identite d'une route
+     * @return la route de la carte ayant l'identite donnee, ou null s'il n'y en a pas
+     */
+    public Route route(String id) {
+        return routesById.get(id);
+    }
+
+    /**
+     * @param route une route
+     * @return la position de la route donnee dans routes(), ou -1 si elle n'appartient pas a la carte
+     */
+    public int indexOf(Route route) {
+        return routeIndices.getOrDefault(route, -1);
+    }
+
+    /**
+     * @param ticket un billet
+     * @return la (premiere) position du billet donne dans tickets(), ou -1 s'il n'appartient pas a la carte
+     */
+    public int indexOf(Ticket ticket) {
+        return ticketIndices.getOrDefault(ticket, -1);
+    }
+
+    /**
+     * @param route une route
+     * @return la route voisine de la route donnee si elle est double, autrement la route elle-meme
+     */
+    public Route neighbor(Route route) {
+        int index = indexOf(route);
+        return index < 0 ? route : routes.get(neighbors[index]);
+    }
+
+    /**
+     * @param station une gare
+     * @return la liste (immuable) des routes de la carte dont l'une des extremites est la gare donnee
+     */
+    public List<Route> routesAt(Station station) {
+        return station.id() < routesByStation.size() ? routesByStation.get(station.id()) : List.of();
+    }
+}
@@ -17,6 +17,7 @@ import java.util.stream.Collectors;
 public final class Ticket implements Comparable<Ticket> {
 
     private final List<Trip> tripList;
+    private final List<Trip> trips;
     private final String textToCompute;
 
     /**
@@ -30,6 +31,7 @@ public final class Ticket implements Comparable<Ticket> {
             Preconditions.checkArgument(t.from().name().equals(tmp));
             this.tripList.add(t);
         }
+        this.trips = Collections.unmodifiableList(tripList);
         textToCompute = computeText(tripList);
 
     }
@@ -60,6 +62,13 @@ public final class Ticket implements Comparable<Ticket> {
 
     }
 
+    /**
+     * @return les trajets du billet.
+     */
+    public List<Trip> trips() {
+        return trips;
+    }
+
     /**
      * @return une chaine de caractères représentant le ticket.
      */
@@ -80,7 +89,11 @@ public final class Ticket implements Comparable<Ticket> {
      * @return les points obtenues en ayant connectés différentes stations.
      */
     public int points(StationConnectivity connectivity) {
-        return tripList.stream().mapToInt(t -> t.points(connectivity)).max().orElse(0);
+        int points = Integer.MIN_VALUE;
+        for (int i = 0; i < tripList.size(); ++i) {
+            points = Math.max(points, tripList.get(i).points(connectivity));
+        }
+        return points;
     }
 
     /**
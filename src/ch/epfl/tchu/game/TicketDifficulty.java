@@ -0,0 +1,319 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * classe representant la difficulte estimee des billets d'une carte : pour chacun d'eux, la probabilite
+ * qu'il soit realise a la fin d'une partie, l'esperance des points qu'il rapporte (negatifs s'il ne l'est pas)
+ * et, pour chaque paire de billets, la correlation de leurs realisations (coefficient phi), c.-a-d. a quel point
+ * relier l'un aide a relier l'autre.
+ * Ces estimations sont faites hors ligne, par simulation (voir TicketDifficultyEstimator), puis ecrites dans une
+ * ressource compacte que les joueurs automatiques chargent au demarrage (voir standard).
+ * Les billets sont identifies par leur texte, les billets de meme texte (comme les billets pays de ChMap)
+ * partageant leurs estimations.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class TicketDifficulty {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String RESOURCE_NAME = "/ticket-difficulty.bin";
+
+    private static TicketDifficulty standard;
+
+    private final String[] texts;
+    private final Map<String, Integer> indices;
+    private final long hands;
+    private final int[] samples;
+    private final float[] completion;
+    private final float[] expectedPoints;
+    private final float[] correlations;
+
+    private TicketDifficulty(String[] texts, long hands, int[] samples, float[] completion,
+                             float[] expectedPoints, float[] correlations) {
+        this.texts = texts;
+        this.indices = indices(texts);
+        this.hands = hands;
+        this.samples = samples;
+        this.completion = completion;
+        this.expectedPoints = expectedPoints;
+        this.correlations = correlations;
+    }
+
+    /**
+     * @return les estimations livrees avec le jeu pour les billets de ChMap, chargees lors du premier appel
+     * @throws UncheckedIOException si la ressource est absente ou illisible
+     */
+    public static synchronized TicketDifficulty standard() {
+        if (standard == null) {
+            InputStream resource = TicketDifficulty.class.getResourceAsStream(RESOURCE_NAME);
+            if (resource == null) {
+                throw new UncheckedIOException(new FileNotFoundException(RESOURCE_NAME));
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(resource))) {
+                standard = readFrom(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return standard;
+    }
+
+    /**
+     * @return le nombre de mains (billets d'un joueur a la fin d'une partie) sur lesquelles portent les estimations
+     */
+    public long hands() {
+        return hands;
+    }
+
+    /**
+     * @param ticket un billet
+     * @return vrai ssi les estimations portent sur ce billet (ou un billet de meme texte), c.-a-d. s'il appartient
+     * a la carte pour laquelle elles ont ete faites
+     */
+    public boolean contains(Ticket ticket) {
+        return indices.containsKey(ticket.text());
+    }
+
+    /**
+     * @param ticket un billet
+     * @return le nombre de fois que ce billet (ou un billet de meme texte) a ete observe
+     * @throws IllegalArgumentException si le billet est inconnu
+     */
+    public int samples(Ticket ticket) {
+        return samples[index(ticket)];
+    }
+
+    /**
+     * @param ticket un billet
+     * @return la probabilite estimee que le billet soit realise en fin de partie, ou NaN s'il n'a jamais ete observe
+     * @throws IllegalArgumentException si le billet est inconnu
+     */
+    public double completionProbability(Ticket ticket) {
+        return completion[index(ticket)];
+    }
+
+    /**
+     * @param ticket un billet
+     * @return l'esperance estimee des points que rapporte le billet en fin de partie (points perdus compris),
+     * ou NaN s'il n'a jamais ete observe
+     * @throws IllegalArgumentException si le billet est inconnu
+     */
+    public double expectedPoints(Ticket ticket) {
+        return expectedPoints[index(ticket)];
+    }
+
+    /**
+     * @param t1 un billet
+     * @param t2 un autre billet
+     * @return le coefficient de correlation (phi, entre -1 et 1) des realisations des deux billets lorsqu'un meme
+     * joueur les possede, 1 s'ils ont le meme texte, et 0 s'ils n'ont jamais ete observes ensemble
+     * @throws IllegalArgumentException si l'un des billets est inconnu
+     */
+    public double correlation(Ticket t1, Ticket t2) {
+        int i = index(t1);
+        int j = index(t2);
+        return i == j ? 1 : correlations[pairIndex(Math.min(i, j), Math.max(i, j), texts.length)];
+    }
+
+    /**
+     * ecrit les estimations dans le flot donne, dans le format lu par readFrom.
+     *
+     * @param out flot de sortie
+     * @throws IOException en cas d'erreur d'entree/sortie
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(hands);
+        out.writeShort(texts.length);
+        for (int i = 0; i < texts.length; ++i) {
+            out.writeUTF(texts[i]);
+            out.writeInt(samples[i]);
+            out.writeFloat(completion[i]);
+            out.writeFloat(expectedPoints[i]);
+        }
+        for (float c : correlations) {
+            out.writeFloat(c);
+        }
+    }
+
+    /**
+     * @param in flot d'entree
+     * @return les estimations lues dans le flot donne, ecrites par writeTo
+     * @throws IOException              en cas d'erreur d'entree/sortie
+     * @throws IllegalArgumentException si la version du format est inconnue
+     */
+    public static TicketDifficulty readFrom(DataInput in) throws IOException {
+        Preconditions.checkArgument(in.readUnsignedByte() == FORMAT_VERSION);
+        long hands = in.readLong();
+        int count = in.readUnsignedShort();
+        String[] texts = new String[count];
+        int[] samples = new int[count];
+        float[] completion = new float[count];
+        float[] expectedPoints = new float[count];
+        for (int i = 0; i < count; ++i) {
+            texts[i] = in.readUTF();
+            samples[i] = in.readInt();
+            completion[i] = in.readFloat();
+            expectedPoints[i] = in.readFloat();
+        }
+        float[] correlations = new float[pairCount(count)];
+        for (int k = 0; k < correlations.length; ++k) {
+            correlations[k] = in.readFloat();
+        }
+        return new TicketDifficulty(texts, hands, samples, completion, expectedPoints, correlations);
+    }
+
+    private int index(Ticket ticket) {
+        Integer index = indices.get(ticket.text());
+        Preconditions.checkArgument(index != null);
+        return index;
+    }
+
+    private static Map<String, Integer> indices(String[] texts) {
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < texts.length; ++i) {
+            indices.putIfAbsent(texts[i], i);
+        }
+        return indices;
+    }
+
+    private static int pairCount(int count) {
+        return count * (count - 1) / 2;
+    }
+
+    // position de la paire (i, j), i < j, dans le triangle superieur strict d'une matrice count x count
+    private static int pairIndex(int i, int j, int count) {
+        return i * (2 * count - i - 1) / 2 + j - i - 1;
+    }
+
+    /**
+     * batisseur accumulant les billets des joueurs en fin de partie. Il n'est pas partage entre fils d'execution :
+     * chacun accumule ses propres parties, les batisseurs etant ensuite reunis au moyen de combine.
+     */
+    public static final class Builder {
+
+        private final String[] texts;
+        private final Map<String, Integer> indices;
+        private long hands;
+        private final int[] samples;
+        private final int[] completed;
+        private final long[] points;
+        private final int[] pairSamples;
+        private final int[] pairFirstCompleted;
+        private final int[] pairSecondCompleted;
+        private final int[] pairBothCompleted;
+
+        /**
+         * @param tickets billets dont estimer la difficulte, ceux de meme texte n'etant comptes qu'une fois
+         */
+        public Builder(List<Ticket> tickets) {
+            Set<String> distinct = new LinkedHashSet<>();
+            for (Ticket t : tickets) {
+                distinct.add(t.text());
+            }
+            texts = distinct.toArray(new String[0]);
+            indices = indices(texts);
+            int count = texts.length;
+            samples = new int[count];
+            completed = new int[count];
+            points = new long[count];
+            pairSamples = new int[pairCount(count)];
+            pairFirstCompleted = new int[pairCount(count)];
+            pairSecondCompleted = new int[pairCount(count)];
+            pairBothCompleted = new int[pairCount(count)];
+        }
+
+        /**
+         * ajoute aux estimations les billets d'un joueur en fin de partie.
+         *
+         * @param finalState etat du joueur a la fin d'une partie
+         * @return le meme batisseur
+         * @throws IllegalArgumentException si le joueur possede un billet inconnu du batisseur
+         */
+        public Builder add(PlayerState finalState) {
+            StationConnectivity connectivity = finalState.connectivity();
+            List<Ticket> tickets = finalState.tickets().toList();
+            int[] held = new int[tickets.size()];
+            boolean[] done = new boolean[tickets.size()];
+            for (int k = 0; k < held.length; ++k) {
+                Ticket t = tickets.get(k);
+                Integer index = indices.get(t.text());
+                Preconditions.checkArgument(index != null);
+                int p = t.points(connectivity);
+                held[k] = index;
+                done[k] = p > 0;
+                samples[index] += 1;
+                completed[index] += done[k] ? 1 : 0;
+                points[index] += p;
+            }
+            for (int k = 0; k < held.length; ++k) {
+                for (int l = 0; l < held.length; ++l) {
+                    if (held[k] < held[l]) {
+                        int pair = pairIndex(held[k], held[l], texts.length);
+                        pairSamples[pair] += 1;
+                        pairFirstCompleted[pair] += done[k] ? 1 : 0;
+                        pairSecondCompleted[pair] += done[l] ? 1 : 0;
+                        pairBothCompleted[pair] += done[k] && done[l] ? 1 : 0;
+                    }
+                }
+            }
+            hands += 1;
+            return this;
+        }
+
+        /**
+         * ajoute au batisseur les observations d'un autre batisseur construit pour les memes billets.
+         *
+         * @param that autre batisseur
+         * @return le meme batisseur
+         * @throws IllegalArgumentException si les batisseurs ne portent pas sur les memes billets
+         */
+        public Builder combine(Builder that) {
+            Preconditions.checkArgument(Arrays.equals(texts, that.texts));
+            hands += that.hands;
+            for (int i = 0; i < texts.length; ++i) {
+                samples[i] += that.samples[i];
+                completed[i] += that.completed[i];
+                points[i] += that.points[i];
+            }
+            for (int k = 0; k < pairSamples.length; ++k) {
+                pairSamples[k] += that.pairSamples[k];
+                pairFirstCompleted[k] += that.pairFirstCompleted[k];
+                pairSecondCompleted[k] += that.pairSecondCompleted[k];
+                pairBothCompleted[k] += that.pairBothCompleted[k];
+            }
+            return this;
+        }
+
+        /**
+         * @return les estimations tirees des observations accumulees
+         */
+        public TicketDifficulty build() {
+            int count = texts.length;
+            float[] completion = new float[count];
+            float[] expectedPoints = new float[count];
+            for (int i = 0; i < count; ++i) {
+                completion[i] = samples[i] == 0 ? Float.NaN : (float) completed[i] / samples[i];
+                expectedPoints[i] = samples[i] == 0 ? Float.NaN : (float) points[i] / samples[i];
+            }
+            float[] correlations = new float[pairSamples.length];
+            for (int k = 0; k < correlations.length; ++k) {
+                correlations[k] = (float) phi(pairSamples[k], pairFirstCompleted[k],
+                        pairSecondCompleted[k], pairBothCompleted[k]);
+            }
+            return new TicketDifficulty(texts.clone(), hands, samples.clone(), completion, expectedPoints,
+                    correlations);
+        }
+
+        // coefficient phi de la table de contingence 2x2 donnee par ses marges, 0 si l'une d'elles est constante
+        private static double phi(double n, double first, double second, double both) {
+            double variance = first * (n - first) * second * (n - second);
+            return variance == 0 ? 0 : (n * both - first * second) / Math.sqrt(variance);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package ch.epfl.tchu.game;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -36,47 +38,150 @@ public final class Trail {
     }
 
     /**
+     * le plus long chemin est cherche par un parcours en profondeur depuis chaque gare du reseau,
+     * les routes deja empruntees etant marquees dans un masque de bits; aucune liste n'est allouee
+     * pendant le parcours, seulement lorsqu'un chemin plus long que le meilleur connu est trouve.
      *
      * @param routes List<Route> liste de routes parmi laquelle nous cherchons le plus chemin
      * @return le plus long chemin du reseau constitue des routes donnees
      */
     public static Trail longest(List<Route> routes) {
-        Trail maxLengthTrail = new Trail(new Station(0, "null1"), new Station(1, "null2"), List.of());
         if (routes.isEmpty()) {
-            return maxLengthTrail;
+            return new Trail(new Station(0, "null1"), new Station(1, "null2"), List.of());
         }
-        List<Trail> trailList = new ArrayList<>();
-        for (Route r : routes) {
-            trailList.add(new Trail(r.station1(), r.station2(), List.of(r)));
-            trailList.add(new Trail(r.station2(), r.station1(), List.of(r)));
-            if (trailList.get(trailList.size() - 1).length() > maxLengthTrail.length()) {
-                maxLengthTrail = trailList.get(trailList.size() - 1);
+        return new LongestTrailSearch(routes).search();
+    }
+
+    /**
+     * recherche du plus long chemin dans un reseau donne, a usage unique.
+     * les gares sont renumerotees de maniere dense et chaque gare connait les index des routes qui la touchent.
+     */
+    private static final class LongestTrailSearch {
+
+        private final List<Route> routes;
+        private final int[] routeLengths;
+        private final int[] routeStations1;
+        private final int[] routeStations2;
+        private final int[][] adjacentRoutes;
+        private final int totalLength;
+
+        // index des routes du chemin courant, et masque de bits des routes qu'il emprunte
+        private final int[] path;
+        private final long[] usedRoutes;
+
+        private int bestLength;
+        private int bestFrom;
+        private int bestTo;
+        private int[] bestPath;
+        private int bestPathLength;
+
+        private LongestTrailSearch(List<Route> routes) {
+            int routeCount = routes.size();
+            this.routes = routes;
+            this.routeLengths = new int[routeCount];
+            this.routeStations1 = new int[routeCount];
+            this.routeStations2 = new int[routeCount];
+
+            int maxStationId = 0;
+            for (Route r : routes) {
+                maxStationId = Math.max(maxStationId, Math.max(r.station1().id(), r.station2().id()));
+            }
+            int[] localIndex = new int[maxStationId + 1];
+            Arrays.fill(localIndex, -1);
+            int stationCount = 0;
+            int total = 0;
+            for (int i = 0; i < routeCount; ++i) {
+                Route r = routes.get(i);
+                int s1 = r.station1().id();
+                int s2 = r.station2().id();
+                if (localIndex[s1] < 0) localIndex[s1] = stationCount++;
+                if (localIndex[s2] < 0) localIndex[s2] = stationCount++;
+                routeStations1[i] = localIndex[s1];
+                routeStations2[i] = localIndex[s2];
+                routeLengths[i] = r.length();
+                total += r.length();
+            }
+            this.totalLength = total;
+
+            int[] degrees = new int[stationCount];
+            for (int i = 0; i < routeCount; ++i) {
+                ++degrees[routeStations1[i]];
+                ++degrees[routeStations2[i]];
             }
+            this.adjacentRoutes = new int[stationCount][];
+            for (int s = 0; s < stationCount; ++s) {
+                adjacentRoutes[s] = new int[degrees[s]];
+                degrees[s] = 0;
+            }
+            for (int i = 0; i < routeCount; ++i) {
+                adjacentRoutes[routeStations1[i]][degrees[routeStations1[i]]++] = i;
+                adjacentRoutes[routeStations2[i]][degrees[routeStations2[i]]++] = i;
+            }
+
+            this.path = new int[routeCount];
+            this.usedRoutes = new long[(routeCount + Long.SIZE - 1) / Long.SIZE];
+            this.bestPath = new int[0];
         }
-        while (!trailList.isEmpty()) {
-            List<Trail> trails = new ArrayList<>();
-            for (Trail c : trailList) {
-                for (Route r : routes) {
-                    List<Route> routeList = new ArrayList<>(c.routes);
-                    if (!routeList.contains(r) && (c.station2().equals(r.station1()) || c.station2().equals(r.station2()))) {
-                        routeList.add(r);
-                        Station lastStation = r.stationOpposite(c.station2());
-                        trails.add(new Trail(c.station1(), lastStation, routeList));
-
-                        if (trails.get(trails.size() - 1).length() > maxLengthTrail.length()) {
-                            maxLengthTrail = trails.get(trails.size() - 1);
-                        }
-                    }
 
+        /**
+         * @return le plus long chemin du reseau
+         */
+        private Trail search() {
+            for (int s = 0; s < adjacentRoutes.length && bestLength < totalLength; ++s) {
+                extend(s, s, 0, 0);
+            }
+
+            List<Route> trailRoutes = new ArrayList<>(bestPathLength);
+            for (int i = 0; i < bestPathLength; ++i) {
+                trailRoutes.add(routes.get(bestPath[i]));
+            }
+            return new Trail(stationOf(bestFrom), stationOf(bestTo), trailRoutes);
+        }
+
+        /**
+         * prolonge le chemin courant, qui part de la gare from et arrive a la gare to, par chacune
+         * des routes non encore empruntees qui touchent la gare to.
+         */
+        private void extend(int from, int to, int depth, int length) {
+            for (int r : adjacentRoutes[to]) {
+                if (bestLength == totalLength) {
+                    return;
+                }
+                int word = r >>> 6;
+                long bit = 1L << r;
+                if ((usedRoutes[word] & bit) != 0) {
+                    continue;
                 }
+                int next = routeStations1[r] == to ? routeStations2[r] : routeStations1[r];
+                int newLength = length + routeLengths[r];
+
+                usedRoutes[word] |= bit;
+                path[depth] = r;
+                if (newLength > bestLength) {
+                    bestLength = newLength;
+                    bestFrom = from;
+                    bestTo = next;
+                    bestPath = Arrays.copyOf(path, depth + 1);
+                    bestPathLength = depth + 1;
+                }
+                extend(from, next, depth + 1, newLength);
+                usedRoutes[word] &= ~bit;
             }
-            trailList = trails;
         }
 
-        return maxLengthTrail;
+        /**
+         * @param localStation index dense d'une gare du reseau
+         * @return la gare correspondante
+         */
+        private Station stationOf(int localStation) {
+            for (int i = 0; i < routes.size(); ++i) {
+                if (routeStations1[i] == localStation) return routes.get(i).station1();
+                if (routeStations2[i] == localStation) return routes.get(i).station2();
+            }
+            throw new Error(); // ne devrait jamais se produire
+        }
     }
 
-
     /**
      *
      * @return int la longueur du chemin
@@ -100,6 +205,14 @@ public final class Trail {
 
     }
 
+    /**
+     *
+     * @return List<Route> les routes qu'emprunte le chemin
+     */
+    List<Route> routes() {
+        return Collections.unmodifiableList(routes);
+    }
+
     @Override
     public String toString() {
         if(station1() == null || station2() == null) {
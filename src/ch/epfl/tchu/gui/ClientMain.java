@@ -1,6 +1,7 @@
 package ch.epfl.tchu.gui;
 
 import ch.epfl.tchu.net.RemotePlayerClient;
+import ch.epfl.tchu.net.WireProtocol;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
@@ -30,7 +31,8 @@ public final class ClientMain extends Application {
 
         RemotePlayerClient distantClient = new RemotePlayerClient(new GraphicalPlayerAdapter(),
                 hostName,
-                port);
+                port,
+                WireProtocol.BINARY);
 
         new Thread(distantClient::run).start();
 
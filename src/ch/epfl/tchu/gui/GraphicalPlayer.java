@@ -72,12 +72,14 @@ public final class GraphicalPlayer {
 
 
     /**
-     * Constructeur de l'interface graphique du jeu d'un joueur
+     * Constructeur de l'interface graphique du jeu d'un joueur sur une carte donnee
      * @param ownId propre identite du joueur
      * @param playerNames map liant l'identite d'un joueur a son nom
+     * @param map carte du jeu
      */
     public GraphicalPlayer(PlayerId ownId,
-                           Map<PlayerId, String> playerNames) throws URISyntaxException {
+                           Map<PlayerId, String> playerNames,
+                           TchuMap map) throws URISyntaxException {
         assert isFxApplicationThread();
 
         this.claimRouteHandlerProperty = new SimpleObjectProperty<>();
@@ -87,7 +89,7 @@ public final class GraphicalPlayer {
 
         this.actualPlayer = new SimpleObjectProperty<>();
 
-        this.gameState = new ObservableGameState(ownId);
+        this.gameState = new ObservableGameState(ownId, map);
         this.observableList = FXCollections.observableArrayList();
 
         Node mapView = MapViewCreator.createMapView(
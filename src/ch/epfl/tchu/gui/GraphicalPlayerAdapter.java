@@ -34,13 +34,14 @@ public final class GraphicalPlayerAdapter implements Player {
      *
      * @param ownId l'identité du joueur,
      * @param playerNames ensemble des identités de tout les joueurs,
+     * @param map la carte sur laquelle se joue la partie,
      * cette méthode est appelée au début de la partie pour communiquer au joueur sa propre identité ownId,
      */
     @Override
-    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames, TchuMap map) {
         Platform.runLater(() -> {
             try {
-                graphicalPlayer = new GraphicalPlayer(ownId, playerNames);
+                graphicalPlayer = new GraphicalPlayer(ownId, playerNames, map);
             } catch (URISyntaxException e) {
                 e.printStackTrace();
             }
@@ -1,12 +1,12 @@
 package ch.epfl.tchu.gui;
 
-import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.ChMap;
 import ch.epfl.tchu.game.Game;
 import ch.epfl.tchu.game.Player;
 import ch.epfl.tchu.game.PlayerId;
 import ch.epfl.tchu.net.RemotePlayerClient;
 import ch.epfl.tchu.net.RemotePlayerProxy;
+import ch.epfl.tchu.net.WireProtocol;
 import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -295,8 +295,8 @@ public class LaunchMenu {
         Map<PlayerId, Player> players = Map.of(PlayerId.PLAYER_1, new GraphicalPlayerAdapter(),
                 PlayerId.PLAYER_2, new RemotePlayerProxy(socket));
         System.out.println("server started");
-        new Thread(() -> Game.play(players, SortedBag.of(ChMap.tickets()),
-                new Random())).start();
+        Game game = new Game(players, ChMap.map(), new Random());
+        new Thread(game::play).start();
     }
     private void clientMain(List<String> param) throws Exception {
         assert isFxApplicationThread();
@@ -307,7 +307,8 @@ public class LaunchMenu {
 
         RemotePlayerClient distantClient = new RemotePlayerClient(new GraphicalPlayerAdapter(),
                 hostName,
-                port);
+                port,
+                WireProtocol.BINARY);
 
         System.out.println(distantClient);
         new Thread(distantClient::run).start();
@@ -50,7 +50,7 @@ final class MapViewCreator {
         List<Node> routes = new ArrayList<>();
         List<Node> hovers = new ArrayList<>();
 
-        for (Route r : ChMap.routes()) {
+        for (Route r : observableGameState.map().routes()) {
             Group group = createGroup(r);
 
             group.setOnMouseClicked(e -> {
@@ -21,6 +21,7 @@ import static ch.epfl.tchu.game.Constants.FACE_UP_CARD_SLOTS;
 public final class ObservableGameState {
 
     private final PlayerId ownId;
+    private final TchuMap map;
     private PublicGameState publicGameState;
     private PlayerState playerState;
 
@@ -51,8 +52,14 @@ public final class ObservableGameState {
 
 
 
-    public ObservableGameState(PlayerId ownId) {
+    /**
+     * construit l'etat observable du jeu d'un joueur sur la carte donnee
+     * @param ownId propre identite du joueur
+     * @param map carte du jeu
+     */
+    public ObservableGameState(PlayerId ownId, TchuMap map) {
         this.ownId = ownId;
+        this.map = map;
         this.playerState = null;
         this.publicGameState = null;
         this.ticketsInDeckPercentage = new SimpleIntegerProperty();
@@ -78,6 +85,13 @@ public final class ObservableGameState {
 
     }
 
+    /**
+     * @return la carte du jeu
+     */
+    public TchuMap map() {
+        return map;
+    }
+
     /**
      * Methode qui met a jour l'état observale du jeu
      * @param newGameState le nouveau etat public du jeu
@@ -86,7 +100,7 @@ public final class ObservableGameState {
     public void setState(PublicGameState newGameState, PlayerState newPlayerState) {
         publicGameState = newGameState;
         playerState = newPlayerState;
-        ticketsInDeckPercentage.set(newGameState.ticketsCount() * 100 / ChMap.tickets().size());
+        ticketsInDeckPercentage.set(newGameState.ticketsCount() * 100 / map.tickets().size());
         cardsInDeckPercentage.set(newGameState.cardState().deckSize() * 100 / Constants.TOTAL_CARDS_COUNT);
 
         isCurrentPlayerProperty.set(ownId == newGameState.currentPlayerId());
@@ -106,16 +120,17 @@ public final class ObservableGameState {
         }
 
         for (Card c : Card.ALL) {
-            numberCardOfPlayer.get(c).set((int)newPlayerState.cards().stream().filter(c::equals).count());
+            numberCardOfPlayer.get(c).set(newPlayerState.cards().countOf(c));
         }
 
-        for (Route r : ChMap.routes()) {
+        Set<Route> claimedRoutes = new HashSet<>(newGameState.claimedRoutes());
+        for (Route r : map.routes()) {
             claimedRoute.get(r).set(ownId == newGameState.currentPlayerId() &&
                     routeOwnerProperty(r).get() == null &&
-                    routeOwnerProperty(r.neighbor()).get() == null &&
+                    routeOwnerProperty(map.neighbor(r)).get() == null &&
                     newPlayerState.canClaimRoute(r));
 
-            if(!newGameState.claimedRoutes().contains(r)) {
+            if(!claimedRoutes.contains(r)) {
                 routeOwnerProperty.get(r).set(null);
             }
 
@@ -152,7 +167,7 @@ public final class ObservableGameState {
      */
     private Map<Route, ObjectProperty<PlayerId>> createRoutePossession() {
         Map<Route, ObjectProperty<PlayerId>> routePossessions = new HashMap<>();
-        ChMap.routes().forEach(r -> {
+        map.routes().forEach(r -> {
             ObjectProperty<PlayerId> owner = new SimpleObjectProperty<>();
             owner.setValue(null);
             routePossessions.putIfAbsent(r, owner);
@@ -167,7 +182,7 @@ public final class ObservableGameState {
      * @return la map des proprietes contenant la disponibilite d'une route associe a cette derniere
      */
     private Map<Route, BooleanProperty> routeSetup(){
-        return ChMap.routes().stream().collect(Collectors.toMap(r -> r,
+        return map.routes().stream().collect(Collectors.toMap(r -> r,
                         r -> new SimpleBooleanProperty(false), (a, b) -> a));
     }
 
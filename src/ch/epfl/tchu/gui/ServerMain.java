@@ -1,16 +1,17 @@
 package ch.epfl.tchu.gui;
 
-import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.ChMap;
 import ch.epfl.tchu.game.Game;
 import ch.epfl.tchu.game.Player;
 import ch.epfl.tchu.game.PlayerId;
+import ch.epfl.tchu.game.TchuMap;
 import ch.epfl.tchu.net.RemotePlayerClient;
 import ch.epfl.tchu.net.RemotePlayerProxy;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
 import java.net.ServerSocket;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -35,6 +36,7 @@ public final class ServerMain extends Application {
         List<String> param = getParameters().getRaw();
         String firstName = param.size() > 0 ? param.get(0) : "Ada";
         String secondName = param.size() > 1 ? param.get(1) : "Charles";
+        TchuMap map = param.size() > 2 ? TchuMap.load(Path.of(param.get(2))) : ChMap.map();
 
         Map<PlayerId, String> playerNames = Map.of(
                 PlayerId.PLAYER_1, firstName,
@@ -46,7 +48,7 @@ public final class ServerMain extends Application {
                 PlayerId.PLAYER_1, new GraphicalPlayerAdapter(),
                 PlayerId.PLAYER_2, new RemotePlayerProxy(servSocket.accept()));
 
-        new Thread(() -> Game.play(players, SortedBag.of(ChMap.tickets()),
-                new Random())).start();
+        Game game = new Game(players, map, new Random());
+        new Thread(game::play).start();
     }
 }
\ No newline at end of file
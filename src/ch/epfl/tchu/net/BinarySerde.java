@@ -0,0 +1,133 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * interface représentant les objets capables d'écrire et de relire
+ * des valeurs d'un type donné sous forme binaire.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public interface BinarySerde<T> {
+
+    /**
+     * Methode appelee pour ecrire un objet sous forme binaire
+     *
+     * @param out         flot dans lequel ecrire
+     * @param toSerialize objet a ecrire
+     * @throws IOException en cas d'erreur d'entree/sortie
+     */
+    void write(DataOutput out, T toSerialize) throws IOException;
+
+    /**
+     * Methode appelee pour relire un objet ecrit par write
+     *
+     * @param in flot depuis lequel lire
+     * @return l'objet lu
+     * @throws IOException en cas d'erreur d'entree/sortie
+     */
+    T read(DataInput in) throws IOException;
+
+    /**
+     * fonction d'ecriture d'une valeur.
+     */
+    @FunctionalInterface
+    interface Writer<T> {
+        void write(DataOutput out, T toSerialize) throws IOException;
+    }
+
+    /**
+     * fonction de lecture d'une valeur.
+     */
+    @FunctionalInterface
+    interface Reader<T> {
+        T read(DataInput in) throws IOException;
+    }
+
+    /**
+     * Methode appelee pour obtenir le serde correspondant a la fonction d'ecriture et de lecture
+     *
+     * @param writer fonction d'ecriture
+     * @param reader fonction de lecture
+     * @return le serde correspondant aux deux fonctions
+     */
+    static <T> BinarySerde<T> of(Writer<T> writer, Reader<T> reader) {
+        return new BinarySerde<>() {
+            @Override
+            public void write(DataOutput out, T toSerialize) throws IOException {
+                writer.write(out, toSerialize);
+            }
+
+            @Override
+            public T read(DataInput in) throws IOException {
+                return reader.read(in);
+            }
+        };
+    }
+
+    /**
+     * Methode qui retourne le serde ecrivant chaque valeur d'un ensemble de valeurs enumerees
+     * sous la forme de son index (sur un octet)
+     *
+     * @param list liste de valeurs enumerees (au plus 256)
+     * @param <T>  type des valeurs
+     * @return le serde correspondant a l'ensemble passee en argument
+     */
+    static <T> BinarySerde<T> oneOf(List<T> list) {
+        Preconditions.checkArgument(!list.isEmpty() && list.size() <= 256);
+        List<T> values = List.copyOf(list);
+        Map<T, Integer> indices = new HashMap<>();
+        for (int i = 0; i < values.size(); ++i) {
+            indices.putIfAbsent(values.get(i), i);
+        }
+        return of((out, t) -> out.writeByte(indices.get(t)),
+                in -> values.get(in.readUnsignedByte()));
+    }
+
+    /**
+     * Methode qui donne le serde capable d'ecrire et de relire des listes (d'au plus 255 elements)
+     * de valeurs ecrites par le serde donne, precedees de leur nombre
+     *
+     * @param serde le serde des elements
+     * @param <T>   type des elements
+     * @return le serde capable d'ecrire et de relire des listes des valeurs
+     */
+    static <T> BinarySerde<List<T>> listOf(BinarySerde<T> serde) {
+        return of((out, l) -> {
+                    Preconditions.checkArgument(l.size() <= 255);
+                    out.writeByte(l.size());
+                    for (T t : l) {
+                        serde.write(out, t);
+                    }
+                },
+                in -> {
+                    int size = in.readUnsignedByte();
+                    List<T> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; ++i) {
+                        list.add(serde.read(in));
+                    }
+                    return Collections.unmodifiableList(list);
+                });
+    }
+
+    /**
+     * Methode qui donne le serde capable d'ecrire et de relire
+     * des multiensembles (d'au plus 255 elements) de valeurs ecrites par le serde donne
+     *
+     * @param serde le serde des elements
+     * @param <T>   type des elements
+     * @return le serde capable d'ecrire et de relire des multiensembles des valeurs
+     */
+    static <T extends Comparable<T>> BinarySerde<SortedBag<T>> bagOf(BinarySerde<T> serde) {
+        BinarySerde<List<T>> listSerde = listOf(serde);
+        return of((out, sb) -> listSerde.write(out, sb.toList()),
+                in -> SortedBag.of(listSerde.read(in)));
+    }
+}
@@ -0,0 +1,296 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * classe contenant les serdes binaires utilisées par le protocole WireProtocol.BINARY,
+ * pendants compacts de ceux de Serdes : les cartes, routes et billets sont écrits sous la forme
+ * de leur index (un octet, deux pour les cartes de plus de 256 routes ou billets), les multiensembles de cartes sous la forme du nombre d'exemplaires
+ * de chaque carte et les états sous la forme de champs de taille fixe.
+ * Les serdes des routes, des billets et des etats qui en contiennent dependent de la carte de la partie,
+ * et sont donc construits pour une carte donnee ; la carte elle-meme est ecrite sous la forme de sa description.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class BinarySerdes {
+
+    private BinarySerdes() {}
+
+    /**
+     * @param map une carte
+     * @return le serde ecrivant une route de la carte donnee sous la forme de sa position dans la carte
+     */
+    public static BinarySerde<Route> oneOfRoute(TchuMap map) {
+        return indexOf(map.routes(), map::indexOf);
+    }
+
+    /**
+     * @param map une carte
+     * @return le serde ecrivant un billet de la carte donnee sous la forme de sa position dans la carte
+     */
+    public static BinarySerde<Ticket> oneOfTicket(TchuMap map) {
+        return indexOf(map.tickets(), map::indexOf);
+    }
+
+    /**
+     * @param map une carte
+     * @return le serde ecrivant un nombre de billets de la carte donnee, sur un octet si elle en a au plus 255
+     */
+    static BinarySerde<Integer> ticketCount(TchuMap map) {
+        return map.tickets().size() <= 255 ? UNSIGNED_BYTE : UNSIGNED_SHORT;
+    }
+
+    // serde ecrivant un element sous la forme de sa position dans la liste donnee, sur un octet si possible
+    private static <T> BinarySerde<T> indexOf(List<T> values, ToIntFunction<T> indices) {
+        Preconditions.checkArgument(!values.isEmpty() && values.size() <= 1 << Short.SIZE);
+        return values.size() <= 1 << Byte.SIZE ?
+                BinarySerde.of((out, t) -> out.writeByte(Objects.checkIndex(indices.applyAsInt(t), values.size())),
+                        in -> values.get(in.readUnsignedByte())) :
+                BinarySerde.of((out, t) -> out.writeShort(Objects.checkIndex(indices.applyAsInt(t), values.size())),
+                        in -> values.get(in.readUnsignedShort()));
+    }
+
+    /**
+     * Serde utiliser pour ecrire un entier quelconque sur quatre octets
+     */
+    public static final BinarySerde<Integer> INTEGER = BinarySerde.of(
+            (out, i) -> out.writeInt(i),
+            in -> in.readInt()
+    );
+
+    /**
+     * Serde utiliser pour ecrire un entier compris entre -128 et 127 sur un octet
+     */
+    public static final BinarySerde<Integer> BYTE = BinarySerde.of(
+            (out, i) -> {
+                Preconditions.checkArgument(Byte.MIN_VALUE <= i && i <= Byte.MAX_VALUE);
+                out.writeByte(i);
+            },
+            in -> (int) in.readByte()
+    );
+
+    /**
+     * Serde utiliser pour ecrire un entier compris entre 0 et 255 sur un octet
+     */
+    public static final BinarySerde<Integer> UNSIGNED_BYTE = BinarySerde.of(
+            (out, i) -> {
+                Preconditions.checkArgument(0 <= i && i <= 255);
+                out.writeByte(i);
+            },
+            in -> in.readUnsignedByte()
+    );
+
+    /**
+     * Serde utiliser pour ecrire un entier compris entre 0 et 65535 sur deux octets
+     */
+    public static final BinarySerde<Integer> UNSIGNED_SHORT = BinarySerde.of(
+            (out, i) -> {
+                Preconditions.checkArgument(0 <= i && i <= 0xFFFF);
+                out.writeShort(i);
+            },
+            in -> in.readUnsignedShort()
+    );
+
+    /**
+     * Serde utiliser pour ecrire une String en UTF-8
+     */
+    public static final BinarySerde<String> STRING = BinarySerde.of(
+            (out, s) -> out.writeUTF(s),
+            in -> in.readUTF()
+    );
+
+    /**
+     * Serde utiliser pour ecrire une identite de joueur (PlayerId)
+     */
+    public static final BinarySerde<PlayerId> ONE_OF_PLAYER_ID = BinarySerde.oneOf(PlayerId.ALL);
+
+    /**
+     * Serde utiliser pour ecrire une identite de joueur qui peut etre nulle (sous la forme de l'octet 255)
+     */
+    public static final BinarySerde<PlayerId> OPTIONAL_PLAYER_ID = BinarySerde.of(
+            (out, id) -> out.writeByte(id == null ? 255 : id.ordinal()),
+            in -> {
+                int i = in.readUnsignedByte();
+                return i == 255 ? null : PlayerId.ALL.get(i);
+            }
+    );
+
+    /**
+     * Serde utiliser pour ecrire une action de jeu (TurnKind)
+     */
+    public static final BinarySerde<Player.TurnKind> ONE_OF_TURN_KIND = BinarySerde.oneOf(Player.TurnKind.ALL);
+
+    /**
+     * Serde utiliser pour ecrire une carte (Card)
+     */
+    public static final BinarySerde<Card> ONE_OF_CARD = BinarySerde.oneOf(Card.ALL);
+
+    /**
+     * Serde utiliser pour ecrire une carte (TchuMap) sous la forme de sa description (voir TchuMap.text) en UTF-8,
+     * precedee de sa taille sur quatre octets, la description d'une grande carte depassant la limite de STRING
+     */
+    public static final BinarySerde<TchuMap> TCHU_MAP = BinarySerde.of(
+            (out, m) -> {
+                byte[] text = m.text().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(text.length);
+                out.write(text);
+            },
+            in -> {
+                byte[] text = new byte[in.readInt()];
+                in.readFully(text);
+                return TchuMap.parse(new String(text, StandardCharsets.UTF_8));
+            }
+    );
+
+    /**
+     * Serde utiliser pour ecrire une liste de Strings
+     */
+    public static final BinarySerde<List<String>> LIST_OF_STRING = BinarySerde.listOf(STRING);
+
+    /**
+     * Serde utiliser pour ecrire une liste de cartes
+     */
+    public static final BinarySerde<List<Card>> LIST_OF_CARD = BinarySerde.listOf(ONE_OF_CARD);
+
+    /**
+     * @param map une carte
+     * @return le serde ecrivant une liste de routes de la carte donnee
+     */
+    public static BinarySerde<List<Route>> listOfRoute(TchuMap map) {
+        return BinarySerde.listOf(oneOfRoute(map));
+    }
+
+    /**
+     * Serde utiliser pour ecrire un multiensemble de cartes (CardBag)
+     * sous la forme du nombre d'exemplaires de chacune des cartes (un octet par type de carte)
+     */
+    public static final BinarySerde<CardBag> CARD_BAG = BinarySerde.of(
+            (out, cb) -> {
+                for (Card c : Card.ALL) {
+                    out.writeByte(cb.countOf(c));
+                }
+            },
+            in -> {
+                CardBag.Builder builder = new CardBag.Builder();
+                for (Card c : Card.ALL) {
+                    builder.add(in.readUnsignedByte(), c);
+                }
+                return builder.build();
+            }
+    );
+
+    /**
+     * Serde utiliser pour ecrire un multiensemble de cartes, sous la meme forme que CARD_BAG
+     */
+    public static final BinarySerde<SortedBag<Card>> BAG_OF_CARD = BinarySerde.of(
+            (out, sb) -> CARD_BAG.write(out, CardBag.of(sb)),
+            in -> CARD_BAG.read(in).toSortedBag()
+    );
+
+    /**
+     * @param map une carte
+     * @return le serde ecrivant un multiensemble de billets de la carte donnee
+     */
+    public static BinarySerde<SortedBag<Ticket>> bagOfTicket(TchuMap map) {
+        return BinarySerde.bagOf(oneOfTicket(map));
+    }
+
+    /**
+     * Serde utiliser pour ecrire une liste de multiensembles de cartes
+     */
+    public static final BinarySerde<List<SortedBag<Card>>> LIST_OF_CARD_BAGS = BinarySerde.listOf(BAG_OF_CARD);
+
+    /**
+     * Serde utiliser pour ecrire un etat de cartes public (PublicCardState) :
+     * les cartes face visible, puis la taille de la pioche et celle de la defausse
+     */
+    public static final BinarySerde<PublicCardState> OF_PUBLIC_CARD_STATE = BinarySerde.of(
+            (out, pcs) -> {
+                for (Card c : pcs.faceUpCards()) {
+                    ONE_OF_CARD.write(out, c);
+                }
+                UNSIGNED_BYTE.write(out, pcs.deckSize());
+                UNSIGNED_BYTE.write(out, pcs.discardsSize());
+            },
+            in -> {
+                List<Card> faceUpCards = new ArrayList<>(Constants.FACE_UP_CARDS_COUNT);
+                for (int i = 0; i < Constants.FACE_UP_CARDS_COUNT; ++i) {
+                    faceUpCards.add(ONE_OF_CARD.read(in));
+                }
+                return new PublicCardState(faceUpCards, UNSIGNED_BYTE.read(in), UNSIGNED_BYTE.read(in));
+            }
+    );
+
+    /**
+     * @param map carte de la partie
+     * @return le serde ecrivant un etat de joueur public (PublicPlayerState) dont les routes
+     * sont celles de la carte donnee
+     */
+    public static BinarySerde<PublicPlayerState> ofPublicPlayerState(TchuMap map) {
+        BinarySerde<Integer> ticketCount = ticketCount(map);
+        BinarySerde<List<Route>> listOfRoute = listOfRoute(map);
+        return BinarySerde.of(
+                (out, pps) -> {
+                    ticketCount.write(out, pps.ticketCount());
+                    UNSIGNED_BYTE.write(out, pps.cardCount());
+                    listOfRoute.write(out, pps.routes());
+                },
+                in -> new PublicPlayerState(ticketCount.read(in), UNSIGNED_BYTE.read(in), listOfRoute.read(in))
+        );
+    }
+
+    /**
+     * @param map carte de la partie
+     * @return le serde ecrivant un etat de joueur (PlayerState) dont les routes et les billets
+     * sont ceux de la carte donnee
+     */
+    public static BinarySerde<PlayerState> ofPlayerState(TchuMap map) {
+        BinarySerde<SortedBag<Ticket>> bagOfTicket = bagOfTicket(map);
+        BinarySerde<List<Route>> listOfRoute = listOfRoute(map);
+        return BinarySerde.of(
+                (out, ps) -> {
+                    bagOfTicket.write(out, ps.tickets());
+                    CARD_BAG.write(out, ps.cards());
+                    listOfRoute.write(out, ps.routes());
+                },
+                in -> new PlayerState(bagOfTicket.read(in), CARD_BAG.read(in), listOfRoute.read(in))
+        );
+    }
+
+    /**
+     * @param map carte de la partie
+     * @return le serde ecrivant un etat de jeu public (PublicGameState) dont les routes
+     * sont celles de la carte donnee
+     */
+    public static BinarySerde<PublicGameState> ofPublicGameState(TchuMap map) {
+        BinarySerde<Integer> ticketCount = ticketCount(map);
+        BinarySerde<PublicPlayerState> ofPublicPlayerState = ofPublicPlayerState(map);
+        return BinarySerde.of(
+                (out, pgs) -> {
+                    ticketCount.write(out, pgs.ticketsCount());
+                    OF_PUBLIC_CARD_STATE.write(out, pgs.cardState());
+                    ONE_OF_PLAYER_ID.write(out, pgs.currentPlayerId());
+                    ofPublicPlayerState.write(out, pgs.playerState(PlayerId.PLAYER_1));
+                    ofPublicPlayerState.write(out, pgs.playerState(PlayerId.PLAYER_2));
+                    OPTIONAL_PLAYER_ID.write(out, pgs.lastPlayer());
+                },
+                in -> {
+                    int ticketsCount = ticketCount.read(in);
+                    PublicCardState cardState = OF_PUBLIC_CARD_STATE.read(in);
+                    PlayerId currentPlayerId = ONE_OF_PLAYER_ID.read(in);
+                    PublicPlayerState playerState1 = ofPublicPlayerState.read(in);
+                    PublicPlayerState playerState2 = ofPublicPlayerState.read(in);
+                    return new PublicGameState(ticketsCount, cardState, currentPlayerId,
+                            Map.of(PlayerId.PLAYER_1, playerState1, PlayerId.PLAYER_2, playerState2),
+                            OPTIONAL_PLAYER_ID.read(in));
+                }
+        );
+    }
+}
@@ -0,0 +1,62 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.TchuMap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * classe contenant le programme d'un serveur de parties sans interface graphique :
+ * il ouvre un salon (Lobby) qui accepte autant de clients (RemotePlayerClient) que nécessaire,
+ * les apparie deux à deux dans l'ordre de leur arrivée et fait jouer chaque paire dans une partie,
+ * au plus un nombre donné de parties étant jouées simultanément.
+ * Les journaux des parties en cours sont sauvegardés, de sorte que celles-ci puissent être reprises
+ * si le serveur est arrêté puis relancé.
+ * Les parties se jouent sur la carte de la Suisse (ChMap), ou sur une carte lue dans un fichier (voir TchuMap),
+ * que les clients reçoivent au début de chaque partie.
+ * L'état du salon est affiché régulièrement.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class GameServer {
+
+    private static final int DEFAULT_PORT = 5108;
+    private static final int DEFAULT_MAX_SESSIONS = 64;
+    private static final long STATS_PERIOD_SECONDS = 10;
+    private static final String DEFAULT_JOURNAL_DIRECTORY = "journaux";
+
+    private GameServer() {}
+
+    /**
+     * lance le serveur.
+     *
+     * @param args port d'ecoute (5108 par defaut), nombre maximal de parties simultanees (64 par defaut)
+     *             repertoire des journaux (journaux par defaut) et fichier de la carte (ChMap par defaut)
+     * @throws IOException en cas d'erreur d'entree/sortie du serveur
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxSessions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_SESSIONS;
+        Path journalDirectory = Path.of(args.length > 2 ? args[2] : DEFAULT_JOURNAL_DIRECTORY);
+        TchuMap map = args.length > 3 ? TchuMap.load(Path.of(args[3])) : ChMap.map();
+        ScheduledExecutorService stats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            return t;
+        });
+        try (Lobby lobby = new Lobby(port, maxSessions, journalDirectory, map)) {
+            System.out.printf("serveur en attente de joueurs sur le port %d, %d parties a reprendre%n",
+                    lobby.port(), lobby.resumableGames());
+            stats.scheduleAtFixedRate(() -> System.out.println(lobby),
+                    STATS_PERIOD_SECONDS, STATS_PERIOD_SECONDS, TimeUnit.SECONDS);
+            lobby.run();
+        } finally {
+            stats.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.game.GameJournal;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * classe représentant le répertoire dans lequel un serveur sauvegarde le journal (GameJournal) de chacune
+ * de ses parties en cours, de sorte qu'elles puissent être reprises après un arrêt brutal du serveur.
+ * Le journal contenant la graine du générateur aléatoire et toutes les décisions des joueurs, il suffit à
+ * reconstituer l'état complet du jeu (pioches, défausse et générateur compris) en quelques centaines d'octets.
+ * Les sauvegardes sont faites par un fil d'exécution qui leur est propre, périodiquement et seulement pour les
+ * journaux qui ont changé : elles ne retardent jamais les parties. Chaque fichier est écrit à côté de sa version
+ * précédente puis renommé, de sorte qu'un arrêt au milieu d'une sauvegarde laisse intacte la précédente.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+final class JournalStore implements Closeable {
+
+    /**
+     * periode des sauvegardes, en millisecondes.
+     */
+    static final long SAVE_PERIOD_MILLIS = 1_000;
+
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final ScheduledExecutorService saver;
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * ouvre le repertoire donne, en le creant s'il n'existe pas.
+     *
+     * @param directory repertoire des journaux
+     * @throws IOException en cas d'erreur d'entree/sortie
+     */
+    JournalStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.saver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sauvegarde des journaux");
+            t.setDaemon(true);
+            return t;
+        });
+        saver.scheduleWithFixedDelay(this::saveAll, SAVE_PERIOD_MILLIS, SAVE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return les journaux des parties interrompues trouves dans le repertoire, associes a leur fichier ;
+     *         les fichiers illisibles sont ignores
+     * @throws IOException en cas d'erreur d'entree/sortie
+     */
+    Map<Path, GameJournal> unfinished() throws IOException {
+        Map<Path, GameJournal> journals = new HashMap<>();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        for (Path file : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                journals.put(file, GameJournal.readFrom(in));
+            } catch (IOException | RuntimeException e) {
+                //fichier tronque ou d'un autre format : il n'y a rien a reprendre
+            }
+        }
+        return journals;
+    }
+
+    /**
+     * commence a sauvegarder periodiquement le journal de l'enregistreur donne.
+     *
+     * @param recorder enregistreur d'une partie en cours
+     * @param file     fichier du journal, ou null pour en creer un nouveau
+     * @return le fichier du journal
+     */
+    Path track(GameJournal.Recorder recorder, Path file) {
+        Path target = file != null ? file : directory.resolve(Long.toHexString(recorder.journal().seed()) + SUFFIX);
+        entries.put(target, new Entry(recorder));
+        return target;
+    }
+
+    /**
+     * cesse de sauvegarder le journal du fichier donne, puis, selon que la partie peut etre reprise ou non,
+     * le sauvegarde une derniere fois ou le supprime (sur le fil des sauvegardes).
+     *
+     * @param file fichier du journal
+     * @param keep vrai ssi la partie doit pouvoir etre reprise
+     */
+    void untrack(Path file, boolean keep) {
+        Entry entry = entries.remove(file);
+        saver.execute(() -> {
+            try {
+                if (keep && entry != null) {
+                    save(file, entry.recorder.journal());
+                } else if (!keep) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                //la sauvegarde precedente (s'il y en a une) demeure
+            }
+        });
+    }
+
+    /**
+     * arrete les sauvegardes periodiques, apres une derniere sauvegarde des journaux suivis.
+     */
+    @Override
+    public void close() {
+        saver.execute(this::saveAll);
+        saver.shutdown();
+        try {
+            saver.awaitTermination(SAVE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void saveAll() {
+        entries.forEach((file, entry) -> {
+            int size = entry.recorder.decisionsSize();
+            if (size == entry.savedSize) {
+                return;
+            }
+            try {
+                save(file, entry.recorder.journal());
+                entry.savedSize = size;
+            } catch (IOException e) {
+                //nouvelle tentative a la periode suivante
+            }
+        });
+    }
+
+    private void save(Path file, GameJournal journal) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            journal.writeTo(out);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * classe représentant un journal suivi et la taille de sa dernière sauvegarde.
+     */
+    private static final class Entry {
+        private final GameJournal.Recorder recorder;
+        private int savedSize = -1;
+
+        private Entry(GameJournal.Recorder recorder) {
+            this.recorder = recorder;
+        }
+    }
+}
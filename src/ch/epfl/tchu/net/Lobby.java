@@ -0,0 +1,620 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.sim.GreedyPlayer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * classe représentant un salon de parties : les clients s'y connectent une fois, annoncent leur nom
+ * (SEND_NAME), attendent dans une file, puis sont appariés deux à deux, dans l'ordre de leur arrivée,
+ * en sessions. Chaque session joue une partie (Game), sur la carte du salon, au travers de deux RemotePlayerProxy,
+ * sur un exécuteur dont le nombre de fils borne le nombre de parties jouées simultanément ;
+ * les sessions en surnombre attendent qu'un fil se libère.
+ * Le salon tient à jour le nombre de joueurs en attente, de sessions en attente, en cours et terminées,
+ * ainsi que les durées d'attente et de jeu et le temps de réponse des clients de chaque session.
+ * Un client peut aussi se connecter en spectateur d'une session formée et pas encore terminée,
+ * en ajoutant l'identifiant de celle-ci à l'annonce de son protocole (voir RemoteSpectatorClient).
+ * L'annonce et le nom d'un client sont lus à mesure qu'ils arrivent, sans bloquer aucun fil : un client muet
+ * ne coûte que sa connexion, fermée s'il ne s'est pas annoncé à temps.
+ * Un joueur qui se déconnecte (ou ne répond pas dans les REPLY_TIMEOUT_MILLIS) est remplacé par un GreedyPlayer jusqu'à la fin
+ * de la partie (voir StandInPlayer) ; la partie n'est interrompue que lorsque ses deux joueurs se sont déconnectés.
+ * Si un répertoire de journaux lui est donné, le salon y sauvegarde le journal de chaque partie en cours
+ * (voir JournalStore) ; les parties interrompues par un arrêt du serveur ou la déconnexion des deux joueurs
+ * y demeurent et sont reprises (après un redémarrage du serveur, le cas échéant) lorsque deux clients
+ * portant les noms de leurs joueurs se connectent, plutôt que d'apparier ceux-ci avec d'autres.
+ * Un client portant le nom d'un joueur d'une partie interrompue n'attend l'autre joueur que PARTNER_TIMEOUT_MILLIS,
+ * puis est apparié normalement ; une partie dont les joueurs ne sont pas revenus dans les RESUME_TIMEOUT_MILLIS
+ * est abandonnée, et son journal supprimé.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class Lobby implements Closeable {
+
+    /**
+     * temps maximal accorde a un client pour annoncer son protocole et son nom, en millisecondes.
+     */
+    public static final long NAME_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * temps maximal accorde a un joueur d'une session pour repondre a une question, en millisecondes,
+     * apres quoi il est tenu pour deconnecte.
+     */
+    public static final long REPLY_TIMEOUT_MILLIS = 120_000;
+
+    /**
+     * temps pendant lequel une partie interrompue attend que ses joueurs se reconnectent, en millisecondes,
+     * apres quoi elle est abandonnee.
+     */
+    public static final long RESUME_TIMEOUT_MILLIS = 600_000;
+
+    /**
+     * temps maximal pendant lequel un client reconnecte a une partie interrompue attend l'autre joueur,
+     * en millisecondes, apres quoi il est apparie normalement.
+     */
+    public static final long PARTNER_TIMEOUT_MILLIS = 30_000;
+
+    //fils terminant l'accueil des clients (une fois leur nom recu), fermant ceux qui ne s'annoncent pas a temps
+    //et abandonnant les attentes des parties interrompues
+    private static final int GREETING_THREADS = 2;
+
+    private final TchuMap map;
+    private final NioServer server;
+    private final ScheduledThreadPoolExecutor greeters;
+    private final ThreadPoolExecutor sessionExecutor;
+    private final JournalStore journalStore;
+    private final Random seeds = new Random();
+    private final Deque<WaitingPlayer> waitingPlayers = new ArrayDeque<>();
+    private final List<ResumableGame> resumableGames = new ArrayList<>();
+    private final Map<Long, Session> openSessions = new ConcurrentHashMap<>();
+    private final Set<Session> activeSessions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sessionIds = new AtomicLong();
+    private final AtomicLong completedSessions = new AtomicLong();
+    private final AtomicLong abortedSessions = new AtomicLong();
+    private final AtomicLong replacedPlayers = new AtomicLong();
+    private final AtomicLong totalSessionNanos = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    /**
+     * construit un salon ecoutant sur le port donne ; il ne traite les connexions qu'une fois run appelee.
+     *
+     * @param port        port d'ecoute (0 pour un port libre quelconque)
+     * @param maxSessions nombre maximal de parties jouees simultanement
+     * @throws IOException              en cas d'erreur d'entree/sortie
+     * @throws IllegalArgumentException si le nombre maximal de parties n'est pas positif
+     */
+    public Lobby(int port, int maxSessions) throws IOException {
+        this(port, maxSessions, null, ChMap.map());
+    }
+
+    /**
+     * construit un salon ecoutant sur le port donne, qui sauvegarde les journaux de ses parties dans
+     * le repertoire donne et reprend celles qui y ont ete interrompues ;
+     * il ne traite les connexions qu'une fois run appelee.
+     *
+     * @param port             port d'ecoute (0 pour un port libre quelconque)
+     * @param maxSessions      nombre maximal de parties jouees simultanement
+     * @param journalDirectory repertoire des journaux (cree s'il n'existe pas), ou null pour n'en sauvegarder aucun
+     * @param map              carte des nouvelles parties, les parties reprises gardant celle de leur journal
+     * @throws IOException              en cas d'erreur d'entree/sortie
+     * @throws IllegalArgumentException si le nombre maximal de parties n'est pas positif
+     */
+    public Lobby(int port, int maxSessions, Path journalDirectory, TchuMap map) throws IOException {
+        Preconditions.checkArgument(maxSessions > 0);
+        this.map = Objects.requireNonNull(map);
+        this.greeters = new ScheduledThreadPoolExecutor(GREETING_THREADS);
+        greeters.setRemoveOnCancelPolicy(true);
+        this.journalStore = journalDirectory == null ? null : new JournalStore(journalDirectory);
+        if (journalStore != null) {
+            journalStore.unfinished().forEach((file, journal) -> {
+                if (!journal.playerNames().isEmpty()) {
+                    addResumable(new ResumableGame(file, journal));
+                }
+            });
+        }
+        this.server = new NioServer(port, this::greet);
+        this.sessionExecutor = new ThreadPoolExecutor(maxSessions, maxSessions,
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
+    /**
+     * @return le port sur lequel le salon ecoute
+     */
+    public int port() {
+        return server.port();
+    }
+
+    /**
+     * execute la boucle du serveur jusqu'a ce que le salon soit ferme.
+     *
+     * @throws IOException en cas d'erreur d'entree/sortie du serveur
+     */
+    public void run() throws IOException {
+        server.run();
+    }
+
+    /**
+     * ferme le salon : plus aucune connexion n'est acceptee, les connexions ouvertes sont fermees,
+     * ce qui interrompt les parties en cours.
+     */
+    @Override
+    public void close() {
+        server.close();
+        greeters.shutdownNow();
+        sessionExecutor.shutdownNow();
+        if (journalStore != null) {
+            journalStore.close();
+        }
+    }
+
+    /**
+     * @return le nombre de joueurs ayant annonce leur nom et attendant un adversaire
+     */
+    public synchronized int waitingPlayers() {
+        return waitingPlayers.size();
+    }
+
+    /**
+     * @return le nombre de parties interrompues qui attendent que leurs joueurs se reconnectent
+     */
+    public synchronized int resumableGames() {
+        return resumableGames.size();
+    }
+
+    /**
+     * @return le nombre de sessions formees qui attendent qu'un fil se libere pour commencer
+     */
+    public int pendingSessions() {
+        return sessionExecutor.getQueue().size();
+    }
+
+    /**
+     * @return les sessions en cours
+     */
+    public List<Session> activeSessions() {
+        return List.copyOf(activeSessions);
+    }
+
+    /**
+     * @return le nombre de sessions dont la partie est allee a son terme
+     */
+    public long completedSessions() {
+        return completedSessions.get();
+    }
+
+    /**
+     * @return le nombre de sessions interrompues (deconnexion ou message invalide d'un client)
+     */
+    public long abortedSessions() {
+        return abortedSessions.get();
+    }
+
+    /**
+     * @return le nombre de joueurs qui se sont deconnectes en cours de partie et ont ete remplaces
+     */
+    public long replacedPlayers() {
+        return replacedPlayers.get();
+    }
+
+    /**
+     * appelee par le fil du selecteur pour chaque nouvelle connexion : commence l'accueil du client,
+     * qui lit son annonce, puis lui demande son nom et le place dans la file d'attente, ou, s'il s'agit
+     * d'un spectateur, l'ajoute aux spectateurs de la session demandee.
+     */
+    private void greet(NioServer.Connection connection) {
+        new Greeting(connection).start();
+    }
+
+    private void spectate(NioServer.Connection connection, WireProtocol protocol, long sessionId) {
+        Session session = openSessions.get(sessionId);
+        if (session == null) {
+            connection.close();
+            return;
+        }
+        session.broadcast.attach(connection, protocol);
+    }
+
+    private void enqueue(WaitingPlayer player) {
+        List<Session> newSessions = new ArrayList<>();
+        synchronized (this) {
+            ResumableGame resumable = resumableGames.stream()
+                    .filter(g -> g.accepts(player))
+                    .findFirst()
+                    .orElse(null);
+            if (resumable != null) {
+                resumable.add(player);
+                if (resumable.isReady()) {
+                    resumableGames.remove(resumable);
+                    newSessions.add(new Session(sessionIds.incrementAndGet(),
+                            resumable.players.get(PlayerId.PLAYER_1), resumable.players.get(PlayerId.PLAYER_2),
+                            resumable));
+                } else {
+                    greeters.schedule(() -> stopWaiting(resumable, player),
+                            PARTNER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } else {
+                pair(player, newSessions);
+            }
+        }
+        start(newSessions);
+    }
+
+    /**
+     * ajoute le joueur donne a la file d'attente et forme les sessions possibles ; appelee sous le verrou du salon.
+     */
+    private void pair(WaitingPlayer player, List<Session> newSessions) {
+        waitingPlayers.addLast(player);
+        waitingPlayers.removeIf(p -> !p.connection.isOpen());
+        while (waitingPlayers.size() >= PlayerId.COUNT) {
+            newSessions.add(new Session(sessionIds.incrementAndGet(),
+                    waitingPlayers.removeFirst(), waitingPlayers.removeFirst(), null));
+        }
+    }
+
+    /**
+     * ajoute une partie interrompue a celles qui attendent leurs joueurs, jusqu'a RESUME_TIMEOUT_MILLIS.
+     */
+    private synchronized void addResumable(ResumableGame game) {
+        resumableGames.add(game);
+        greeters.schedule(() -> abandon(game), RESUME_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * apparie normalement le joueur donne, s'il attend toujours l'autre joueur de la partie interrompue donnee.
+     */
+    private void stopWaiting(ResumableGame game, WaitingPlayer player) {
+        List<Session> newSessions = new ArrayList<>();
+        synchronized (this) {
+            if (!resumableGames.contains(game) || !game.remove(player)) {
+                return;
+            }
+            pair(player, newSessions);
+        }
+        start(newSessions);
+    }
+
+    /**
+     * abandonne la partie interrompue donnee, si ses joueurs ne sont pas revenus : son journal est supprime
+     * et ceux qui l'attendaient sont apparies normalement.
+     */
+    private void abandon(ResumableGame game) {
+        List<Session> newSessions = new ArrayList<>();
+        synchronized (this) {
+            if (!resumableGames.remove(game)) {
+                return;
+            }
+            game.players.values().forEach(p -> pair(p, newSessions));
+        }
+        journalStore.untrack(game.file, false);
+        start(newSessions);
+    }
+
+    private void start(List<Session> newSessions) {
+        for (Session session : newSessions) {
+            openSessions.put(session.id, session);
+            try {
+                sessionExecutor.execute(session::play);
+            } catch (RejectedExecutionException e) {
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * classe représentant l'accueil d'un client : son annonce, puis sa réponse à SEND_NAME, sont lues par le fil
+     * du sélecteur une fois entièrement reçues, et donc sans bloquer. La connexion est fermée si l'accueil
+     * n'est pas terminé après NAME_TIMEOUT_MILLIS.
+     */
+    private final class Greeting {
+        private final NioServer.Connection connection;
+        private WireProtocol protocol;
+        private RemotePlayerProxy proxy;
+        private ScheduledFuture<?> timeout;
+        private boolean done;
+
+        private Greeting(NioServer.Connection connection) {
+            this.connection = connection;
+        }
+
+        private synchronized void start() {
+            connection.onReceived(this::onReceived);
+            timeout = greeters.schedule(this::expire, NAME_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        //fil du selecteur
+        private void onReceived() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+            }
+            byte[] received = connection.receivedBytes();
+            try {
+                if (protocol == null) {
+                    int end = indexOf(received, (byte) '\n');
+                    if (end < 0) {
+                        Preconditions.checkArgument(received.length <= MessageChannel.MAX_ANNOUNCEMENT_LENGTH);
+                        return;
+                    }
+                    String[] announcement = MessageChannel.readAnnouncement(connection.inputStream()).split(" ");
+                    Preconditions.checkArgument(announcement.length <= 2);
+                    protocol = WireProtocol.valueOf(announcement[0]);
+                    if (announcement.length == 2) {
+                        long sessionId = Long.parseLong(announcement[1]);
+                        complete(() -> spectate(connection, protocol, sessionId));
+                        return;
+                    }
+                    proxy = new RemotePlayerProxy(connection.inputStream(), connection.outputStream(), protocol);
+                    proxy.requestName();
+                    received = Arrays.copyOfRange(received, end + 1, received.length);
+                }
+                if (MessageChannel.startsWithStringReply(protocol, received)) {
+                    complete(() -> {
+                        WaitingPlayer player;
+                        try {
+                            player = new WaitingPlayer(connection, proxy, proxy.getName());
+                        } catch (RuntimeException e) {
+                            connection.close();
+                            return;
+                        }
+                        enqueue(player);
+                    });
+                }
+            } catch (IOException | RuntimeException e) {
+                if (finish()) {
+                    connection.close();
+                }
+            }
+        }
+
+        private void complete(Runnable task) {
+            if (finish()) {
+                greeters.execute(task);
+            }
+        }
+
+        private void expire() {
+            if (finish()) {
+                connection.close();
+            }
+        }
+
+        private synchronized boolean finish() {
+            if (done) {
+                return false;
+            }
+            done = true;
+            connection.onReceived(null);
+            timeout.cancel(false);
+            return true;
+        }
+
+        private int indexOf(byte[] bytes, byte b) {
+            for (int i = 0; i < bytes.length; ++i) {
+                if (bytes[i] == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * classe représentant un joueur ayant annoncé son nom et attendant un adversaire.
+     */
+    private static final class WaitingPlayer {
+        private final NioServer.Connection connection;
+        private final RemotePlayerProxy proxy;
+        private final String name;
+        private final long enqueuedAt = System.nanoTime();
+
+        private WaitingPlayer(NioServer.Connection connection, RemotePlayerProxy proxy, String name) {
+            this.connection = connection;
+            this.proxy = proxy;
+            this.name = name;
+        }
+    }
+
+    /**
+     * classe représentant une partie interrompue et les joueurs qui s'y sont déjà reconnectés.
+     */
+    private static final class ResumableGame {
+        private final Path file;
+        private final GameJournal journal;
+        private final Map<PlayerId, WaitingPlayer> players = new EnumMap<>(PlayerId.class);
+
+        private ResumableGame(Path file, GameJournal journal) {
+            this.file = file;
+            this.journal = journal;
+        }
+
+        private PlayerId freeSlot(String name) {
+            for (PlayerId id : PlayerId.ALL) {
+                WaitingPlayer p = players.get(id);
+                if (journal.playerNames().get(id).equals(name) && (p == null || !p.connection.isOpen())) {
+                    return id;
+                }
+            }
+            return null;
+        }
+
+        private boolean accepts(WaitingPlayer player) {
+            return freeSlot(player.name) != null;
+        }
+
+        private void add(WaitingPlayer player) {
+            players.put(freeSlot(player.name), player);
+        }
+
+        private boolean remove(WaitingPlayer player) {
+            return players.values().remove(player);
+        }
+
+        private boolean isReady() {
+            return players.size() == PlayerId.COUNT && players.values().stream().allMatch(p -> p.connection.isOpen());
+        }
+    }
+
+    /**
+     * classe représentant une session : une partie entre deux joueurs du salon.
+     */
+    public final class Session {
+        private final long id;
+        private final WaitingPlayer player1;
+        private final WaitingPlayer player2;
+        private final long createdAt = System.nanoTime();
+        private final SpectatorBroadcast broadcast = new SpectatorBroadcast();
+        private final ResumableGame resumed;
+        private volatile long startedAt;
+        private volatile Game game;
+
+        private Session(long id, WaitingPlayer player1, WaitingPlayer player2, ResumableGame resumed) {
+            this.id = id;
+            this.player1 = player1;
+            this.player2 = player2;
+            this.resumed = resumed;
+        }
+
+        /**
+         * @return vrai ssi la session reprend une partie interrompue
+         */
+        public boolean isResumed() {
+            return resumed != null;
+        }
+
+        /**
+         * @return l'identifiant de la session, attribue dans l'ordre de leur formation
+         */
+        public long id() {
+            return id;
+        }
+
+        /**
+         * @return les noms des deux joueurs
+         */
+        public Map<PlayerId, String> playerNames() {
+            return Map.of(PlayerId.PLAYER_1, player1.name, PlayerId.PLAYER_2, player2.name);
+        }
+
+        /**
+         * @return le nombre de spectateurs de la session
+         */
+        public int spectatorCount() {
+            return broadcast.spectatorCount();
+        }
+
+        /**
+         * @return le nombre d'etats qui n'ont pas ete envoyes a un spectateur trop lent
+         */
+        public long droppedSpectatorStates() {
+            return broadcast.droppedStates();
+        }
+
+        /**
+         * @return le nombre de tours joues jusqu'a present
+         */
+        public int turnCount() {
+            Game g = game;
+            return g == null ? 0 : g.turnCount();
+        }
+
+        /**
+         * @return la duree (en secondes) ecoulee depuis le debut de la partie
+         */
+        public double elapsedSeconds() {
+            return startedAt == 0 ? 0 : (System.nanoTime() - startedAt) / 1e9;
+        }
+
+        /**
+         * @return le temps de reponse moyen (en millisecondes) des clients de la session
+         */
+        public double meanReplyMillis() {
+            long replies = player1.proxy.replyCount() + player2.proxy.replyCount();
+            long nanos = player1.proxy.replyNanos() + player2.proxy.replyNanos();
+            return replies == 0 ? 0 : nanos / 1e6 / replies;
+        }
+
+        private void play() {
+            startedAt = System.nanoTime();
+            player1.connection.setReadTimeout(REPLY_TIMEOUT_MILLIS);
+            player2.connection.setReadTimeout(REPLY_TIMEOUT_MILLIS);
+            totalWaitNanos.addAndGet(startedAt - player1.enqueuedAt + startedAt - player2.enqueuedAt);
+            activeSessions.add(this);
+            AtomicInteger connectedPlayers = new AtomicInteger(PlayerId.COUNT);
+            List<StandInPlayer> seats = List.of(
+                    new StandInPlayer(player1.proxy, new GreedyPlayer(player1.name), connectedPlayers),
+                    new StandInPlayer(player2.proxy, new GreedyPlayer(player2.name), connectedPlayers));
+            Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+            players.put(PlayerId.PLAYER_1, seats.get(0));
+            players.put(PlayerId.PLAYER_2, seats.get(1));
+            GameJournal.Recorder recorder = resumed != null
+                    ? resumed.journal.resume()
+                    : GameJournal.recorder(map, seeds.nextLong());
+            Path journalFile = journalStore == null ? null
+                    : journalStore.track(recorder, resumed != null ? resumed.file : null);
+            //seule une partie interrompue par une deconnexion (et non par un coup invalide) peut etre reprise
+            boolean resumable = false;
+            try {
+                game = recorder.newGame(players);
+                game.addSpectator(broadcast);
+                game.play();
+                completedSessions.incrementAndGet();
+            } catch (RuntimeException e) {
+                abortedSessions.incrementAndGet();
+                resumable = e instanceof UncheckedIOException;
+            } finally {
+                if (journalFile != null) {
+                    journalStore.untrack(journalFile, resumable);
+                    GameJournal journal = recorder.journal();
+                    if (resumable && !journal.playerNames().isEmpty()) {
+                        addResumable(new ResumableGame(journalFile, journal));
+                    }
+                }
+                replacedPlayers.addAndGet(seats.stream().filter(StandInPlayer::isReplaced).count());
+                totalSessionNanos.addAndGet(System.nanoTime() - startedAt);
+                activeSessions.remove(this);
+                close();
+            }
+        }
+
+        private void close() {
+            openSessions.remove(id);
+            broadcast.close();
+            player1.connection.close();
+            player2.connection.close();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("session %d%s (%s - %s) : %d tours, %.1f s, reponse moyenne %.2f ms, "
+                            + "%d spectateurs (%d etats abandonnes), formee il y a %.1f s",
+                    id, isResumed() ? " reprise" : "", player1.name, player2.name, turnCount(), elapsedSeconds(),
+                    meanReplyMillis(),
+                    spectatorCount(), droppedSpectatorStates(), (System.nanoTime() - createdAt) / 1e9);
+        }
+    }
+
+    /**
+     * @return un resume de l'etat du salon
+     */
+    @Override
+    public String toString() {
+        long finished = completedSessions() + abortedSessions();
+        return String.format("connexions %d, joueurs en attente %d, parties a reprendre %d, sessions en attente %d, "
+                        + "en cours %d, terminees %d, interrompues %d, joueurs remplaces %d, duree moyenne %.1f s, "
+                        + "attente moyenne %.2f s",
+                server.openConnections(), waitingPlayers(), resumableGames(), pendingSessions(), activeSessions.size(),
+                completedSessions(), abortedSessions(), replacedPlayers(),
+                finished == 0 ? 0 : totalSessionNanos.get() / 1e9 / finished,
+                finished == 0 ? 0 : totalWaitNanos.get() / 1e9 / (PlayerId.COUNT * finished));
+    }
+}
@@ -0,0 +1,289 @@
+package ch.epfl.tchu.net;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * classe représentant le canal par lequel un client et un mandataire échangent leurs messages,
+ * dans l'un des formats de WireProtocol.
+ * Un message est écrit au moyen de writeId (facultatif pour les réponses), de write pour chacun de ses
+ * arguments, puis de flush ; il est relu au moyen de readId (pour les messages du mandataire) puis de read
+ * pour chacun de ses arguments.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+abstract class MessageChannel {
+
+    private static final MessageId[] MESSAGE_IDS = MessageId.values();
+
+    /**
+     * longueur maximale (en octets, sans le retour a la ligne) d'une ligne d'annonce.
+     */
+    static final int MAX_ANNOUNCEMENT_LENGTH = 128;
+
+    /**
+     * ouvre le canal du cote du client : annonce au mandataire le protocole choisi.
+     *
+     * @param socket   prise connectee au mandataire
+     * @param protocol protocole a utiliser
+     * @return le canal
+     * @throws IOException en cas d'erreur d'entree/sortie
+     */
+    static MessageChannel connect(Socket socket, WireProtocol protocol) throws IOException {
+        return connect(socket, protocol, protocol.name());
+    }
+
+    /**
+     * ouvre le canal d'un spectateur : annonce au serveur le protocole choisi et la session a suivre.
+     *
+     * @param socket    prise connectee au serveur
+     * @param protocol  protocole a utiliser
+     * @param sessionId identifiant de la session a suivre
+     * @return le canal
+     * @throws IOException en cas d'erreur d'entree/sortie
+     */
+    static MessageChannel connectSpectator(Socket socket, WireProtocol protocol, long sessionId) throws IOException {
+        return connect(socket, protocol, protocol.name() + " " + sessionId);
+    }
+
+    private static MessageChannel connect(Socket socket, WireProtocol protocol, String announcement)
+            throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write((announcement + "\n").getBytes(US_ASCII));
+        out.flush();
+        return of(socket.getInputStream(), out, protocol);
+    }
+
+    /**
+     * ouvre le canal du cote du mandataire : lit le protocole annonce par le client.
+     *
+     * @param in  flot d'entree provenant du client
+     * @param out flot de sortie vers le client
+     * @return le canal
+     * @throws IOException en cas d'erreur d'entree/sortie
+     * @throws IllegalArgumentException si le client annonce un protocole inconnu
+     */
+    static MessageChannel accept(InputStream in, OutputStream out) throws IOException {
+        return of(in, out, WireProtocol.valueOf(readAnnouncement(in)));
+    }
+
+    /**
+     * lit la ligne d'annonce envoyee par un client a la connexion : le nom du protocole,
+     * suivi, pour un spectateur, d'un espace et de l'identifiant de la session a suivre.
+     *
+     * @param in flot d'entree provenant du client
+     * @return la ligne d'annonce, sans son retour a la ligne
+     * @throws IOException en cas d'erreur d'entree/sortie, ou si la ligne depasse MAX_ANNOUNCEMENT_LENGTH octets
+     */
+    static String readAnnouncement(InputStream in) throws IOException {
+        //lu octet par octet, pour ne rien consommer au-dela de la ligne d'annonce
+        StringBuilder announcement = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException();
+            }
+            if (announcement.length() == MAX_ANNOUNCEMENT_LENGTH) {
+                throw new IOException("annonce trop longue");
+            }
+            announcement.append((char) b);
+        }
+        return announcement.toString();
+    }
+
+    /**
+     * @param protocol protocole du client
+     * @param received octets recus du client et pas encore lus
+     * @return vrai ssi les octets donnes commencent par une reponse complete faite d'une chaine
+     * (comme celle a SEND_NAME), qui peut donc etre lue sans bloquer
+     */
+    static boolean startsWithStringReply(WireProtocol protocol, byte[] received) {
+        switch (protocol) {
+            case TEXT:
+                for (byte b : received) {
+                    if (b == '\n') {
+                        return true;
+                    }
+                }
+                return false;
+            case BINARY:
+                //version (Integer.BYTES octets), puis longueur de la chaine (2 octets) et ses octets
+                int length = Integer.BYTES + Short.BYTES;
+                return received.length >= length
+                        && received.length >= length + ((received[length - 2] & 0xFF) << 8 | received[length - 1] & 0xFF);
+            default:
+                throw new Error();
+        }
+    }
+
+    /**
+     * ouvre un canal dont le protocole est deja connu (l'annonce ayant ete lue).
+     *
+     * @param in       flot d'entree
+     * @param out      flot de sortie
+     * @param protocol protocole a utiliser
+     * @return le canal
+     */
+    static MessageChannel of(InputStream in, OutputStream out, WireProtocol protocol) {
+        switch (protocol) {
+            case TEXT:
+                return new Text(in, out);
+            case BINARY:
+                return new Binary(in, out);
+            default:
+                throw new Error();
+        }
+    }
+
+    /**
+     * encode un message a un argument, par exemple pour l'envoyer tel quel a plusieurs destinataires.
+     *
+     * @param protocol protocole a utiliser
+     * @param id       identite du message
+     * @param serde    serde de l'argument
+     * @param value    argument
+     * @return les octets du message, tels qu'un canal du protocole donne les enverrait
+     */
+    static <T> byte[] encode(WireProtocol protocol, MessageId id, WireSerde<T> serde, T value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MessageChannel c = of(InputStream.nullInputStream(), bytes, protocol);
+        try {
+            c.writeId(id);
+            c.write(serde, value);
+            c.flush();
+        } catch (IOException e) {
+            //un ByteArrayOutputStream ne leve jamais d'IOException
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * ecrit l'identite du message.
+     */
+    abstract void writeId(MessageId id) throws IOException;
+
+    /**
+     * ecrit un argument du message.
+     */
+    abstract <T> void write(WireSerde<T> serde, T value) throws IOException;
+
+    /**
+     * termine le message et l'envoie.
+     */
+    abstract void flush() throws IOException;
+
+    /**
+     * lit l'identite du message suivant.
+     *
+     * @return l'identite du message, ou null si le flot est termine
+     */
+    abstract MessageId readId() throws IOException;
+
+    /**
+     * lit l'argument suivant du message courant (ou la reponse suivante).
+     */
+    abstract <T> T read(WireSerde<T> serde) throws IOException;
+
+    /**
+     * canal textuel : un message par ligne, dont les elements sont separes par des espaces.
+     */
+    private static final class Text extends MessageChannel {
+        private final BufferedReader reader;
+        private final BufferedWriter writer;
+        private StringJoiner message = new StringJoiner(" ");
+        private String[] received;
+        private int next;
+
+        private Text(InputStream in, OutputStream out) {
+            this.reader = new BufferedReader(new InputStreamReader(in, US_ASCII));
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, US_ASCII));
+        }
+
+        @Override
+        void writeId(MessageId id) {
+            message.add(id.name());
+        }
+
+        @Override
+        <T> void write(WireSerde<T> serde, T value) {
+            message.add(serde.text().serialize(value));
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.write(message.toString());
+            writer.write('\n');
+            writer.flush();
+            message = new StringJoiner(" ");
+        }
+
+        @Override
+        MessageId readId() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            received = line.split(Pattern.quote(" "), -1);
+            next = 1;
+            return MessageId.valueOf(received[0]);
+        }
+
+        @Override
+        <T> T read(WireSerde<T> serde) throws IOException {
+            if (received == null || next == received.length) {
+                String line = reader.readLine();
+                if (line == null) {
+                    throw new EOFException();
+                }
+                received = line.split(Pattern.quote(" "), -1);
+                next = 0;
+            }
+            return serde.text().deserialize(received[next++]);
+        }
+    }
+
+    /**
+     * canal binaire : l'identite du message sur un octet, suivie de ses arguments ecrits par les serdes binaires.
+     */
+    private static final class Binary extends MessageChannel {
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private Binary(InputStream in, OutputStream out) {
+            this.in = new DataInputStream(new BufferedInputStream(in));
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+        }
+
+        @Override
+        void writeId(MessageId id) throws IOException {
+            out.writeByte(id.ordinal());
+        }
+
+        @Override
+        <T> void write(WireSerde<T> serde, T value) throws IOException {
+            serde.binary().write(out, value);
+        }
+
+        @Override
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        MessageId readId() throws IOException {
+            int id = in.read();
+            return id < 0 ? null : MESSAGE_IDS[id];
+        }
+
+        @Override
+        <T> T read(WireSerde<T> serde) throws IOException {
+            return serde.binary().read(in);
+        }
+    }
+}
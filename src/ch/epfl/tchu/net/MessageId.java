@@ -22,6 +22,9 @@ public enum MessageId {
     //    ################################################# EXTENSIONS ########################################
 
     SEND_NAME,
-    DESTROY_ROUTE
+    DESTROY_ROUTE,
+    UPDATE_STATE_DELTA,
+    UPDATE_PUBLIC_STATE,
+    MAP
 
 }
@@ -0,0 +1,470 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * classe représentant un serveur non bloquant : un unique fil d'exécution (celui qui appelle run)
+ * accepte les connexions, lit ce que les clients envoient et leur écrit ce qui leur est destiné,
+ * au moyen d'un sélecteur.
+ * Chaque connexion offre un flot d'entrée et un flot de sortie ordinaires, utilisables par exemple par un
+ * RemotePlayerProxy : la lecture bloque le fil qui l'appelle jusqu'à ce que le sélecteur ait reçu des
+ * données, l'écriture ne bloque jamais et est envoyée par le sélecteur dès que le client peut la recevoir.
+ * Une connexion inactive ne coûte donc aucun fil d'exécution.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class NioServer implements Closeable {
+
+    /**
+     * nombre maximal d'octets recus et pas encore lus par une connexion, au-dela duquel le serveur
+     * cesse de lire le client.
+     */
+    public static final int MAX_RECEIVED_BYTES = 64 * 1024;
+
+    /**
+     * nombre maximal d'octets en attente d'envoi vers un client, au-dela duquel il est juge trop lent
+     * et sa connexion est fermee.
+     */
+    public static final int MAX_PENDING_BYTES = 1024 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Consumer<Connection> onAccept;
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private volatile boolean running = true;
+
+    /**
+     * construit un serveur ecoutant sur le port donne.
+     *
+     * @param port     port d'ecoute (0 pour un port libre quelconque)
+     * @param onAccept action executee, par le fil du selecteur, pour chaque nouvelle connexion ;
+     *                 elle ne doit pas bloquer
+     * @throws IOException en cas d'erreur d'entree/sortie
+     */
+    public NioServer(int port, Consumer<Connection> onAccept) throws IOException {
+        this.onAccept = Objects.requireNonNull(onAccept);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * @return le port sur lequel le serveur ecoute
+     */
+    public int port() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return le nombre de connexions actuellement ouvertes
+     */
+    public int openConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * execute la boucle du selecteur jusqu'a ce que le serveur soit ferme.
+     *
+     * @throws IOException en cas d'erreur d'entree/sortie du serveur lui-meme
+     */
+    public void run() throws IOException {
+        try {
+            while (running) {
+                selector.select();
+                Runnable task;
+                while ((task = pendingTasks.poll()) != null) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isReadable()) {
+                        connection.onReadable();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.onWritable();
+                    }
+                }
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).closeNow();
+                }
+            }
+            serverChannel.close();
+            selector.close();
+        }
+    }
+
+    /**
+     * arrete la boucle du selecteur, qui ferme alors toutes les connexions.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        openConnections.incrementAndGet();
+        onAccept.accept(connection);
+    }
+
+    private void execute(Runnable task) {
+        pendingTasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * classe représentant une connexion acceptée par le serveur.
+     * Ses flots peuvent être utilisés par n'importe quel fil d'exécution (un seul à la fois pour chacun d'eux).
+     */
+    public final class Connection {
+        private final SocketChannel channel;
+        private final SocketAddress remoteAddress;
+        private final ByteBuffer received = ByteBuffer.allocate(MAX_RECEIVED_BYTES);
+        private final Queue<ByteBuffer> toSend = new ArrayDeque<>();
+        private final InputStream inputStream = new ConnectionInputStream();
+        private final OutputStream outputStream = new ConnectionOutputStream();
+        private SelectionKey key;
+        private volatile Runnable drainListener;
+        private volatile Runnable receiveListener;
+        private long readTimeoutMillis;
+        private int pendingBytes;
+        private boolean endOfInput;
+        private boolean closing;
+        private boolean closed;
+
+        private Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.remoteAddress = channel.getRemoteAddress();
+        }
+
+        /**
+         * @return l'adresse du client
+         */
+        public SocketAddress remoteAddress() {
+            return remoteAddress;
+        }
+
+        /**
+         * @return le flot des octets envoyes par le client ; sa lecture bloque jusqu'a ce que des octets soient recus
+         */
+        public InputStream inputStream() {
+            return inputStream;
+        }
+
+        /**
+         * @return le flot des octets a envoyer au client ; ils sont envoyes par le selecteur lors de flush
+         */
+        public OutputStream outputStream() {
+            return outputStream;
+        }
+
+        /**
+         * fixe le temps maximal pendant lequel une lecture attend des donnees du client,
+         * apres quoi elle leve une SocketTimeoutException.
+         *
+         * @param millis duree en millisecondes, 0 pour attendre indefiniment (par defaut)
+         * @throws IllegalArgumentException si la duree est negative
+         */
+        public synchronized void setReadTimeout(long millis) {
+            Preconditions.checkArgument(millis >= 0);
+            readTimeoutMillis = millis;
+        }
+
+        /**
+         * @return le nombre d'octets ecrits et pas encore envoyes au client
+         */
+        public synchronized int pendingBytes() {
+            return pendingBytes;
+        }
+
+        /**
+         * fixe l'action executee, par le fil du selecteur, chaque fois que tout ce qui a ete ecrit
+         * a ete envoye au client ; elle peut ecrire a nouveau sur la connexion, mais ne doit pas bloquer.
+         *
+         * @param listener action a executer, ou null pour n'en executer aucune
+         */
+        public void onDrained(Runnable listener) {
+            drainListener = listener;
+        }
+
+        /**
+         * fixe l'action executee, par le fil du selecteur, chaque fois que des octets ont ete recus du client ;
+         * elle peut lire les octets deja recus (voir receivedBytes), mais ne doit pas bloquer.
+         *
+         * @param listener action a executer, ou null pour n'en executer aucune
+         */
+        public void onReceived(Runnable listener) {
+            receiveListener = listener;
+        }
+
+        /**
+         * @return une copie des octets recus du client et pas encore lus, que la lecture de inputStream
+         * retournerait sans bloquer
+         */
+        public synchronized byte[] receivedBytes() {
+            return Arrays.copyOf(received.array(), received.position());
+        }
+
+        /**
+         * @return vrai ssi la connexion n'est pas (en train d'etre) fermee et que le client ne l'a pas fermee
+         */
+        public synchronized boolean isOpen() {
+            return !closing && !closed && !endOfInput;
+        }
+
+        /**
+         * ferme la connexion une fois que tout ce qui a ete ecrit a ete envoye au client.
+         */
+        public void close() {
+            synchronized (this) {
+                if (closing || closed) {
+                    return;
+                }
+                closing = true;
+                notifyAll();
+            }
+            execute(this::closeIfDrained);
+        }
+
+        //############################### fil du selecteur ###############################
+
+        private void onReadable() {
+            int read;
+            int free;
+            synchronized (this) {
+                free = received.remaining();
+            }
+            try {
+                //jamais plus que ce que le tampon des octets recus peut encore contenir
+                readBuffer.clear().limit(Math.min(READ_BUFFER_SIZE, free));
+                read = channel.read(readBuffer);
+            } catch (IOException e) {
+                closeNow();
+                return;
+            }
+            synchronized (this) {
+                if (read < 0) {
+                    endOfInput = true;
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                } else {
+                    readBuffer.flip();
+                    received.put(readBuffer);
+                    //le client envoie plus que ce qui est lu : on cesse de le lire
+                    if (received.remaining() < READ_BUFFER_SIZE) {
+                        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                    }
+                }
+                notifyAll();
+            }
+            Runnable listener = receiveListener;
+            if (read > 0 && listener != null) {
+                listener.run();
+            }
+            if (read < 0 && toSendIsEmpty()) {
+                closeNow();
+            }
+        }
+
+        private void onWritable() {
+            boolean drained = false;
+            synchronized (this) {
+                try {
+                    while (!toSend.isEmpty()) {
+                        ByteBuffer head = toSend.peek();
+                        pendingBytes -= channel.write(head);
+                        if (head.hasRemaining()) {
+                            return;
+                        }
+                        toSend.poll();
+                    }
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                    drained = !closing;
+                } catch (IOException e) {
+                    toSend.clear();
+                    closing = true;
+                }
+            }
+            //hors du verrou : l'action peut ecrire a nouveau sur la connexion
+            Runnable listener = drainListener;
+            if (drained && listener != null) {
+                listener.run();
+            }
+            closeIfDrained();
+        }
+
+        private synchronized boolean toSendIsEmpty() {
+            return toSend.isEmpty();
+        }
+
+        private void closeIfDrained() {
+            boolean close;
+            synchronized (this) {
+                close = (closing || endOfInput) && toSend.isEmpty();
+            }
+            if (close) {
+                closeNow();
+            }
+        }
+
+        private void closeNow() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                toSend.clear();
+                notifyAll();
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                //la connexion est fermee de toute facon
+            }
+            openConnections.decrementAndGet();
+        }
+
+        private void enableInterest(int op) {
+            execute(() -> {
+                if (key.isValid()) {
+                    key.interestOps(key.interestOps() | op);
+                }
+            });
+        }
+
+        //############################### fils des joueurs ###############################
+
+        private final class ConnectionInputStream extends InputStream {
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                Objects.checkFromIndexSize(off, len, b.length);
+                if (len == 0) {
+                    return 0;
+                }
+                Connection c = Connection.this;
+                synchronized (c) {
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(c.readTimeoutMillis);
+                    while (c.received.position() == 0 && !c.endOfInput && !c.closing && !c.closed) {
+                        try {
+                            if (c.readTimeoutMillis == 0) {
+                                c.wait();
+                            } else {
+                                long remaining = deadline - System.nanoTime();
+                                if (remaining <= 0) {
+                                    throw new SocketTimeoutException();
+                                }
+                                TimeUnit.NANOSECONDS.timedWait(c, remaining);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException();
+                        }
+                    }
+                    if (c.received.position() == 0) {
+                        return -1;
+                    }
+                    boolean wasFull = c.received.remaining() < READ_BUFFER_SIZE;
+                    c.received.flip();
+                    int n = Math.min(len, c.received.remaining());
+                    c.received.get(b, off, n);
+                    c.received.compact();
+                    //la lecture ne reprend que lorsque le tampon peut a nouveau recevoir une lecture complete
+                    if (wasFull && c.received.remaining() >= READ_BUFFER_SIZE && !c.endOfInput) {
+                        enableInterest(SelectionKey.OP_READ);
+                    }
+                    return n;
+                }
+            }
+
+            @Override
+            public int available() {
+                synchronized (Connection.this) {
+                    return received.position();
+                }
+            }
+        }
+
+        private final class ConnectionOutputStream extends OutputStream {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                Objects.checkFromIndexSize(off, len, b.length);
+                Connection c = Connection.this;
+                synchronized (c) {
+                    if (c.closing || c.closed) {
+                        throw new IOException("connexion fermee");
+                    }
+                    if (c.pendingBytes + len > MAX_PENDING_BYTES) {
+                        c.closing = true;
+                        c.toSend.clear();
+                        c.notifyAll();
+                        execute(c::closeNow);
+                        throw new IOException("client trop lent");
+                    }
+                    c.toSend.add(ByteBuffer.wrap(Arrays.copyOfRange(b, off, off + len)));
+                    c.pendingBytes += len;
+                }
+            }
+
+            @Override
+            public void flush() {
+                enableInterest(SelectionKey.OP_WRITE);
+            }
+        }
+    }
+}
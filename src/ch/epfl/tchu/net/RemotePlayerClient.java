@@ -2,15 +2,15 @@ package ch.epfl.tchu.net;
 
 import ch.epfl.tchu.game.*;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.Socket;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.Objects;
 
 import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
 import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
-import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * classe représentant le client de joueur distant.
@@ -23,108 +23,138 @@ public final class RemotePlayerClient {
     private final Player player;
     private final String name;
     private final int port;
+    private final WireProtocol protocol;
 
     /**
-     * représente un client de joueur distant.
+     * représente un client de joueur distant, qui échange ses messages au format textuel.
      *
      * @param player joueur auquel on doit fournir un accès distant,
      * @param name   nom du joueur,
      * @param port   port à utiliser pour se connecter au mandataire.
      */
     public RemotePlayerClient(Player player, String name, int port) {
+        this(player, name, port, WireProtocol.TEXT);
+    }
+
+    /**
+     * représente un client de joueur distant.
+     *
+     * @param player   joueur auquel on doit fournir un accès distant,
+     * @param name     nom du joueur,
+     * @param port     port à utiliser pour se connecter au mandataire,
+     * @param protocol format des messages, annoncé au mandataire à la connexion.
+     */
+    public RemotePlayerClient(Player player, String name, int port, WireProtocol protocol) {
         this.player = player;
         this.name = name;
         this.port = port;
+        this.protocol = Objects.requireNonNull(protocol);
     }
 
     /**
      * méthode utiliser pour répondre au message du mandataire (RemotePlayerProxy).
-     * elle effectue une boucle qui attend un message du mandataire (sérialiser),
-     * la découpe par un espace,
-     * détermine le type du message (MessageId) en fonction de la première chaîne de caractères du découpage,
+     * elle annonce d'abord le protocole choisi au mandataire, puis effectue une boucle qui attend
+     * un message du mandataire, détermine son type (MessageId),
      * puis en fonction du message, désérialise les arguments et appel la méthode correspondante du joueur (player),
+     * la carte de la partie (MAP), annoncée avant INIT_PLAYERS, servant à désérialiser les routes, billets et états,
+     * les différences d'état (UPDATE_STATE_DELTA) étant appliquées au dernier état reçu.
+     * Chaque réponse est précédée de la version de l'état connu du client, -1 s'il a manqué une différence,
+     * ce qui demande au mandataire de lui renvoyer l'état complet.
      *
      * est utilisé pour répondre au message du mandataire (RemotePlayerProxy).
      */
     public void run() {
-        try (Socket s = new Socket(name, port);
-             BufferedReader r =
-                     new BufferedReader(
-                             new InputStreamReader(s.getInputStream(),
-                                     US_ASCII));
-
-             BufferedWriter w =
-                     new BufferedWriter(
-                             new OutputStreamWriter(s.getOutputStream(),
-                                     US_ASCII))) {
-            String receivedString;
-
-            while((receivedString=r.readLine()) != null) {
-                String[] str = receivedString.split(Pattern.quote(" "), -1);
-                switch (MessageId.valueOf(str[0])) {
+        try (Socket s = new Socket(name, port)) {
+            //les messages sont courts et attendent une reponse : ils ne doivent pas etre retardes
+            s.setTcpNoDelay(true);
+            MessageChannel c = MessageChannel.connect(s, protocol);
+            MessageId id;
+            int version = -1;
+            PublicGameState state = null;
+            PlayerState ownState = null;
+            TchuMap map = null;
+            WireSerde.OfMap serdes = null;
+
+            while ((id = c.readId()) != null) {
+                switch (id) {
+
+                    case MAP:
+                        map = c.read(WireSerde.MAP);
+                        serdes = new WireSerde.OfMap(map);
+                        break;
 
                     case INIT_PLAYERS:
-                        List<String> playerNames = Serdes.LIST_OF_STRING.deserialize(str[2]);
-                        player.initPlayers(PlayerId.ALL.get(Integer.parseInt(str[1])),
+                        PlayerId ownId = c.read(WireSerde.PLAYER_ID);
+                        List<String> playerNames = c.read(WireSerde.LIST_OF_STRING);
+                        player.initPlayers(ownId,
                                 Map.of(PLAYER_1, playerNames.get(0), PLAYER_2,
-                                        playerNames.get(1)));
+                                        playerNames.get(1)), map);
                         break;
 
                     case RECEIVE_INFO:
-                        player.receiveInfo(Serdes.STRING_SERDE.deserialize(str[1]));
+                        player.receiveInfo(c.read(WireSerde.STRING));
                         break;
 
                     case UPDATE_STATE:
-                        player.updateState(Serdes.OF_PUBLIC_GAME_STATE.deserialize(str[1]),
-                                Serdes.OF_PLAYER_STATE.deserialize(str[2]));
+                        version = c.read(WireSerde.VERSION);
+                        state = c.read(serdes.publicGameState);
+                        ownState = c.read(serdes.playerState);
+                        player.updateState(state, ownState);
+                        break;
+
+                    case UPDATE_STATE_DELTA:
+                        int baseVersion = c.read(WireSerde.VERSION);
+                        StateDelta delta = c.read(serdes.stateDelta);
+                        if (state != null && baseVersion == version) {
+                            version = baseVersion + 1;
+                            state = delta.applyTo(state);
+                            ownState = delta.applyTo(ownState);
+                            player.updateState(state, ownState);
+                        } else {
+                            version = -1;
+                        }
                         break;
 
                     case SET_INITIAL_TICKETS:
-                        player.setInitialTicketChoice(Serdes.BAG_OF_TICKET.deserialize(str[1]));
+                        player.setInitialTicketChoice(c.read(serdes.bagOfTicket));
                         break;
 
                     case CHOOSE_INITIAL_TICKETS:
-                        write(w, Serdes.BAG_OF_TICKET.serialize(player.chooseInitialTickets()));
+                        write(c, version, serdes.bagOfTicket, player.chooseInitialTickets());
                         break;
 
                     case NEXT_TURN:
-                        write(w, Serdes.ONE_OF_TURN_KIND.serialize(player.nextTurn()));
+                        write(c, version, WireSerde.TURN_KIND, player.nextTurn());
                         break;
 
                     case CHOOSE_TICKETS:
-                        write(w,
-                                Serdes.BAG_OF_TICKET
-                                        .serialize(player
-                                                .chooseTickets(Serdes.BAG_OF_TICKET
-                                                        .deserialize(str[1]))));
+                        write(c, version, serdes.bagOfTicket,
+                                player.chooseTickets(c.read(serdes.bagOfTicket)));
                         break;
 
                     case DRAW_SLOT:
-                        write(w, Serdes.INTEGER_SERDE.serialize(player.drawSlot()));
+                        write(c, version, WireSerde.SLOT, player.drawSlot());
                         break;
 
                     case ROUTE:
-                        write(w, Serdes.ONE_OF_ROUTE.serialize(player.claimedRoute()));
+                        write(c, version, serdes.route, player.claimedRoute());
                         break;
 
                     case CARDS:
-                        write(w, Serdes.BAG_OF_CARD.serialize(player.initialClaimCards()));
+                        write(c, version, WireSerde.BAG_OF_CARD, player.initialClaimCards());
                         break;
 
                     case CHOOSE_ADDITIONAL_CARDS:
-                        write(w,
-                                Serdes.BAG_OF_CARD
-                                        .serialize(player
-                                                .chooseAdditionalCards(Serdes.LIST_OF_CARD_BAGS
-                                                        .deserialize(str[1]))));
+                        write(c, version, WireSerde.BAG_OF_CARD,
+                                player.chooseAdditionalCards(c.read(WireSerde.LIST_OF_CARD_BAGS)));
                         break;
 
                     case SEND_NAME:
-                        write(w, Serdes.STRING_SERDE.serialize(player.getName()));
+                        write(c, version, WireSerde.STRING, player.getName());
                         break;
 
                     case DESTROY_ROUTE:
-                        write(w, Serdes.ONE_OF_ROUTE.serialize(player.destroyedRoute()));
+                        write(c, version, serdes.route, player.destroyedRoute());
                         break;
 
                     default:
@@ -136,9 +166,9 @@ public final class RemotePlayerClient {
         }
     }
 
-    private void write(BufferedWriter w, String message) throws IOException {
-        w.write(message);
-        w.write('\n');
-        w.flush();
+    private <T> void write(MessageChannel c, int version, WireSerde<T> serde, T message) throws IOException {
+        c.write(WireSerde.VERSION, version);
+        c.write(serde, message);
+        c.flush();
     }
 }
@@ -5,9 +5,7 @@ import ch.epfl.tchu.game.*;
 
 import java.io.*;
 import java.net.Socket;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * classe représentant un mandataire.
@@ -17,59 +15,175 @@ import java.util.stream.Collectors;
  */
 public final class RemotePlayerProxy implements Player {
 
-    BufferedWriter writer;
-    BufferedReader reader;
+    private final InputStream in;
+    private final OutputStream out;
+    private final WireProtocol protocol;
+    private MessageChannel channel;
+    //serdes de la carte de la partie, annoncee au client par initPlayers
+    private WireSerde.OfMap serdes;
 
+    //dernier etat envoye au client, et sa version, par rapport auquel sont calculees les differences
+    private int version;
+    private PublicGameState sentState;
+    private PlayerState sentOwnState;
+    private boolean resyncRequested;
+
+    private String name;
+    private boolean nameRequested;
+    //ecrits par le seul fil de la partie, lus par ceux qui la surveillent
+    private volatile long replyCount;
+    private volatile long replyNanos;
+
+    /**
+     * construit un mandataire communiquant avec le client connecte a la prise donnee,
+     * dans le protocole (WireProtocol) que le client annonce a la connexion.
+     * L'annonce n'est lue qu'au premier message, par le fil d'execution de la partie.
+     *
+     * @param socket prise connectee au client
+     */
     public RemotePlayerProxy(Socket socket) throws IOException {
-        this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
-        this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        this(socket.getInputStream(), socket.getOutputStream());
+        //les messages sont courts et attendent une reponse : ils ne doivent pas etre retardes
+        socket.setTcpNoDelay(true);
+    }
+
+    /**
+     * construit un mandataire communiquant avec un client au travers des flots donnes,
+     * par exemple ceux d'une connexion geree par NioServer.
+     *
+     * @param in  flot d'entree provenant du client
+     * @param out flot de sortie vers le client
+     */
+    public RemotePlayerProxy(InputStream in, OutputStream out) {
+        this(in, out, null);
+    }
+
+    /**
+     * construit un mandataire communiquant avec un client dont l'annonce a deja ete lue
+     * (par exemple par le salon, Lobby), dans le protocole donne.
+     *
+     * @param in       flot d'entree provenant du client
+     * @param out      flot de sortie vers le client
+     * @param protocol protocole annonce par le client, ou null s'il reste a lire
+     */
+    RemotePlayerProxy(InputStream in, OutputStream out, WireProtocol protocol) {
+        this.in = Objects.requireNonNull(in);
+        this.out = Objects.requireNonNull(out);
+        this.protocol = protocol;
+    }
 
+    private MessageChannel channel() throws IOException {
+        if (channel == null) {
+            channel = protocol == null ? MessageChannel.accept(in, out) : MessageChannel.of(in, out, protocol);
+        }
+        return channel;
     }
 
     /**
-     * Methode qui va ecrire dans le flot de sortie de la "prise" d'abord l'identite du message
-     * suivi des informations qu'on veut communiquer, tous separees par des espaces
+     * Methode qui va envoyer au client un message sans argument
      * @param id identite du message
-     * @param args les informations serialisees qu'on veut communiquer
      */
-    public void sendMessage(MessageId id, String...args) {
-        List<String> messages = new ArrayList<>();
-        messages.add(id.name());
-        messages.addAll(Arrays.asList(args));
+    private void sendMessage(MessageId id) {
         try {
-            writer.write(String.join(" ", messages));
-            writer.write("\n");
-            writer.flush();
+            MessageChannel c = channel();
+            c.writeId(id);
+            c.flush();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
     /**
-     * Methode qui va lire la premiere ligne du flot d'entree de la "prise"
-     * @return le message lu du flot d'entree jusqu'au premier retour a la ligne
+     * Methode qui va envoyer au client un message a un argument
+     * @param id identite du message
+     * @param serde serde de l'argument
+     * @param arg l'argument
      */
-    public String receiveMessage() {
+    private <A> void sendMessage(MessageId id, WireSerde<A> serde, A arg) {
         try {
-            return reader.readLine();
+            MessageChannel c = channel();
+            c.writeId(id);
+            c.write(serde, arg);
+            c.flush();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * Methode qui va envoyer au client un message a deux arguments
+     * @param id identite du message
+     * @param serde1 serde du premier argument
+     * @param arg1 le premier argument
+     * @param serde2 serde du second argument
+     * @param arg2 le second argument
+     */
+    private <A, B> void sendMessage(MessageId id, WireSerde<A> serde1, A arg1, WireSerde<B> serde2, B arg2) {
+        try {
+            MessageChannel c = channel();
+            c.writeId(id);
+            c.write(serde1, arg1);
+            c.write(serde2, arg2);
+            c.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Methode qui va lire la reponse du client, precedee de la version de l'etat qu'il connait ;
+     * si celle-ci n'est pas la derniere envoyee, le prochain etat lui sera envoye en entier
+     * @param serde serde de la reponse
+     * @return la reponse lue
+     */
+    private <T> T receiveMessage(WireSerde<T> serde) {
+        long start = System.nanoTime();
+        try {
+            MessageChannel c = channel();
+            if (c.read(WireSerde.VERSION) != version) {
+                resyncRequested = true;
+            }
+            return c.read(serde);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            replyNanos += System.nanoTime() - start;
+            replyCount += 1;
+        }
+    }
+
+    /**
+     * @return le nombre de reponses attendues du client jusqu'a present
+     */
+    long replyCount() {
+        return replyCount;
+    }
+
+    /**
+     * @return le temps total (en nanosecondes) passe a attendre les reponses du client
+     */
+    long replyNanos() {
+        return replyNanos;
+    }
+
 
     /**
      * Cette methode est appelee au debut de la partie pour communiquer au joueur sa propre identite ownId,
-     * ainsi que les noms des différents joueurs.
-     * En l'occurence, le proxy va communiquer ces informations aux clients a travers le flot de sortie
+     * ainsi que les noms des différents joueurs et la carte de la partie.
+     * En l'occurence, le proxy va communiquer ces informations aux clients a travers le flot de sortie :
+     * la carte (MAP) d'abord, les routes et billets des messages suivants etant designes par leur position
+     * dans celle-ci, puis l'identite et les noms (INIT_PLAYERS)
      * @param ownId l'identite du joueur,
      * @param playerNames ensemble des identites de tout les joueurs,
+     * @param map la carte de la partie,
      */
     @Override
-    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames, TchuMap map) {
+        serdes = new WireSerde.OfMap(map);
+        sendMessage(MessageId.MAP, WireSerde.MAP, map);
         sendMessage(MessageId.INIT_PLAYERS,
-                Serdes.ONE_OF_PLAYER_ID.serialize(ownId),
-                Serdes.LIST_OF_STRING.serialize(List.of(playerNames.get(PlayerId.PLAYER_1), playerNames.get(PlayerId.PLAYER_2))));
+                WireSerde.PLAYER_ID, ownId,
+                WireSerde.LIST_OF_STRING, List.of(playerNames.get(PlayerId.PLAYER_1), playerNames.get(PlayerId.PLAYER_2)));
     }
 
     /**
@@ -79,22 +193,45 @@ public final class RemotePlayerProxy implements Player {
      */
     @Override
     public void receiveInfo(String info) {
-        sendMessage(MessageId.RECEIVE_INFO, Serdes.STRING_SERDE.serialize(info));
+        sendMessage(MessageId.RECEIVE_INFO, WireSerde.STRING, info);
     }
 
     /**
      * Methode appelee chaque fois que l'état du jeu a change
      * pour informer le joueur le nouvel etat de jeu.
-     * En l'occurence, le proxy va communiquer ces informations aux clients a travers le flot de sortie
+     * En l'occurence, le proxy va communiquer ces informations aux clients a travers le flot de sortie :
+     * seule la difference avec l'etat envoye precedemment est communiquee (UPDATE_STATE_DELTA),
+     * sauf pour le premier etat, si le client a demande a etre resynchronise ou si la difference
+     * ne peut pas etre exprimee, auquel cas l'etat est envoye en entier (UPDATE_STATE).
      * @param newState état public du jeu,
      * @param ownState état privée du joueur.
      * ,
      */
     @Override
     public void updateState(PublicGameState newState, PlayerState ownState) {
-        sendMessage(MessageId.UPDATE_STATE,
-                Serdes.OF_PUBLIC_GAME_STATE.serialize(newState),
-                Serdes.OF_PLAYER_STATE.serialize(ownState));
+        StateDelta delta = sentState == null || resyncRequested ?
+                null :
+                StateDelta.between(sentState, sentOwnState, newState, ownState);
+        if (delta == null) {
+            try {
+                MessageChannel c = channel();
+                c.writeId(MessageId.UPDATE_STATE);
+                c.write(WireSerde.VERSION, version + 1);
+                c.write(serdes.publicGameState, newState);
+                c.write(serdes.playerState, ownState);
+                c.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            sendMessage(MessageId.UPDATE_STATE_DELTA,
+                    WireSerde.VERSION, version,
+                    serdes.stateDelta, delta);
+        }
+        version += 1;
+        sentState = newState;
+        sentOwnState = ownState;
+        resyncRequested = false;
     }
 
     /**
@@ -104,8 +241,7 @@ public final class RemotePlayerProxy implements Player {
      */
     @Override
     public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
-        sendMessage(MessageId.SET_INITIAL_TICKETS, Serdes.BAG_OF_TICKET.serialize(tickets));
-        System.out.println(tickets);
+        sendMessage(MessageId.SET_INITIAL_TICKETS, serdes.bagOfTicket, tickets);
     }
 
     /**
@@ -117,7 +253,7 @@ public final class RemotePlayerProxy implements Player {
     @Override
     public SortedBag<Ticket> chooseInitialTickets() {
         sendMessage(MessageId.CHOOSE_INITIAL_TICKETS);
-        return Serdes.BAG_OF_TICKET.deserialize(receiveMessage());
+        return receiveMessage(serdes.bagOfTicket);
     }
 
     /**
@@ -128,7 +264,7 @@ public final class RemotePlayerProxy implements Player {
     @Override
     public TurnKind nextTurn() {
         sendMessage(MessageId.NEXT_TURN);
-        return Serdes.ONE_OF_TURN_KIND.deserialize(receiveMessage());
+        return receiveMessage(WireSerde.TURN_KIND);
     }
 
     /**
@@ -140,8 +276,8 @@ public final class RemotePlayerProxy implements Player {
      */
     @Override
     public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
-        sendMessage(MessageId.CHOOSE_TICKETS, Serdes.BAG_OF_TICKET.serialize(options));
-        return Serdes.BAG_OF_TICKET.deserialize(receiveMessage());
+        sendMessage(MessageId.CHOOSE_TICKETS, serdes.bagOfTicket, options);
+        return receiveMessage(serdes.bagOfTicket);
     }
 
     /**
@@ -155,7 +291,7 @@ public final class RemotePlayerProxy implements Player {
     @Override
     public int drawSlot() {
         sendMessage(MessageId.DRAW_SLOT);
-        return Serdes.INTEGER_SERDE.deserialize(receiveMessage());
+        return receiveMessage(WireSerde.SLOT);
     }
 
     /**
@@ -167,7 +303,7 @@ public final class RemotePlayerProxy implements Player {
     @Override
     public Route claimedRoute() {
         sendMessage(MessageId.ROUTE);
-        return Serdes.ONE_OF_ROUTE.deserialize(receiveMessage());
+        return receiveMessage(serdes.route);
     }
 
     /**
@@ -180,7 +316,7 @@ public final class RemotePlayerProxy implements Player {
     @Override
     public SortedBag<Card> initialClaimCards() {
         sendMessage(MessageId.CARDS);
-        return Serdes.BAG_OF_CARD.deserialize(receiveMessage());
+        return receiveMessage(WireSerde.BAG_OF_CARD);
     }
 
     /**
@@ -192,23 +328,41 @@ public final class RemotePlayerProxy implements Player {
      */
     @Override
     public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
-        sendMessage(MessageId.CHOOSE_ADDITIONAL_CARDS, Serdes.LIST_OF_CARD_BAGS.serialize(options));
-        return Serdes.BAG_OF_CARD.deserialize(receiveMessage());
+        sendMessage(MessageId.CHOOSE_ADDITIONAL_CARDS, WireSerde.LIST_OF_CARD_BAGS, options);
+        return receiveMessage(WireSerde.BAG_OF_CARD);
     }
 
 //    ############################################## EXTENSIONS ###################################################
 
 
+    /**
+     * Methode qui demande son nom au client, une seule fois : les appels suivants retournent le meme nom.
+     * @return le nom du joueur distant
+     */
     @Override
     public String getName() {
-        sendMessage(MessageId.SEND_NAME);
-        return Serdes.STRING_SERDE.deserialize(receiveMessage());
+        if (name == null) {
+            requestName();
+            name = receiveMessage(WireSerde.STRING);
+        }
+        return name;
+    }
+
+    /**
+     * demande son nom au client, sans attendre sa reponse, que getName lira ensuite
+     * (le salon, Lobby, attendant ainsi que la reponse soit arrivee pour la lire sans bloquer).
+     */
+    void requestName() {
+        if (!nameRequested) {
+            sendMessage(MessageId.SEND_NAME);
+            nameRequested = true;
+        }
     }
 
     @Override
     public Route destroyedRoute() {
         sendMessage(MessageId.DESTROY_ROUTE);
-        return Serdes.ONE_OF_ROUTE.deserialize(receiveMessage());
+        return receiveMessage(serdes.route);
     }
 
 
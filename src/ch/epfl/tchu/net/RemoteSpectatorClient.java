@@ -0,0 +1,78 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.game.Spectator;
+import ch.epfl.tchu.game.TchuMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.Objects;
+
+/**
+ * classe représentant le client d'un spectateur distant : il se connecte à un salon (Lobby),
+ * demande à suivre l'une de ses sessions et transmet à un spectateur local la carte de la partie, puis
+ * les informations et les états publics diffusés par le serveur.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class RemoteSpectatorClient {
+
+    private final Spectator spectator;
+    private final String host;
+    private final int port;
+    private final WireProtocol protocol;
+    private final long sessionId;
+
+    /**
+     * représente un client de spectateur distant.
+     *
+     * @param spectator spectateur auquel transmettre la partie,
+     * @param host      nom de l'hote du salon,
+     * @param port      port du salon,
+     * @param protocol  format des messages, annoncé au serveur à la connexion,
+     * @param sessionId identifiant de la session à suivre.
+     */
+    public RemoteSpectatorClient(Spectator spectator, String host, int port, WireProtocol protocol, long sessionId) {
+        this.spectator = Objects.requireNonNull(spectator);
+        this.host = host;
+        this.port = port;
+        this.protocol = Objects.requireNonNull(protocol);
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * méthode qui annonce la session à suivre au serveur, puis transmet au spectateur les messages reçus
+     * jusqu'à ce que le serveur ferme la connexion, à la fin de la partie.
+     */
+    public void run() {
+        try (Socket s = new Socket(host, port)) {
+            MessageChannel c = MessageChannel.connectSpectator(s, protocol, sessionId);
+            MessageId id;
+            WireSerde.OfMap serdes = null;
+            while ((id = c.readId()) != null) {
+                switch (id) {
+
+                    case MAP:
+                        TchuMap map = c.read(WireSerde.MAP);
+                        serdes = new WireSerde.OfMap(map);
+                        spectator.initMap(map);
+                        break;
+
+                    case RECEIVE_INFO:
+                        spectator.receiveInfo(c.read(WireSerde.STRING));
+                        break;
+
+                    case UPDATE_PUBLIC_STATE:
+                        spectator.updateState(c.read(serdes.publicGameState));
+                        break;
+
+                    default:
+                        throw new IllegalArgumentException();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -3,11 +3,14 @@ package ch.epfl.tchu.net;
 import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.*;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Pattern;
 
 /**
  * classe contenant toute les serdes utilent au projet.
+ * Les serdes des routes, des billets et des etats qui en contiennent dependent de la carte de la partie,
+ * et sont donc construits pour une carte donnee.
  *
  * @author Rasan Younis (329880)
  *         Elyes Ben Chaabane (330441)
@@ -16,6 +19,22 @@ public final class Serdes {
 
     private Serdes() {}
 
+    /**
+     * @param map une carte
+     * @return le serde (de)serialisant une route de la carte donnee sous la forme de sa position dans la carte
+     */
+    public static Serde<Route> oneOfRoute(TchuMap map) {
+        return Serde.of(r -> String.valueOf(map.indexOf(r)), str -> map.routes().get(Integer.parseInt(str)));
+    }
+
+    /**
+     * @param map une carte
+     * @return le serde (de)serialisant un billet de la carte donnee sous la forme de sa position dans la carte
+     */
+    public static Serde<Ticket> oneOfTicket(TchuMap map) {
+        return Serde.of(t -> String.valueOf(map.indexOf(t)), str -> map.tickets().get(Integer.parseInt(str)));
+    }
+
     /**
      * Serde utiliser pour (de)serialiser des messages composé d'un Integer
      */
@@ -49,19 +68,23 @@ public final class Serdes {
     public static final Serde<Card> ONE_OF_CARD = Serde.oneOf(Card.ALL);
 
     /**
-     * Serde utiliser pour (de)serialiser des messages composés d'une route (Route)
+     * Serde utiliser pour (de)serialiser des messages composés d'une carte (TchuMap), sous la forme de
+     * sa description (voir TchuMap.text) encodee en Base64
      */
-    public static final Serde<Route> ONE_OF_ROUTE = Serde.oneOf(ChMap.routes());
+    public static final Serde<TchuMap> TCHU_MAP = Serde.of(
+            m -> Base64.getEncoder().encodeToString(m.text().getBytes(StandardCharsets.UTF_8)),
+            str -> TchuMap.parse(new String(Base64.getDecoder().decode(str), StandardCharsets.UTF_8))
+    );
 
     /**
-     * Serde utiliser pour (de)serialiser des messages composés d'un billet (Ticket)
+     * Serde utiliser pour (de)serialiser des messages composés d'une liste de Strings
      */
-    public static final Serde<Ticket> ONE_OF_TICKET = Serde.oneOf(ChMap.tickets());
+    public static final Serde<List<String>> LIST_OF_STRING = Serde.listOf(STRING_SERDE, ",");
 
     /**
-     * Serde utiliser pour (de)serialiser des messages composés d'une liste de Strings
+     * Serde utiliser pour (de)serialiser des messages composés d'une liste d'entiers
      */
-    public static final Serde<List<String>> LIST_OF_STRING = Serde.listOf(STRING_SERDE, ",");
+    public static final Serde<List<Integer>> LIST_OF_INTEGER = Serde.listOf(INTEGER_SERDE, ",");
 
     /**
      * Serde utiliser pour (de)serialiser des messages composés d'une liste de cartes
@@ -69,19 +92,55 @@ public final class Serdes {
     public static final Serde<List<Card>> LIST_OF_CARD = Serde.listOf(ONE_OF_CARD, ",");
 
     /**
-     * Serde utiliser pour (de)serialiser des messages composés d'une liste de routes
+     * @param map une carte
+     * @return le serde (de)serialisant une liste de routes de la carte donnee
      */
-    public static final Serde<List<Route>> LIST_OF_ROUTE = Serde.listOf(ONE_OF_ROUTE, ",");
+    public static Serde<List<Route>> listOfRoute(TchuMap map) {
+        return Serde.listOf(oneOfRoute(map), ",");
+    }
+
+    /**
+     * Serde utiliser pour (de)serialiser des messages composés d'un multiensemble de cartes (CardBag),
+     * sous la meme forme que BAG_OF_CARD, mais sans passer par des listes intermediaires
+     */
+    public static final Serde<CardBag> CARD_BAG = Serde.of(
+            cb -> {
+                StringJoiner j = new StringJoiner(",");
+                for (Card c : cb) {
+                    j.add(Integer.toString(c.ordinal()));
+                }
+                return j.toString();
+            },
+            str -> {
+                CardBag.Builder builder = new CardBag.Builder();
+                int start = 0;
+                while (start < str.length()) {
+                    int end = str.indexOf(',', start);
+                    if (end < 0) {
+                        end = str.length();
+                    }
+                    builder.add(Card.ALL.get(Integer.parseInt(str, start, end, 10)));
+                    start = end + 1;
+                }
+                return builder.build();
+            }
+    );
 
     /**
      * Serde utiliser pour (de)serialiser des messages composés d'un multiensemble de cartes
      */
-    public static final Serde<SortedBag<Card>> BAG_OF_CARD = Serde.bagOf(ONE_OF_CARD, ",");
+    public static final Serde<SortedBag<Card>> BAG_OF_CARD = Serde.of(
+            sb -> CARD_BAG.serialize(CardBag.of(sb)),
+            str -> CARD_BAG.deserialize(str).toSortedBag()
+    );
 
     /**
-     * Serde utiliser pour (de)serialiser des messages composés d'un multiensemble de billets
+     * @param map une carte
+     * @return le serde (de)serialisant un multiensemble de billets de la carte donnee
      */
-    public static final Serde<SortedBag<Ticket>> BAG_OF_TICKET = Serde.bagOf(ONE_OF_TICKET, ",");
+    public static Serde<SortedBag<Ticket>> bagOfTicket(TchuMap map) {
+        return Serde.bagOf(oneOfTicket(map), ",");
+    }
 
     /**
      * Serde utiliser pour (de)serialiser des messages composés d'une liste de multiensembles de cartes
@@ -108,14 +167,18 @@ public final class Serdes {
     );
 
     /**
-     * Serde utiliser pour (de)serialiser des messages composés d'un etat de joueurs public (PublicPlayerState)
+     * @param map carte de la partie
+     * @return le serde (de)serialisant un etat de joueurs public (PublicPlayerState) dont les routes
+     * sont celles de la carte donnee
      */
-    public static final Serde<PublicPlayerState> OF_PUBLIC_PLAYER_STATE = Serde.of(
+    public static Serde<PublicPlayerState> ofPublicPlayerState(TchuMap map) {
+        Serde<List<Route>> listOfRoute = listOfRoute(map);
+        return Serde.of(
 
             pps -> String.format("%s;%s;%s",
                     INTEGER_SERDE.serialize(pps.ticketCount()),
                     INTEGER_SERDE.serialize(pps.cardCount()),
-                    LIST_OF_ROUTE.serialize(pps.routes())),
+                    listOfRoute.serialize(pps.routes())),
             str -> {
                 String[] serializedElements = str.split(Pattern.quote(";"), -1);
                 return new PublicPlayerState(
@@ -125,45 +188,56 @@ public final class Serdes {
                         INTEGER_SERDE.deserialize(
                                 serializedElements[1]
                         ),
-                        LIST_OF_ROUTE.deserialize(
+                        listOfRoute.deserialize(
                                 serializedElements[2])
                 );
             }
-    );
+        );
+    }
 
     /**
-     * Serde utiliser pour (de)serialiser des messages composés d'un etat de joueur (PlayerState)
+     * @param map carte de la partie
+     * @return le serde (de)serialisant un etat de joueur (PlayerState) dont les routes et les billets
+     * sont ceux de la carte donnee
      */
-    public static final Serde<PlayerState> OF_PLAYER_STATE = Serde.of(
+    public static Serde<PlayerState> ofPlayerState(TchuMap map) {
+        Serde<List<Route>> listOfRoute = listOfRoute(map);
+        Serde<SortedBag<Ticket>> bagOfTicket = bagOfTicket(map);
+        return Serde.of(
             ps -> String.format("%s;%s;%s",
-                    BAG_OF_TICKET.serialize(ps.tickets()),
-                    BAG_OF_CARD.serialize(ps.cards()),
-                    LIST_OF_ROUTE.serialize(ps.routes())),
+                    bagOfTicket.serialize(ps.tickets()),
+                    CARD_BAG.serialize(ps.cards()),
+                    listOfRoute.serialize(ps.routes())),
             str -> {
                 String[] serializedElements = str.split(Pattern.quote(";"), -1);
                 return new PlayerState(
-                        BAG_OF_TICKET.deserialize(
+                        bagOfTicket.deserialize(
                                 serializedElements[0]
                         ),
-                        BAG_OF_CARD.deserialize(
+                        CARD_BAG.deserialize(
                                 serializedElements[1]
                         ),
-                        LIST_OF_ROUTE.deserialize(
+                        listOfRoute.deserialize(
                                 serializedElements[2])
                 );
             }
-    );
+        );
+    }
 
     /**
-     * Serde utiliser pour (de)serialiser des messages composés d'un etat de jeu public (PublicGameState)
+     * @param map carte de la partie
+     * @return le serde (de)serialisant un etat de jeu public (PublicGameState) dont les routes
+     * sont celles de la carte donnee
      */
-    public static final Serde<PublicGameState> OF_PUBLIC_GAME_STATE = Serde.of(
+    public static Serde<PublicGameState> ofPublicGameState(TchuMap map) {
+        Serde<PublicPlayerState> ofPublicPlayerState = ofPublicPlayerState(map);
+        return Serde.of(
             pgs -> String.format("%s:%s:%s:%s:%s:%s",
                     INTEGER_SERDE.serialize(pgs.ticketsCount()),
                     OF_PUBLIC_CARD_STATE.serialize(pgs.cardState()),
                     ONE_OF_PLAYER_ID.serialize(pgs.currentPlayerId()),
-                    OF_PUBLIC_PLAYER_STATE.serialize(pgs.playerState(PlayerId.PLAYER_1)),
-                    OF_PUBLIC_PLAYER_STATE.serialize(pgs.playerState(PlayerId.PLAYER_2)),
+                    ofPublicPlayerState.serialize(pgs.playerState(PlayerId.PLAYER_1)),
+                    ofPublicPlayerState.serialize(pgs.playerState(PlayerId.PLAYER_2)),
                     pgs.lastPlayer() == null ? "" : ONE_OF_PLAYER_ID.serialize(pgs.lastPlayer())),
             str -> {
                 String[] serializedElements = str.split(Pattern.quote(":"), -1);
@@ -179,11 +253,11 @@ public final class Serdes {
                         ),
                         Map.of(
                                 PlayerId.PLAYER_1,
-                                OF_PUBLIC_PLAYER_STATE.deserialize(
+                                ofPublicPlayerState.deserialize(
                                         serializedElements[3]
                                 ),
                                 PlayerId.PLAYER_2,
-                                OF_PUBLIC_PLAYER_STATE.deserialize(
+                                ofPublicPlayerState.deserialize(
                                         serializedElements[4]
                                 )
                         ),
@@ -191,7 +265,6 @@ public final class Serdes {
                                 ONE_OF_PLAYER_ID.deserialize(serializedElements[5])
                 );
             }
-
-
-    );
+        );
+    }
 }
@@ -0,0 +1,203 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.game.PublicGameState;
+import ch.epfl.tchu.game.Spectator;
+import ch.epfl.tchu.game.TchuMap;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * classe représentant la diffusion d'une partie à un nombre quelconque de spectateurs distants,
+ * connectés à un NioServer : chaque état public (UPDATE_PUBLIC_STATE) et chaque information (RECEIVE_INFO)
+ * n'est sérialisé qu'une fois par protocole, et les mêmes octets sont envoyés à tous les spectateurs.
+ * La partie n'attend jamais un spectateur : tant que le dernier message envoyé à un spectateur ne lui
+ * est pas parvenu, les suivants sont mis de côté, seul le plus récent des états étant conservé ;
+ * les états intermédiaires sont abandonnés.
+ * La carte de la partie (MAP) est envoyée à chaque spectateur avant tout autre message, et n'est jamais abandonnée.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+final class SpectatorBroadcast implements Spectator {
+
+    /**
+     * nombre maximal d'informations mises de cote pour un spectateur, au-dela duquel les plus anciennes
+     * sont abandonnees.
+     */
+    static final int MAX_PENDING_INFOS = 256;
+
+    private final List<Viewer> viewers = new CopyOnWriteArrayList<>();
+    private final Map<WireProtocol, byte[]> stateFrames = new EnumMap<>(WireProtocol.class);
+    private final Map<WireProtocol, byte[]> mapFrames = new EnumMap<>(WireProtocol.class);
+    private final AtomicLong droppedStates = new AtomicLong();
+    private TchuMap map;
+    private WireSerde.OfMap serdes;
+    private PublicGameState lastState;
+    private boolean closed;
+
+    /**
+     * ajoute un spectateur, qui recoit immediatement la carte et le dernier etat du jeu (s'ils sont connus),
+     * puis les informations et etats suivants ; ferme sa connexion si la diffusion est terminee.
+     *
+     * @param connection connexion du spectateur, dont l'action de fin d'envoi est remplacee
+     * @param protocol   protocole annonce par le spectateur
+     */
+    synchronized void attach(NioServer.Connection connection, WireProtocol protocol) {
+        if (closed) {
+            connection.close();
+            return;
+        }
+        Viewer viewer = new Viewer(connection, protocol);
+        viewers.add(viewer);
+        connection.onDrained(viewer::drain);
+        if (map != null) {
+            viewer.offerMap(mapFrame(protocol));
+        }
+        if (lastState != null) {
+            viewer.offerState(stateFrame(protocol));
+        }
+    }
+
+    /**
+     * @return le nombre de spectateurs
+     */
+    int spectatorCount() {
+        return viewers.size();
+    }
+
+    /**
+     * @return le nombre d'etats qui n'ont pas ete envoyes a un spectateur trop lent
+     */
+    long droppedStates() {
+        return droppedStates.get();
+    }
+
+    @Override
+    public synchronized void initMap(TchuMap map) {
+        this.map = map;
+        serdes = new WireSerde.OfMap(map);
+        mapFrames.clear();
+        for (Viewer viewer : viewers) {
+            viewer.offerMap(mapFrame(viewer.protocol));
+        }
+    }
+
+    @Override
+    public synchronized void receiveInfo(String info) {
+        Map<WireProtocol, byte[]> frames = new EnumMap<>(WireProtocol.class);
+        for (Viewer viewer : viewers) {
+            viewer.offerInfo(frames.computeIfAbsent(viewer.protocol,
+                    p -> MessageChannel.encode(p, MessageId.RECEIVE_INFO, WireSerde.STRING, info)));
+        }
+    }
+
+    @Override
+    public synchronized void updateState(PublicGameState newState) {
+        lastState = newState;
+        stateFrames.clear();
+        for (Viewer viewer : viewers) {
+            viewer.offerState(stateFrame(viewer.protocol));
+        }
+    }
+
+    /**
+     * termine la diffusion : envoie a chaque spectateur ce qui a ete mis de cote pour lui, puis ferme sa connexion.
+     */
+    synchronized void close() {
+        closed = true;
+        for (Viewer viewer : viewers) {
+            viewer.close();
+        }
+        viewers.clear();
+    }
+
+    private byte[] mapFrame(WireProtocol protocol) {
+        return mapFrames.computeIfAbsent(protocol, p -> MessageChannel.encode(p, MessageId.MAP, WireSerde.MAP, map));
+    }
+
+    private byte[] stateFrame(WireProtocol protocol) {
+        return stateFrames.computeIfAbsent(protocol,
+                p -> MessageChannel.encode(p, MessageId.UPDATE_PUBLIC_STATE, serdes.publicGameState, lastState));
+    }
+
+    /**
+     * classe représentant un spectateur et les messages mis de côté pour lui.
+     */
+    private final class Viewer {
+        private final NioServer.Connection connection;
+        private final WireProtocol protocol;
+        private final Deque<byte[]> pendingInfos = new ArrayDeque<>();
+        private byte[] pendingMap;
+        private byte[] pendingState;
+
+        private Viewer(NioServer.Connection connection, WireProtocol protocol) {
+            this.connection = connection;
+            this.protocol = protocol;
+        }
+
+        private synchronized void offerMap(byte[] frame) {
+            pendingMap = frame;
+            if (connection.pendingBytes() == 0) {
+                drain();
+            }
+        }
+
+        private synchronized void offerInfo(byte[] frame) {
+            if (pendingInfos.size() == MAX_PENDING_INFOS) {
+                pendingInfos.removeFirst();
+            }
+            pendingInfos.addLast(frame);
+            if (connection.pendingBytes() == 0) {
+                drain();
+            }
+        }
+
+        private synchronized void offerState(byte[] frame) {
+            if (pendingState != null) {
+                droppedStates.incrementAndGet();
+            }
+            pendingState = frame;
+            if (connection.pendingBytes() == 0) {
+                drain();
+            }
+        }
+
+        /**
+         * envoie ce qui a ete mis de cote ; appelee lorsque plus rien n'est en cours d'envoi.
+         */
+        private synchronized void drain() {
+            if (pendingMap == null && pendingInfos.isEmpty() && pendingState == null) {
+                return;
+            }
+            OutputStream out = connection.outputStream();
+            try {
+                if (pendingMap != null) {
+                    out.write(pendingMap);
+                }
+                for (byte[] info : pendingInfos) {
+                    out.write(info);
+                }
+                if (pendingState != null) {
+                    out.write(pendingState);
+                }
+                out.flush();
+            } catch (IOException e) {
+                //spectateur deconnecte ou trop lent : il n'est plus suivi
+                viewers.remove(this);
+                connection.close();
+            }
+            pendingMap = null;
+            pendingInfos.clear();
+            pendingState = null;
+        }
+
+        private synchronized void close() {
+            drain();
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * classe représentant la place d'un joueur distant dans une session : les appels sont transmis au joueur distant
+ * tant qu'il répond, puis, s'il se déconnecte ou ne répond plus à temps (voir Lobby.REPLY_TIMEOUT_MILLIS), à un
+ * remplaçant, qui joue à sa place jusqu'à la fin de la partie après avoir reçu ce que le joueur distant en savait.
+ * Si le joueur distant se déconnecte au milieu de son tour, le tour est achevé pour l'action qu'il a choisie :
+ * la route qu'il a choisie est prise avec les cartes utilisant le moins de locomotives, et la route détruite est
+ * la plus longue de l'adversaire. Lorsque l'action choisie ne peut être achevée, la déconnexion est propagée,
+ * et la partie interrompue peut être reprise au début de ce tour.
+ * Les places d'une même session partagent le nombre de leurs joueurs encore connectés : lorsque le dernier
+ * se déconnecte, il n'y a plus personne pour qui jouer, et l'exception est propagée, ce qui interrompt la partie.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+final class StandInPlayer implements Player {
+
+    private final Player remote;
+    private final Player substitute;
+    private final AtomicInteger connectedPlayers;
+    private volatile boolean replaced;
+
+    private PlayerId ownId;
+    private Map<PlayerId, String> playerNames;
+    private TchuMap map;
+    private SortedBag<Ticket> initialTickets;
+    private PublicGameState lastState;
+    private PlayerState lastOwnState;
+    //action choisie par le joueur distant pour le tour en cours, null pendant les tours du remplaçant
+    private TurnKind remoteTurn;
+    private Route remoteRoute;
+    private UncheckedIOException disconnection;
+
+    /**
+     * @param remote           joueur distant
+     * @param substitute       joueur remplaçant le joueur distant s'il se déconnecte
+     * @param connectedPlayers nombre de joueurs distants encore connectés de la session, partagé par ses places
+     */
+    StandInPlayer(Player remote, Player substitute, AtomicInteger connectedPlayers) {
+        this.remote = remote;
+        this.substitute = substitute;
+        this.connectedPlayers = connectedPlayers;
+    }
+
+    /**
+     * @return vrai ssi le joueur distant a été remplacé
+     */
+    boolean isReplaced() {
+        return replaced;
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames, TchuMap map) {
+        this.ownId = ownId;
+        this.playerNames = playerNames;
+        this.map = map;
+        tell(p -> p.initPlayers(ownId, playerNames, map));
+    }
+
+    @Override
+    public void receiveInfo(String info) {
+        tell(p -> p.receiveInfo(info));
+    }
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        this.lastState = newState;
+        this.lastOwnState = ownState;
+        tell(p -> p.updateState(newState, ownState));
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        this.initialTickets = tickets;
+        tell(p -> p.setInitialTicketChoice(tickets));
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        return ask(Player::chooseInitialTickets);
+    }
+
+    @Override
+    public TurnKind nextTurn() {
+        TurnKind turn = ask(Player::nextTurn);
+        remoteTurn = replaced ? null : turn;
+        remoteRoute = null;
+        return turn;
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        return ask(p -> p.chooseTickets(options));
+    }
+
+    @Override
+    public int drawSlot() {
+        return ask(Player::drawSlot);
+    }
+
+    @Override
+    public Route claimedRoute() {
+        Route route = ask(Player::claimedRoute);
+        if (!replaced) {
+            remoteRoute = route;
+        } else if (remoteTurn != null && (route == null || !lastOwnState.canClaimRoute(route))) {
+            throw disconnection;
+        }
+        return route;
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return ask(p -> replaced && remoteRoute != null ? cheapestClaimCards(remoteRoute) : p.initialClaimCards());
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        return ask(p -> p.chooseAdditionalCards(options));
+    }
+
+    /**
+     * @return le nom du joueur distant, que le remplaçant garde
+     */
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Route destroyedRoute() {
+        return ask(p -> replaced && remoteTurn == TurnKind.DESTROY_ROUTE ? longestOpponentRoute() : p.destroyedRoute());
+    }
+
+    /**
+     * @param route route choisie par le joueur distant
+     * @return les cartes permettant de prendre la route donnée qui utilisent le moins de locomotives
+     * @throws UncheckedIOException la déconnexion du joueur distant, si le joueur ne peut prendre la route
+     */
+    private SortedBag<Card> cheapestClaimCards(Route route) {
+        if (!lastOwnState.canClaimRoute(route)) {
+            throw disconnection;
+        }
+        return lastOwnState.possibleClaimCards(route).get(0);
+    }
+
+    /**
+     * @return la plus longue route de l'adversaire
+     * @throws UncheckedIOException la déconnexion du joueur distant, si l'adversaire n'a aucune route
+     */
+    private Route longestOpponentRoute() {
+        return lastState.playerState(ownId.next()).routes().stream()
+                .max(Comparator.comparingInt(Route::length))
+                .orElseThrow(() -> disconnection);
+    }
+
+    private void tell(Consumer<Player> message) {
+        ask(p -> {
+            message.accept(p);
+            return null;
+        });
+    }
+
+    private <T> T ask(Function<Player, T> question) {
+        if (!replaced) {
+            try {
+                return question.apply(remote);
+            } catch (UncheckedIOException e) {
+                replace(e);
+            }
+        }
+        return question.apply(substitute);
+    }
+
+    /**
+     * met le remplaçant au courant de la partie, à moins que le joueur distant n'ait été le dernier connecté.
+     *
+     * @param e exception signalant la déconnexion du joueur distant
+     * @throws UncheckedIOException l'exception donnée, si plus aucun joueur distant n'est connecté
+     */
+    private void replace(UncheckedIOException e) {
+        if (connectedPlayers.decrementAndGet() == 0) {
+            throw e;
+        }
+        replaced = true;
+        disconnection = e;
+        if (ownId != null) {
+            substitute.initPlayers(ownId, playerNames, map);
+        }
+        if (initialTickets != null) {
+            substitute.setInitialTicketChoice(initialTickets);
+        }
+        if (lastState != null) {
+            substitute.updateState(lastState, lastOwnState);
+        }
+    }
+}
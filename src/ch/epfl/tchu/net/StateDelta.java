@@ -0,0 +1,307 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * classe (immuable) représentant la différence entre deux couples (état public du jeu, état du joueur)
+ * successifs envoyés par un mandataire à son client : les compteurs, les cartes face visible qui ont changé,
+ * les routes prises ou détruites et les cartes et billets gagnés ou perdus par le joueur.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+final class StateDelta {
+
+    private final int ticketsCount;
+    private final int deckSize;
+    private final int discardsSize;
+    private final PlayerId currentPlayerId;
+    private final PlayerId lastPlayer;
+    private final List<Integer> changedSlots;
+    private final List<Card> changedFaceUpCards;
+    private final List<Integer> ticketCounts;
+    private final List<Integer> cardCounts;
+    private final List<List<Route>> addedRoutes;
+    private final List<List<Route>> removedRoutes;
+    private final List<Route> ownAddedRoutes;
+    private final List<Route> ownRemovedRoutes;
+    private final SortedBag<Ticket> addedTickets;
+    private final CardBag addedCards;
+    private final CardBag removedCards;
+
+    private StateDelta(int ticketsCount, int deckSize, int discardsSize,
+                       PlayerId currentPlayerId, PlayerId lastPlayer,
+                       List<Integer> changedSlots, List<Card> changedFaceUpCards,
+                       List<Integer> ticketCounts, List<Integer> cardCounts,
+                       List<List<Route>> addedRoutes, List<List<Route>> removedRoutes,
+                       List<Route> ownAddedRoutes, List<Route> ownRemovedRoutes,
+                       SortedBag<Ticket> addedTickets, CardBag addedCards, CardBag removedCards) {
+        this.ticketsCount = ticketsCount;
+        this.deckSize = deckSize;
+        this.discardsSize = discardsSize;
+        this.currentPlayerId = Objects.requireNonNull(currentPlayerId);
+        this.lastPlayer = lastPlayer;
+        this.changedSlots = List.copyOf(changedSlots);
+        this.changedFaceUpCards = List.copyOf(changedFaceUpCards);
+        this.ticketCounts = List.copyOf(ticketCounts);
+        this.cardCounts = List.copyOf(cardCounts);
+        this.addedRoutes = List.copyOf(addedRoutes);
+        this.removedRoutes = List.copyOf(removedRoutes);
+        this.ownAddedRoutes = List.copyOf(ownAddedRoutes);
+        this.ownRemovedRoutes = List.copyOf(ownRemovedRoutes);
+        this.addedTickets = Objects.requireNonNull(addedTickets);
+        this.addedCards = Objects.requireNonNull(addedCards);
+        this.removedCards = Objects.requireNonNull(removedCards);
+    }
+
+    /**
+     * @param oldState    etat public precedent
+     * @param oldOwnState etat precedent du joueur
+     * @param newState    nouvel etat public
+     * @param newOwnState nouvel etat du joueur
+     * @return la difference permettant de reconstruire les nouveaux etats a partir des precedents,
+     * ou null si elle ne peut pas etre exprimee (le joueur aurait perdu des billets, ou l'ordre
+     * des routes d'un joueur aurait change), auquel cas il faut envoyer les etats complets.
+     */
+    static StateDelta between(PublicGameState oldState, PlayerState oldOwnState,
+                              PublicGameState newState, PlayerState newOwnState) {
+        List<Integer> changedSlots = new ArrayList<>();
+        List<Card> changedFaceUpCards = new ArrayList<>();
+        for (int slot : Constants.FACE_UP_CARD_SLOTS) {
+            Card card = newState.cardState().faceUpCard(slot);
+            if (card != oldState.cardState().faceUpCard(slot)) {
+                changedSlots.add(slot);
+                changedFaceUpCards.add(card);
+            }
+        }
+
+        List<Integer> ticketCounts = new ArrayList<>();
+        List<Integer> cardCounts = new ArrayList<>();
+        List<List<Route>> addedRoutes = new ArrayList<>();
+        List<List<Route>> removedRoutes = new ArrayList<>();
+        for (PlayerId id : PlayerId.ALL) {
+            List<Route> oldRoutes = oldState.playerState(id).routes();
+            List<Route> newRoutes = newState.playerState(id).routes();
+            ticketCounts.add(newState.playerState(id).ticketCount());
+            cardCounts.add(newState.playerState(id).cardCount());
+            addedRoutes.add(missingFrom(newRoutes, oldRoutes));
+            removedRoutes.add(missingFrom(oldRoutes, newRoutes));
+            if (!withChangedRoutes(oldRoutes, removedRoutes.get(id.ordinal()), addedRoutes.get(id.ordinal()))
+                    .equals(newRoutes)) {
+                return null;
+            }
+        }
+
+        List<Route> ownAddedRoutes = missingFrom(newOwnState.routes(), oldOwnState.routes());
+        List<Route> ownRemovedRoutes = missingFrom(oldOwnState.routes(), newOwnState.routes());
+        if (!withChangedRoutes(oldOwnState.routes(), ownRemovedRoutes, ownAddedRoutes).equals(newOwnState.routes())
+                || !newOwnState.tickets().contains(oldOwnState.tickets())) {
+            return null;
+        }
+
+        CardBag.Builder addedCards = new CardBag.Builder();
+        CardBag.Builder removedCards = new CardBag.Builder();
+        for (Card c : Card.ALL) {
+            int difference = newOwnState.cards().countOf(c) - oldOwnState.cards().countOf(c);
+            if (difference > 0) {
+                addedCards.add(difference, c);
+            } else {
+                removedCards.add(-difference, c);
+            }
+        }
+
+        return new StateDelta(newState.ticketsCount(), newState.cardState().deckSize(),
+                newState.cardState().discardsSize(), newState.currentPlayerId(), newState.lastPlayer(),
+                changedSlots, changedFaceUpCards, ticketCounts, cardCounts, addedRoutes, removedRoutes,
+                ownAddedRoutes, ownRemovedRoutes, newOwnState.tickets().difference(oldOwnState.tickets()),
+                addedCards.build(), removedCards.build());
+    }
+
+    /**
+     * @param oldState etat public auquel appliquer la difference
+     * @return le nouvel etat public
+     */
+    PublicGameState applyTo(PublicGameState oldState) {
+        List<Card> faceUpCards = new ArrayList<>(oldState.cardState().faceUpCards());
+        for (int i = 0; i < changedSlots.size(); ++i) {
+            faceUpCards.set(changedSlots.get(i), changedFaceUpCards.get(i));
+        }
+
+        Map<PlayerId, PublicPlayerState> playerStates = new EnumMap<>(PlayerId.class);
+        for (PlayerId id : PlayerId.ALL) {
+            playerStates.put(id, new PublicPlayerState(ticketCounts.get(id.ordinal()), cardCounts.get(id.ordinal()),
+                    withChangedRoutes(oldState.playerState(id).routes(),
+                            removedRoutes.get(id.ordinal()), addedRoutes.get(id.ordinal()))));
+        }
+
+        return new PublicGameState(ticketsCount, new PublicCardState(faceUpCards, deckSize, discardsSize),
+                currentPlayerId, playerStates, lastPlayer);
+    }
+
+    /**
+     * @param oldOwnState etat du joueur auquel appliquer la difference
+     * @return le nouvel etat du joueur
+     */
+    PlayerState applyTo(PlayerState oldOwnState) {
+        return new PlayerState(oldOwnState.tickets().union(addedTickets),
+                oldOwnState.cards().difference(removedCards).union(addedCards),
+                withChangedRoutes(oldOwnState.routes(), ownRemovedRoutes, ownAddedRoutes));
+    }
+
+    private static List<Route> missingFrom(List<Route> routes, List<Route> others) {
+        Set<Route> otherSet = new HashSet<>(others);
+        List<Route> missing = new ArrayList<>();
+        for (Route r : routes) {
+            if (!otherSet.contains(r)) {
+                missing.add(r);
+            }
+        }
+        return missing;
+    }
+
+    private static List<Route> withChangedRoutes(List<Route> routes, List<Route> removed, List<Route> added) {
+        List<Route> newRoutes = new ArrayList<>(routes);
+        newRoutes.removeAll(removed);
+        newRoutes.addAll(added);
+        return newRoutes;
+    }
+
+    /**
+     * @param map carte de la partie
+     * @return le serde textuel d'une difference : ses champs separes par des points-virgules.
+     */
+    static Serde<StateDelta> serde(TchuMap map) {
+        Serde<List<Route>> listOfRoute = Serdes.listOfRoute(map);
+        Serde<SortedBag<Ticket>> bagOfTicket = Serdes.bagOfTicket(map);
+        return Serde.of(
+            d -> {
+                StringJoiner j = new StringJoiner(";");
+                j.add(Serdes.INTEGER_SERDE.serialize(d.ticketsCount))
+                        .add(Serdes.INTEGER_SERDE.serialize(d.deckSize))
+                        .add(Serdes.INTEGER_SERDE.serialize(d.discardsSize))
+                        .add(Serdes.ONE_OF_PLAYER_ID.serialize(d.currentPlayerId))
+                        .add(d.lastPlayer == null ? "" : Serdes.ONE_OF_PLAYER_ID.serialize(d.lastPlayer))
+                        .add(Serdes.LIST_OF_INTEGER.serialize(d.changedSlots))
+                        .add(Serdes.LIST_OF_CARD.serialize(d.changedFaceUpCards));
+                for (PlayerId id : PlayerId.ALL) {
+                    j.add(Serdes.INTEGER_SERDE.serialize(d.ticketCounts.get(id.ordinal())))
+                            .add(Serdes.INTEGER_SERDE.serialize(d.cardCounts.get(id.ordinal())))
+                            .add(listOfRoute.serialize(d.addedRoutes.get(id.ordinal())))
+                            .add(listOfRoute.serialize(d.removedRoutes.get(id.ordinal())));
+                }
+                return j.add(listOfRoute.serialize(d.ownAddedRoutes))
+                        .add(listOfRoute.serialize(d.ownRemovedRoutes))
+                        .add(bagOfTicket.serialize(d.addedTickets))
+                        .add(Serdes.CARD_BAG.serialize(d.addedCards))
+                        .add(Serdes.CARD_BAG.serialize(d.removedCards))
+                        .toString();
+            },
+            str -> {
+                String[] e = str.split(Pattern.quote(";"), -1);
+                List<Integer> ticketCounts = new ArrayList<>();
+                List<Integer> cardCounts = new ArrayList<>();
+                List<List<Route>> addedRoutes = new ArrayList<>();
+                List<List<Route>> removedRoutes = new ArrayList<>();
+                int i = 7;
+                for (int p = 0; p < PlayerId.COUNT; ++p) {
+                    ticketCounts.add(Serdes.INTEGER_SERDE.deserialize(e[i++]));
+                    cardCounts.add(Serdes.INTEGER_SERDE.deserialize(e[i++]));
+                    addedRoutes.add(listOfRoute.deserialize(e[i++]));
+                    removedRoutes.add(listOfRoute.deserialize(e[i++]));
+                }
+                return new StateDelta(
+                        Serdes.INTEGER_SERDE.deserialize(e[0]),
+                        Serdes.INTEGER_SERDE.deserialize(e[1]),
+                        Serdes.INTEGER_SERDE.deserialize(e[2]),
+                        Serdes.ONE_OF_PLAYER_ID.deserialize(e[3]),
+                        e[4].equals("") ? null : Serdes.ONE_OF_PLAYER_ID.deserialize(e[4]),
+                        Serdes.LIST_OF_INTEGER.deserialize(e[5]),
+                        Serdes.LIST_OF_CARD.deserialize(e[6]),
+                        ticketCounts, cardCounts, addedRoutes, removedRoutes,
+                        listOfRoute.deserialize(e[i++]),
+                        listOfRoute.deserialize(e[i++]),
+                        bagOfTicket.deserialize(e[i++]),
+                        Serdes.CARD_BAG.deserialize(e[i++]),
+                        Serdes.CARD_BAG.deserialize(e[i]));
+            }
+        );
+    }
+
+    /**
+     * @param map carte de la partie
+     * @return le serde binaire d'une difference : les compteurs sur un octet chacun (deux pour ceux des billets
+     * d'une carte de plus de 255 billets), les emplacements face visible modifies sous la forme d'un masque
+     * suivi des nouvelles cartes, puis les listes de routes et de cartes precedees de leur taille.
+     */
+    static BinarySerde<StateDelta> binarySerde(TchuMap map) {
+        BinarySerde<Integer> ticketCount = BinarySerdes.ticketCount(map);
+        BinarySerde<List<Route>> listOfRoute = BinarySerdes.listOfRoute(map);
+        BinarySerde<SortedBag<Ticket>> bagOfTicket = BinarySerdes.bagOfTicket(map);
+        return BinarySerde.of(
+            (out, d) -> {
+                ticketCount.write(out, d.ticketsCount);
+                BinarySerdes.UNSIGNED_BYTE.write(out, d.deckSize);
+                BinarySerdes.UNSIGNED_BYTE.write(out, d.discardsSize);
+                BinarySerdes.ONE_OF_PLAYER_ID.write(out, d.currentPlayerId);
+                BinarySerdes.OPTIONAL_PLAYER_ID.write(out, d.lastPlayer);
+                int slotMask = 0;
+                for (int slot : d.changedSlots) {
+                    slotMask |= 1 << slot;
+                }
+                out.writeByte(slotMask);
+                for (Card c : d.changedFaceUpCards) {
+                    BinarySerdes.ONE_OF_CARD.write(out, c);
+                }
+                for (PlayerId id : PlayerId.ALL) {
+                    ticketCount.write(out, d.ticketCounts.get(id.ordinal()));
+                    BinarySerdes.UNSIGNED_BYTE.write(out, d.cardCounts.get(id.ordinal()));
+                    listOfRoute.write(out, d.addedRoutes.get(id.ordinal()));
+                    listOfRoute.write(out, d.removedRoutes.get(id.ordinal()));
+                }
+                listOfRoute.write(out, d.ownAddedRoutes);
+                listOfRoute.write(out, d.ownRemovedRoutes);
+                bagOfTicket.write(out, d.addedTickets);
+                BinarySerdes.LIST_OF_CARD.write(out, d.addedCards.toList());
+                BinarySerdes.LIST_OF_CARD.write(out, d.removedCards.toList());
+            },
+            in -> {
+                int ticketsCount = ticketCount.read(in);
+                int deckSize = BinarySerdes.UNSIGNED_BYTE.read(in);
+                int discardsSize = BinarySerdes.UNSIGNED_BYTE.read(in);
+                PlayerId currentPlayerId = BinarySerdes.ONE_OF_PLAYER_ID.read(in);
+                PlayerId lastPlayer = BinarySerdes.OPTIONAL_PLAYER_ID.read(in);
+                int slotMask = in.readUnsignedByte();
+                List<Integer> changedSlots = new ArrayList<>();
+                List<Card> changedFaceUpCards = new ArrayList<>();
+                for (int slot : Constants.FACE_UP_CARD_SLOTS) {
+                    if ((slotMask & (1 << slot)) != 0) {
+                        changedSlots.add(slot);
+                        changedFaceUpCards.add(BinarySerdes.ONE_OF_CARD.read(in));
+                    }
+                }
+                List<Integer> ticketCounts = new ArrayList<>();
+                List<Integer> cardCounts = new ArrayList<>();
+                List<List<Route>> addedRoutes = new ArrayList<>();
+                List<List<Route>> removedRoutes = new ArrayList<>();
+                for (int p = 0; p < PlayerId.COUNT; ++p) {
+                    ticketCounts.add(ticketCount.read(in));
+                    cardCounts.add(BinarySerdes.UNSIGNED_BYTE.read(in));
+                    addedRoutes.add(listOfRoute.read(in));
+                    removedRoutes.add(listOfRoute.read(in));
+                }
+                List<Route> ownAddedRoutes = listOfRoute.read(in);
+                List<Route> ownRemovedRoutes = listOfRoute.read(in);
+                SortedBag<Ticket> addedTickets = bagOfTicket.read(in);
+                CardBag addedCards = CardBag.of(BinarySerdes.LIST_OF_CARD.read(in));
+                CardBag removedCards = CardBag.of(BinarySerdes.LIST_OF_CARD.read(in));
+                return new StateDelta(ticketsCount, deckSize, discardsSize, currentPlayerId, lastPlayer,
+                        changedSlots, changedFaceUpCards, ticketCounts, cardCounts, addedRoutes, removedRoutes,
+                        ownAddedRoutes, ownRemovedRoutes, addedTickets, addedCards, removedCards);
+            }
+        );
+    }
+}
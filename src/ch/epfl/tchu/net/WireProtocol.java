@@ -0,0 +1,21 @@
+package ch.epfl.tchu.net;
+
+/**
+ * énumération représentant les formats dans lesquels un client et un mandataire peuvent échanger leurs messages.
+ * Le client annonce le format choisi (par une ligne ASCII contenant son nom) dès qu'il s'est connecté,
+ * le mandataire l'adopte pour le reste de la partie.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public enum WireProtocol {
+    /**
+     * messages textuels (ASCII), un par ligne, dont les arguments sont (dé)sérialisés par les serdes de Serdes.
+     */
+    TEXT,
+
+    /**
+     * messages binaires compacts, dont les arguments sont (dé)sérialisés par les serdes de BinarySerdes.
+     */
+    BINARY
+}
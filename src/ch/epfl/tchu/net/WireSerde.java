@@ -0,0 +1,74 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * classe associant à un type de valeur échangée entre client et mandataire
+ * son serde textuel et son serde binaire, afin que les messages ne soient écrits
+ * qu'une fois, quel que soit le protocole utilisé.
+ * Les serdes des valeurs qui dépendent de la carte de la partie (routes, billets et états) sont regroupés
+ * dans OfMap, construit pour la carte annoncée au début de la partie (MessageId.MAP).
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+final class WireSerde<T> {
+
+    static final WireSerde<Integer> VERSION = new WireSerde<>(Serdes.INTEGER_SERDE, BinarySerdes.INTEGER);
+    static final WireSerde<Integer> SLOT = new WireSerde<>(Serdes.INTEGER_SERDE, BinarySerdes.BYTE);
+    static final WireSerde<String> STRING = new WireSerde<>(Serdes.STRING_SERDE, BinarySerdes.STRING);
+    static final WireSerde<List<String>> LIST_OF_STRING = new WireSerde<>(Serdes.LIST_OF_STRING, BinarySerdes.LIST_OF_STRING);
+    static final WireSerde<PlayerId> PLAYER_ID = new WireSerde<>(Serdes.ONE_OF_PLAYER_ID, BinarySerdes.ONE_OF_PLAYER_ID);
+    static final WireSerde<Player.TurnKind> TURN_KIND = new WireSerde<>(Serdes.ONE_OF_TURN_KIND, BinarySerdes.ONE_OF_TURN_KIND);
+    static final WireSerde<TchuMap> MAP = new WireSerde<>(Serdes.TCHU_MAP, BinarySerdes.TCHU_MAP);
+    static final WireSerde<SortedBag<Card>> BAG_OF_CARD = new WireSerde<>(Serdes.BAG_OF_CARD, BinarySerdes.BAG_OF_CARD);
+    static final WireSerde<List<SortedBag<Card>>> LIST_OF_CARD_BAGS = new WireSerde<>(Serdes.LIST_OF_CARD_BAGS, BinarySerdes.LIST_OF_CARD_BAGS);
+
+    private final Serde<T> text;
+    private final BinarySerde<T> binary;
+
+    private WireSerde(Serde<T> text, BinarySerde<T> binary) {
+        this.text = Objects.requireNonNull(text);
+        this.binary = Objects.requireNonNull(binary);
+    }
+
+    /**
+     * @return le serde utilise par le protocole WireProtocol.TEXT
+     */
+    Serde<T> text() {
+        return text;
+    }
+
+    /**
+     * @return le serde utilise par le protocole WireProtocol.BINARY
+     */
+    BinarySerde<T> binary() {
+        return binary;
+    }
+
+    /**
+     * classe regroupant les serdes des valeurs qui dépendent de la carte de la partie.
+     */
+    static final class OfMap {
+        final WireSerde<Route> route;
+        final WireSerde<SortedBag<Ticket>> bagOfTicket;
+        final WireSerde<PublicGameState> publicGameState;
+        final WireSerde<PlayerState> playerState;
+        final WireSerde<StateDelta> stateDelta;
+
+        /**
+         * @param map carte de la partie
+         */
+        OfMap(TchuMap map) {
+            route = new WireSerde<>(Serdes.oneOfRoute(map), BinarySerdes.oneOfRoute(map));
+            bagOfTicket = new WireSerde<>(Serdes.bagOfTicket(map), BinarySerdes.bagOfTicket(map));
+            publicGameState = new WireSerde<>(Serdes.ofPublicGameState(map), BinarySerdes.ofPublicGameState(map));
+            playerState = new WireSerde<>(Serdes.ofPlayerState(map), BinarySerdes.ofPlayerState(map));
+            stateDelta = new WireSerde<>(StateDelta.serde(map), StateDelta.binarySerde(map));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * classe mesurant le debit d'un processus hebergeant de nombreuses parties simultanees : chaque partie
+ * (Game, entre deux ScriptedPlayer, sur la carte de la Suisse) est jouee sur son propre fil d'execution, toutes demarrant en meme temps.
+ * Pour verifier que les parties sont bien independantes, le resultat de chacune (points finaux et nombre de tours,
+ * ou exception) est ensuite compare a celui de la meme partie jouee seule.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class GameThroughput {
+
+    private GameThroughput() {}
+
+    /**
+     * lance la mesure et affiche le debit et le nombre de parties dont le resultat differe.
+     *
+     * @param args nombre de parties simultanees (1000 par defaut) et graine (2021 par defaut).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 2021;
+        Preconditions.checkArgument(games > 0);
+
+        String[] results = new String[games];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(games);
+        for (int i = 0; i < games; ++i) {
+            int game = i;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                results[game] = result(seed + game);
+            });
+            t.start();
+            threads.add(t);
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        int mismatches = 0;
+        for (int i = 0; i < games; ++i) {
+            if (!result(seed + i).equals(results[i])) {
+                ++mismatches;
+            }
+        }
+        System.out.printf("%d parties simultanees, chacune sur son fil : %.1f s, %.1f parties/s%n",
+                games, seconds, games / seconds);
+        System.out.printf("%d parties dont le resultat differe de celui de la partie jouee seule%n", mismatches);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String result(long gameSeed) {
+        try {
+            Game game = Simulator.playGame(ChMap.map(), gameSeed);
+            return game.finalPoints() + " en " + game.turnCount() + " tours";
+        } catch (RuntimeException e) {
+            return e.toString();
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.*;
+
+/**
+ * classe représentant un joueur automatique glouton, très peu coûteux : à chaque tour, il calcule pour chacun
+ * de ses billets non réalisés le plus court chemin (en wagons) sur la carte, ses propres routes ne coûtant rien
+ * et celles de l'adversaire étant infranchissables, puis s'empare de la plus longue route de ces chemins qu'il
+ * peut prendre, ou tire les cartes qui lui manquent pour cela.
+ * Une fois ses billets réalisés, il tire de nouveaux billets ou prend les routes les plus longues.
+ * Les plus courts chemins sont lus dans une table des distances (RouteDistances), mise à jour incrémentalement
+ * à mesure que des routes sont prises, de sorte qu'évaluer un billet ne coûte qu'une lecture par trajet.
+ * Il convient aux tests de charge et au remplacement d'un joueur qui s'est déconnecté.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class GreedyPlayer implements Player {
+
+    private static final int FREE = 0;
+    private static final int OWNED = 1;
+    private static final int BLOCKED = 2;
+    //longueur minimale d'une route prise pour ses seuls points
+    private static final int MIN_POINTS_ROUTE_LENGTH = 3;
+    //nombre minimal de wagons pour tirer de nouveaux billets
+    private static final int MIN_CARS_FOR_TICKETS = 12;
+    //nombre de cartes en main au-dela duquel le joueur prend n'importe quelle route plutot que d'en tirer d'autres
+    private static final int MAX_HAND_SIZE = 24;
+    //nombre de wagons que vaut un point rapporte en moyenne par un billet, lors du choix des billets
+    private static final int CARS_PER_EXPECTED_POINT = 3;
+
+    private static final TicketDifficulty DIFFICULTY = TicketDifficulty.standard();
+
+    private final String name;
+    //tables de la carte de la partie, indexees par la position des routes dans mapRoutes
+    private TchuMap map;
+    private List<Route> mapRoutes;
+    private int[] neighbors;
+    //pour chaque route, la carte autre que locomotive (ou la locomotive) et le nombre de locomotives
+    //de chacun de ses ensembles de cartes possibles, SortedBag n'etant pas parcourable sans allocation
+    private Card[][] routeOptionCards;
+    private int[][] routeOptionLocomotives;
+    //pour chaque route, la carte de sa couleur, ou null si elle est grise
+    private Card[] routeCards;
+    private int[] routeStatus;
+    private boolean[] wanted;
+    //table des distances tenant compte de l'etat de chaque route tel qu'il y a ete reporte
+    private RouteDistances distances;
+    private int[] distancesStatus;
+    //nombre de cartes de chaque sorte que demandent les routes voulues de couleur
+    private final int[] neededCards = new int[Card.COUNT];
+    private int neededGreyCards;
+    private int wantedCount;
+    private Station source;
+    private Station target;
+
+    private PlayerId ownId;
+    private PublicGameState gameState;
+    private PlayerState ownState;
+    private SortedBag<Ticket> ownTickets = SortedBag.of();
+    private Ticket[] ownTicketArray = new Ticket[0];
+    private SortedBag<Ticket> initialTickets;
+    private Route chosenRoute;
+    private SortedBag<Card> chosenCards;
+
+    /**
+     * construit un joueur automatique glouton.
+     *
+     * @param name nom du joueur.
+     */
+    public GreedyPlayer(String name) {
+        this.name = Objects.requireNonNull(name);
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames, TchuMap map) {
+        this.ownId = ownId;
+        this.map = map;
+        mapRoutes = map.routes();
+        int routeCount = mapRoutes.size();
+        neighbors = new int[routeCount];
+        routeOptionCards = new Card[routeCount][];
+        routeOptionLocomotives = new int[routeCount][];
+        routeCards = new Card[routeCount];
+        for (int r = 0; r < routeCount; ++r) {
+            Route route = mapRoutes.get(r);
+            neighbors[r] = map.indexOf(map.neighbor(route));
+            routeCards[r] = route.color() == null ? null : Card.of(route.color());
+            List<SortedBag<Card>> options = route.possibleClaimCards();
+            routeOptionCards[r] = options.stream().map(o -> o.get(0)).toArray(Card[]::new);
+            routeOptionLocomotives[r] = options.stream().mapToInt(o -> o.countOf(Card.LOCOMOTIVE)).toArray();
+        }
+        routeStatus = new int[routeCount];
+        wanted = new boolean[routeCount];
+        distances = RouteDistances.initial(map);
+        distancesStatus = new int[routeCount];
+    }
+
+    @Override
+    public void receiveInfo(String info) {}
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        this.gameState = newState;
+        this.ownState = ownState;
+        if (!ownState.tickets().equals(ownTickets)) {
+            ownTickets = ownState.tickets();
+            ownTicketArray = ownTickets.toList().toArray(new Ticket[0]);
+        }
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        this.initialTickets = tickets;
+    }
+
+    /**
+     * @return les trois billets initiaux les plus courts à réaliser.
+     */
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        return keptTickets(initialTickets, Constants.INITIAL_TICKETS_COUNT - Constants.DISCARDABLE_TICKETS_COUNT);
+    }
+
+    /**
+     * @return l'action du tour : prendre une route des chemins des billets, sinon tirer des cartes,
+     * ou, les billets étant réalisés, tirer des billets ou prendre une route pour ses points.
+     */
+    @Override
+    public TurnKind nextTurn() {
+        plan();
+        if (chooseClaim(true, 1)) {
+            return TurnKind.CLAIM_ROUTE;
+        }
+        boolean canDrawTickets = gameState.ticketsCount() >= Constants.IN_GAME_TICKETS_COUNT;
+        if (wantedCount == 0) {
+            if (canDrawTickets && ownState.carCount() >= MIN_CARS_FOR_TICKETS) {
+                return TurnKind.DRAW_TICKETS;
+            }
+            if (chooseClaim(false, MIN_POINTS_ROUTE_LENGTH)) {
+                return TurnKind.CLAIM_ROUTE;
+            }
+        }
+        if (gameState.canDrawCards() && ownState.cardCount() < MAX_HAND_SIZE) {
+            return TurnKind.DRAW_CARDS;
+        }
+        if (chooseClaim(false, 1)) {
+            return TurnKind.CLAIM_ROUTE;
+        }
+        return canDrawTickets && !gameState.canDrawCards() ? TurnKind.DRAW_TICKETS : TurnKind.DRAW_CARDS;
+    }
+
+    /**
+     * @param options billets tires
+     * @return les billets déjà réalisés, ou à défaut le moins coûteux à réaliser (voir keptTickets).
+     */
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        return keptTickets(options, 1);
+    }
+
+    /**
+     * @return l'emplacement d'une carte face visible d'une couleur manquante pour les routes voulues,
+     * ou d'une locomotive, ou à défaut la pioche.
+     */
+    @Override
+    public int drawSlot() {
+        CardBag cards = ownState.cards();
+        int bestSlot = Constants.DECK_SLOT;
+        int bestScore = 1;
+        for (int slot = 0; slot < Constants.FACE_UP_CARDS_COUNT; ++slot) {
+            Card card = gameState.cardState().faceUpCard(slot);
+            int score;
+            if (card == Card.LOCOMOTIVE) {
+                score = 2;
+            } else if (card == Card.BOMB) {
+                score = 0;
+            } else if (neededCards[card.ordinal()] > cards.countOf(card)) {
+                score = 3;
+            } else {
+                score = neededGreyCards > 0 && cards.contains(card) ? 2 : 0;
+            }
+            if (score > bestScore) {
+                bestSlot = slot;
+                bestScore = score;
+            }
+        }
+        return bestSlot;
+    }
+
+    /**
+     * @return la route choisie au début du tour, ou, si le joueur en remplace un autre qui a choisi de prendre
+     * une route avant de se déconnecter, la route qu'il aurait lui-même choisie.
+     */
+    @Override
+    public Route claimedRoute() {
+        if (chosenRoute == null) {
+            plan();
+            if (!chooseClaim(true, 1)) {
+                chooseClaim(false, 1);
+            }
+        }
+        return chosenRoute;
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return chosenCards;
+    }
+
+    /**
+     * @param options liste des ensembles de cartes additionnelles possibles
+     * @return l'option utilisant le moins de locomotives.
+     */
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        return options.get(0);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return null, le joueur ne détruisant jamais de route.
+     */
+    @Override
+    public Route destroyedRoute() {
+        return null;
+    }
+
+    /**
+     * note l'état de chaque route : au joueur, libre, ou bloquée (prise par l'adversaire, ou voisine d'une route prise),
+     * et le reporte dans la table des distances.
+     */
+    private void updateRouteStatus() {
+        Arrays.fill(routeStatus, FREE);
+        markRoutes(ownState.routes(), OWNED);
+        markRoutes(gameState.playerState(ownId.next()).routes(), BLOCKED);
+        updateDistances();
+    }
+
+    /**
+     * reporte dans la table des distances les routes prises ou bloquées depuis la dernière mise à jour ; une route
+     * qui n'est plus prise (détruite) ne pouvant y être libérée, la table est alors recalculée entièrement.
+     */
+    private void updateDistances() {
+        for (int r = 0; r < mapRoutes.size(); ++r) {
+            if (distancesStatus[r] != FREE && distancesStatus[r] != routeStatus[r]) {
+                List<Route> owned = new ArrayList<>();
+                List<Route> blocked = new ArrayList<>();
+                for (int i = 0; i < mapRoutes.size(); ++i) {
+                    if (routeStatus[i] != FREE) {
+                        (routeStatus[i] == OWNED ? owned : blocked).add(mapRoutes.get(i));
+                    }
+                }
+                distances = RouteDistances.of(map, owned, blocked);
+                System.arraycopy(routeStatus, 0, distancesStatus, 0, mapRoutes.size());
+                return;
+            }
+        }
+        for (int r = 0; r < mapRoutes.size(); ++r) {
+            if (distancesStatus[r] != routeStatus[r]) {
+                distances = routeStatus[r] == OWNED
+                        ? distances.withOwnedRoute(mapRoutes.get(r))
+                        : distances.withBlockedRoute(mapRoutes.get(r));
+                distancesStatus[r] = routeStatus[r];
+            }
+        }
+    }
+
+    private void markRoutes(List<Route> routes, int status) {
+        for (int i = 0; i < routes.size(); ++i) {
+            int r = map.indexOf(routes.get(i));
+            routeStatus[r] = status;
+            if (neighbors[r] != r && routeStatus[neighbors[r]] == FREE) {
+                routeStatus[neighbors[r]] = BLOCKED;
+            }
+        }
+    }
+
+    /**
+     * détermine les routes voulues : les routes libres des plus courts chemins des billets non réalisés
+     * mais encore réalisables avec les wagons restants.
+     */
+    private void plan() {
+        updateRouteStatus();
+        Arrays.fill(wanted, false);
+        Arrays.fill(neededCards, 0);
+        neededGreyCards = 0;
+        wantedCount = 0;
+
+        for (Ticket ticket : ownTicketArray) {
+            int cost = ticketCost(ticket);
+            if (cost == 0 || cost > ownState.carCount()) {
+                continue;
+            }
+            for (Route route : distances.path(source, target)) {
+                int r = map.indexOf(route);
+                if (routeStatus[r] == FREE && !wanted[r]) {
+                    wanted[r] = true;
+                    ++wantedCount;
+                    if (routeCards[r] == null) {
+                        neededGreyCards += route.length();
+                    } else {
+                        neededCards[routeCards[r].ordinal()] += route.length();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * note dans source et target les extrémités du trajet du billet le plus court à réaliser.
+     *
+     * @param ticket billet
+     * @return le nombre de wagons manquant pour réaliser le billet, ou RouteDistances.UNREACHABLE s'il ne peut plus l'être
+     */
+    private int ticketCost(Ticket ticket) {
+        List<Trip> trips = ticket.trips();
+        int best = RouteDistances.UNREACHABLE;
+        for (int i = 0; i < trips.size(); ++i) {
+            Trip trip = trips.get(i);
+            int distance = distances.distance(trip.from(), trip.to());
+            if (distance < best) {
+                best = distance;
+                source = trip.from();
+                target = trip.to();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * choisit la plus longue route libre dont le joueur peut s'emparer parmi les routes voulues, ou parmi toutes.
+     *
+     * @param wantedOnly vrai ssi seules les routes voulues sont considérées
+     * @param minLength  longueur minimale de la route
+     * @return vrai ssi une telle route existe, auquel cas elle et les cartes à utiliser sont notées
+     */
+    private boolean chooseClaim(boolean wantedOnly, int minLength) {
+        chosenRoute = null;
+        chosenCards = null;
+        for (int r = 0; r < mapRoutes.size(); ++r) {
+            Route route = mapRoutes.get(r);
+            if (routeStatus[r] != FREE || (wantedOnly && !wanted[r]) || route.length() < minLength
+                    || (chosenRoute != null && route.length() <= chosenRoute.length())) {
+                continue;
+            }
+            SortedBag<Card> cards = claimCards(r);
+            if (cards != null) {
+                chosenRoute = route;
+                chosenCards = cards;
+            }
+        }
+        return chosenRoute != null;
+    }
+
+    /**
+     * @param r position d'une route libre
+     * @return parmi les ensembles de cartes avec lesquels le joueur peut s'emparer de la route (tunnel compris)
+     * et qui utilisent le moins de locomotives, celui dont la couleur est la moins demandée par les autres routes voulues,
+     * ou null si le joueur ne peut pas s'en emparer
+     */
+    private SortedBag<Card> claimCards(int r) {
+        Route route = mapRoutes.get(r);
+        if (ownState.carCount() < route.length()) {
+            return null;
+        }
+        CardBag cards = ownState.cards();
+        Card[] optionCards = routeOptionCards[r];
+        int[] optionLocomotives = routeOptionLocomotives[r];
+        int best = -1;
+        int bestSurplus = Integer.MIN_VALUE;
+        for (int i = 0; i < optionCards.length; ++i) {
+            int locomotives = optionLocomotives[i];
+            if (best >= 0 && locomotives > optionLocomotives[best]) {
+                break;
+            }
+            Card card = optionCards[i];
+            if (cards.countOf(Card.LOCOMOTIVE) < locomotives
+                    || (card != Card.LOCOMOTIVE && cards.countOf(card) < route.length() - locomotives)) {
+                continue;
+            }
+            //un tunnel manque ne coutant rien, le joueur le retenterait sans fin s'il ne pouvait jamais payer
+            //les cartes additionnelles : il ne le tente qu'en ayant de quoi payer le maximum
+            int usable = cards.countOf(Card.LOCOMOTIVE) + (card == Card.LOCOMOTIVE ? 0 : cards.countOf(card));
+            if (route.level() == Route.Level.UNDERGROUND
+                    && usable - route.length() < Constants.ADDITIONAL_TUNNEL_CARDS) {
+                continue;
+            }
+            int surplus = card == Card.LOCOMOTIVE ? 0 : cards.countOf(card) - neededCards[card.ordinal()];
+            if (best < 0 || surplus > bestSurplus) {
+                best = i;
+                bestSurplus = surplus;
+            }
+        }
+        return best < 0 ? null : route.possibleClaimCards().get(best);
+    }
+
+    /**
+     * @param options billets tires
+     * @param min     nombre minimal de billets à garder
+     * @return les billets que le joueur a déjà réalisés, complétés si nécessaire par ceux dont le coût est le plus
+     * faible, le coût d'un billet étant le nombre de wagons manquant pour le réaliser, diminué des points qu'il
+     * rapporte en moyenne selon les estimations de TicketDifficulty.
+     */
+    private SortedBag<Ticket> keptTickets(SortedBag<Ticket> options, int min) {
+        updateRouteStatus();
+        List<Ticket> sorted = options.toList();
+        Map<Ticket, Integer> costs = new HashMap<>();
+        Map<Ticket, Double> scores = new HashMap<>();
+        for (Ticket ticket : sorted) {
+            int cost = ticketCost(ticket);
+            double expectedPoints = DIFFICULTY.contains(ticket) ? DIFFICULTY.expectedPoints(ticket) : Double.NaN;
+            costs.put(ticket, cost);
+            scores.put(ticket, cost == 0 ? Double.NEGATIVE_INFINITY
+                    : cost == RouteDistances.UNREACHABLE ? Double.POSITIVE_INFINITY
+                    : cost - CARS_PER_EXPECTED_POINT * (Double.isNaN(expectedPoints) ? 0 : expectedPoints));
+        }
+        sorted.sort(Comparator.comparingDouble(scores::get));
+
+        SortedBag.Builder<Ticket> kept = new SortedBag.Builder<>();
+        for (int i = 0; i < sorted.size(); ++i) {
+            if (i < min || costs.get(sorted.get(i)) == 0) {
+                kept.add(sorted.get(i));
+            }
+        }
+        return kept.build();
+    }
+}
@@ -0,0 +1,79 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.net.RemotePlayerClient;
+import ch.epfl.tchu.net.WireProtocol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * classe permettant de charger un serveur de parties (GameServer) avec un grand nombre de clients
+ * (RemotePlayerClient) simultanes, chacun jouant avec un ScriptedPlayer (ou un GreedyPlayer) jusqu'a la fin
+ * de sa partie.
+ * Chaque client a son propre fil d'execution, la bibliotheque cliente etant bloquante.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() {}
+
+    /**
+     * lance les clients, attend la fin de leurs parties et affiche les resultats.
+     *
+     * @param args hote (localhost par defaut), port (5108 par defaut), nombre de clients (100 par defaut),
+     *             protocole (BINARY par defaut), graine (2021 par defaut) et joueurs ("scripted", par defaut,
+     *             pour des ScriptedPlayer, ou "greedy" pour des GreedyPlayer).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 5108;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        WireProtocol protocol = args.length > 3 ? WireProtocol.valueOf(args[3]) : WireProtocol.BINARY;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 2021;
+        String bots = args.length > 5 ? args[5] : "scripted";
+        Preconditions.checkArgument(clients > 0 && (bots.equals("scripted") || bots.equals("greedy")));
+
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong totalNanos = new AtomicLong();
+        AtomicLong maxNanos = new AtomicLong();
+        Random rng = new Random(seed);
+        List<Thread> threads = new ArrayList<>(clients);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; ++i) {
+            long playerSeed = rng.nextLong();
+            Player player = bots.equals("greedy")
+                    ? new GreedyPlayer("Bot" + i)
+                    : new ScriptedPlayer("Bot" + i, new Random(playerSeed));
+            RemotePlayerClient client = new RemotePlayerClient(player, host, port, protocol);
+            Thread thread = new Thread(() -> {
+                long clientStart = System.nanoTime();
+                try {
+                    client.run();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                }
+                long nanos = System.nanoTime() - clientStart;
+                totalNanos.addAndGet(nanos);
+                maxNanos.accumulateAndGet(nanos, Math::max);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d clients (%s, %s), %d echecs, %.1f s%n", clients, protocol, bots, failed.get(), seconds);
+        System.out.printf("%.1f parties/s, duree d'une session : moyenne %.2f s, max %.2f s%n",
+                clients / 2.0 / seconds, totalNanos.get() / 1e9 / clients, maxNanos.get() / 1e9);
+    }
+}
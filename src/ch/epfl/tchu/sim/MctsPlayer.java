@@ -0,0 +1,683 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * classe représentant un joueur automatique qui choisit ses actions par une recherche arborescente Monte-Carlo.
+ * A chaque itération, les informations cachées (main et billets de l'adversaire, ordre des pioches) sont tirées
+ * au hasard parmi celles compatibles avec ce que le joueur sait du jeu (GameState.sampled), puis l'arbre est
+ * parcouru en ne considérant que les actions possibles dans ce tirage ; les actions de l'adversaire n'y sont
+ * distinguées que par ce qu'il en est visible (la route prise, mais pas les cartes utilisées).
+ * Chaque fil d'exécution développe son propre arbre pendant le temps accordé à chaque coup, et l'action
+ * la plus visitée sur l'ensemble des arbres est jouée. Au tour suivant, chaque arbre repart du noeud
+ * atteint par cette action et par celle, observée, de l'adversaire.
+ * Les choix secondaires (cartes tirées, billets gardés, cartes additionnelles) sont faits par des heuristiques.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class MctsPlayer implements Player {
+
+    /**
+     * temps de recherche accordé par défaut à chaque coup, en millisecondes.
+     */
+    public static final long DEFAULT_BUDGET_MILLIS = 200;
+
+    private static final double EXPLORATION = 0.7;
+    private static final int ROLLOUT_TURNS = 30;
+    private static final double CLAIM_PROBABILITY = 0.8;
+    private static final int TICKET_STATION_BONUS = 3;
+    private static final TicketDifficulty DIFFICULTY = TicketDifficulty.standard();
+    //écart de points pour lequel la valeur d'une fin de simulation vaut environ 0.73 (resp. 0.27)
+    private static final double SCORE_SCALE = 20;
+
+    private final String name;
+    private final long budgetNanos;
+    private final List<Worker> workers = new ArrayList<>();
+    private final ExecutorService executor;
+
+    private PlayerId ownId;
+    private TchuMap map;
+    private PublicGameState gameState;
+    private PlayerState ownState;
+    private SortedBag<Ticket> initialTickets;
+    private Action chosenAction;
+    private PublicPlayerState opponentBefore;
+
+    /**
+     * construit un joueur automatique, avec le temps de recherche par défaut
+     * et un fil d'exécution par processeur.
+     *
+     * @param name nom du joueur,
+     * @param rng  generateur aleatoire dont sont tirees les graines des fils de recherche.
+     */
+    public MctsPlayer(String name, Random rng) {
+        this(name, DEFAULT_BUDGET_MILLIS, Runtime.getRuntime().availableProcessors(), rng);
+    }
+
+    /**
+     * construit un joueur automatique.
+     *
+     * @param name         nom du joueur,
+     * @param budgetMillis temps de recherche accordé à chaque coup, en millisecondes,
+     * @param threads      nombre de fils d'exécution de la recherche,
+     * @param rng          generateur aleatoire dont sont tirees les graines des fils de recherche.
+     * @throws IllegalArgumentException si le temps ou le nombre de fils n'est pas positif.
+     */
+    public MctsPlayer(String name, long budgetMillis, int threads, Random rng) {
+        Preconditions.checkArgument(budgetMillis > 0 && threads > 0);
+        this.name = Objects.requireNonNull(name);
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        for (int i = 0; i < threads; ++i) {
+            workers.add(new Worker(new Random(rng.nextLong())));
+        }
+
+        //les fils s'arretent d'eux-memes lorsque le joueur ne cherche plus, par exemple a la fin de la partie
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "recherche de " + name);
+            t.setDaemon(true);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames, TchuMap map) {
+        this.ownId = ownId;
+        this.map = map;
+    }
+
+    @Override
+    public void receiveInfo(String info) {}
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        this.gameState = newState;
+        this.ownState = ownState;
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        this.initialTickets = tickets;
+    }
+
+    /**
+     * @return les trois billets initiaux les plus faciles, ainsi que ceux qui seraient déjà réalisés.
+     */
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        return keptTickets(ownState, initialTickets,
+                Constants.INITIAL_TICKETS_COUNT - Constants.DISCARDABLE_TICKETS_COUNT);
+    }
+
+    /**
+     * cherche, pendant le temps accordé à chaque coup, l'action la plus prometteuse.
+     *
+     * @return le type de l'action choisie.
+     */
+    @Override
+    public TurnKind nextTurn() {
+        Action observed = opponentBefore == null ? null : observedOpponentAction();
+        for (Worker worker : workers) {
+            worker.advance(observed);
+        }
+
+        Action action = search();
+        for (Worker worker : workers) {
+            worker.advance(action);
+        }
+        opponentBefore = gameState.playerState(ownId.next());
+        chosenAction = action;
+        return action.kind;
+    }
+
+    /**
+     * @param options billets tires
+     * @return les billets déjà réalisés, ou à défaut le plus facile.
+     */
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        return keptTickets(ownState, options, 1);
+    }
+
+    /**
+     * @return une locomotive face visible, ou une carte face visible d'une couleur que le joueur possède déjà,
+     * ou à défaut la pioche.
+     */
+    @Override
+    public int drawSlot() {
+        return drawSlot(gameState.cardState(), ownState);
+    }
+
+    @Override
+    public Route claimedRoute() {
+        return chosenAction.route;
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return chosenAction.cards;
+    }
+
+    /**
+     * @param options liste des ensembles de cartes additionnelles possibles
+     * @return l'option utilisant le moins de locomotives.
+     */
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        return options.get(0);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return null, le joueur ne détruisant jamais de route.
+     */
+    @Override
+    public Route destroyedRoute() {
+        return null;
+    }
+
+    /**
+     * fait chercher tous les fils jusqu'à l'échéance, puis additionne les visites des actions possibles.
+     *
+     * @return l'action la plus visitée, ou à défaut un tirage de cartes ou de billets.
+     */
+    private Action search() {
+        PublicGameState state = gameState;
+        PlayerState own = ownState;
+        long deadline = System.nanoTime() + budgetNanos;
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Worker worker : workers) {
+            tasks.add(() -> {
+                worker.search(state, own, deadline);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        }
+
+        Map<Action, Integer> visits = new HashMap<>();
+        for (Worker worker : workers) {
+            for (Node child : worker.root.children.values()) {
+                visits.merge(child.action, child.visits, Integer::sum);
+            }
+        }
+        return visits.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(state.canDrawCards() ? Action.DRAW_CARDS : Action.DRAW_TICKETS);
+    }
+
+    /**
+     * @return l'action de l'adversaire depuis le dernier coup du joueur, telle qu'elle apparaît dans l'arbre,
+     * ou null si elle ne peut pas être déduite de son état public (tunnel manqué, route détruite, etc.).
+     */
+    private Action observedOpponentAction() {
+        PublicPlayerState now = gameState.playerState(ownId.next());
+        List<Route> routes = now.routes();
+        int routeCount = opponentBefore.routes().size();
+        if (routes.size() == routeCount + 1 && routes.containsAll(opponentBefore.routes())) {
+            List<Route> claimed = new ArrayList<>(routes);
+            claimed.removeAll(opponentBefore.routes());
+            return Action.claim(claimed.get(0), null);
+        }
+        if (routes.size() != routeCount) {
+            return null;
+        }
+        if (now.ticketCount() > opponentBefore.ticketCount()) {
+            return Action.DRAW_TICKETS;
+        }
+        return now.cardCount() == opponentBefore.cardCount() + 2 ? Action.DRAW_CARDS : null;
+    }
+
+    /**
+     * @param state etat public du jeu
+     * @return le nombre de tours restant à jouer, tour courant compris, ou -1 si le dernier tour n'a pas commencé.
+     */
+    private static int remainingTurns(PublicGameState state) {
+        if (state.lastPlayer() == null) {
+            return -1;
+        }
+        //le joueur qui a declenche la fin de partie est le seul a avoir au plus deux wagons en debut de tour
+        return state.currentPlayerState().carCount() <= 2 ? 1 : PlayerId.COUNT;
+    }
+
+    /**
+     * @param state etat du jeu
+     * @return les routes dont le joueur courant peut s'emparer.
+     */
+    private static List<Route> claimableRoutes(GameState state) {
+        Set<Route> claimedRoutes = new HashSet<>(state.claimedRoutes());
+        PlayerState player = state.currentPlayerState();
+        List<Route> claimableRoutes = new ArrayList<>();
+        TchuMap map = state.map();
+        for (Route r : map.routes()) {
+            if (!claimedRoutes.contains(r)
+                    && !claimedRoutes.contains(map.neighbor(r))
+                    && player.canClaimRoute(r)) {
+                claimableRoutes.add(r);
+            }
+        }
+        return claimableRoutes;
+    }
+
+    /**
+     * @param cards  etat public des cartes
+     * @param player etat du joueur qui tire une carte
+     * @return l'emplacement d'une locomotive face visible, ou d'une carte face visible d'une couleur que le joueur
+     * possède déjà, ou à défaut la pioche.
+     */
+    private static int drawSlot(PublicCardState cards, PlayerState player) {
+        int bestSlot = Constants.DECK_SLOT;
+        int bestScore = 1;
+        for (int slot : Constants.FACE_UP_CARD_SLOTS) {
+            Card card = cards.faceUpCard(slot);
+            int score = card == Card.LOCOMOTIVE ? 3
+                    : card != Card.BOMB && player.cards().contains(card) ? 2
+                    : 0;
+            if (score > bestScore) {
+                bestSlot = slot;
+                bestScore = score;
+            }
+        }
+        return bestSlot;
+    }
+
+    /**
+     * @param player joueur qui choisit des billets
+     * @param drawn  billets tirés
+     * @param min    nombre minimal de billets à garder
+     * @return les billets que le réseau du joueur réalise déjà, complétés si nécessaire par ceux qui rapportent
+     * le plus de points en moyenne selon les estimations de TicketDifficulty (ou, pour un billet sans estimation,
+     * dont l'échec coûterait le moins de points).
+     */
+    private static SortedBag<Ticket> keptTickets(PlayerState player, SortedBag<Ticket> drawn, int min) {
+        Map<Ticket, Integer> points = new HashMap<>();
+        Map<Ticket, Double> scores = new HashMap<>();
+        for (Ticket ticket : drawn.toSet()) {
+            int ticketPoints = new PlayerState(SortedBag.of(ticket), CardBag.of(), player.routes()).ticketPoints();
+            double expectedPoints = DIFFICULTY.contains(ticket) ? DIFFICULTY.expectedPoints(ticket) : Double.NaN;
+            points.put(ticket, ticketPoints);
+            scores.put(ticket, ticketPoints > 0 ? Double.POSITIVE_INFINITY
+                    : Double.isNaN(expectedPoints) ? ticketPoints
+                    : expectedPoints);
+        }
+        List<Ticket> sorted = drawn.toList();
+        sorted.sort(Comparator.comparingDouble(scores::get).reversed());
+
+        SortedBag.Builder<Ticket> kept = new SortedBag.Builder<>();
+        for (int i = 0; i < sorted.size(); ++i) {
+            if (i < min || points.get(sorted.get(i)) > 0) {
+                kept.add(sorted.get(i));
+            }
+        }
+        return kept.build();
+    }
+
+    /**
+     * @param player joueur
+     * @return l'ensemble des identités des gares de départ et d'arrivée des billets du joueur.
+     */
+    private static BitSet ticketStations(PlayerState player) {
+        BitSet stations = new BitSet();
+        for (Ticket ticket : player.tickets()) {
+            for (Trip trip : ticket.trips()) {
+                stations.set(trip.from().id());
+                stations.set(trip.to().id());
+            }
+        }
+        return stations;
+    }
+
+    /**
+     * classe représentant une action d'un joueur durant son tour, telle que l'arbre la distingue :
+     * les cartes utilisées pour s'emparer d'une route ne sont précisées que pour le joueur lui-même.
+     */
+    private static final class Action {
+        private static final Action DRAW_CARDS = new Action(TurnKind.DRAW_CARDS, null, null);
+        private static final Action DRAW_TICKETS = new Action(TurnKind.DRAW_TICKETS, null, null);
+
+        private final TurnKind kind;
+        private final Route route;
+        private final SortedBag<Card> cards;
+
+        private Action(TurnKind kind, Route route, SortedBag<Card> cards) {
+            this.kind = kind;
+            this.route = route;
+            this.cards = cards;
+        }
+
+        private static Action claim(Route route, SortedBag<Card> cards) {
+            return new Action(TurnKind.CLAIM_ROUTE, route, cards);
+        }
+
+        @Override
+        public boolean equals(Object that) {
+            if (!(that instanceof Action)) {
+                return false;
+            }
+            Action action = (Action) that;
+            return kind == action.kind && route == action.route && Objects.equals(cards, action.cards);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, route, cards);
+        }
+    }
+
+    /**
+     * classe représentant un noeud de l'arbre, atteint par l'action d'un joueur.
+     * Sa disponibilité est le nombre d'itérations durant lesquelles son action était possible
+     * lorsque son parent a été visité.
+     */
+    private static final class Node {
+        private final Action action;
+        private final PlayerId mover;
+        private final Map<Action, Node> children = new HashMap<>();
+        private int visits;
+        private int availability;
+        //somme des valeurs des simulations pour le joueur ayant joue l'action
+        private double reward;
+
+        private Node(Action action, PlayerId mover) {
+            this.action = action;
+            this.mover = mover;
+        }
+
+        /**
+         * @param legal actions possibles dans le tirage courant, non vide
+         * @param mover joueur courant
+         * @param rng   generateur aleatoire
+         * @return un nouvel enfant pour l'une des actions possibles qui n'en a pas encore,
+         * ou à défaut l'enfant maximisant la borne de confiance supérieure (UCB1)
+         */
+        private Node select(List<Action> legal, PlayerId mover, Random rng) {
+            List<Action> untried = new ArrayList<>();
+            for (Action action : legal) {
+                Node child = children.get(action);
+                if (child == null) {
+                    untried.add(action);
+                } else {
+                    ++child.availability;
+                }
+            }
+            if (!untried.isEmpty()) {
+                Node child = new Node(untried.get(rng.nextInt(untried.size())), mover);
+                child.availability = 1;
+                children.put(child.action, child);
+                return child;
+            }
+
+            Node best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (Action action : legal) {
+                Node child = children.get(action);
+                double score = child.reward / child.visits
+                        + EXPLORATION * Math.sqrt(Math.log(child.availability) / child.visits);
+                if (score > bestScore) {
+                    best = child;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * classe représentant un fil de recherche et son arbre.
+     */
+    private final class Worker {
+        private final Random rng;
+        private Node root;
+
+        private Worker(Random rng) {
+            this.rng = rng;
+        }
+
+        /**
+         * fait descendre la racine de l'arbre le long de l'action donnée, ou l'abandonne si elle est inconnue.
+         *
+         * @param action action jouée, ou null si elle est inconnue
+         */
+        private void advance(Action action) {
+            root = root == null || action == null ? null : root.children.get(action);
+        }
+
+        private void search(PublicGameState state, PlayerState own, long deadline) {
+            if (root == null) {
+                root = new Node(null, ownId.next());
+            }
+            int remainingTurns = remainingTurns(state);
+            do {
+                iterate(new Playout(GameState.sampled(state, ownId, own, map, rng), remainingTurns, rng));
+            } while (System.nanoTime() < deadline);
+        }
+
+        /**
+         * descend dans l'arbre jusqu'à y ajouter un noeud, termine la partie tirée par une simulation rapide,
+         * puis reporte sa valeur sur les noeuds parcourus.
+         */
+        private void iterate(Playout playout) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            while (!playout.isOver()) {
+                PlayerId mover = playout.state.currentPlayerId();
+                List<Action> legal = playout.legalActions(mover == ownId);
+                if (legal.isEmpty()) {
+                    break;
+                }
+                Node child = node.select(legal, mover, rng);
+                path.add(child);
+                playout.play(child.action);
+                if (child.visits == 0) {
+                    break;
+                }
+                node = child;
+            }
+
+            double value = playout.rollout();
+            for (Node n : path) {
+                ++n.visits;
+                n.reward += n.mover == ownId ? value : 1 - value;
+            }
+        }
+    }
+
+    /**
+     * classe représentant une partie simulée à partir d'un état tiré au hasard.
+     * Ses transitions reproduisent celles de Game, les décisions des joueurs étant celles de l'arbre
+     * ou des heuristiques du joueur.
+     */
+    private final class Playout {
+        private final Random rng;
+        private GameState state;
+        //-1 tant que le dernier tour n'a pas commence, puis nombre de tours restant a jouer
+        private int lastTurns;
+
+        private Playout(GameState state, int lastTurns, Random rng) {
+            this.state = state;
+            this.lastTurns = lastTurns;
+            this.rng = rng;
+        }
+
+        private boolean isOver() {
+            return lastTurns == 0;
+        }
+
+        /**
+         * @param own vrai ssi le joueur courant est le joueur lui-même, dont les cartes sont connues
+         * @return les actions possibles du joueur courant ; pour le joueur lui-même, une action par ensemble
+         * de cartes utilisant le moins de locomotives possible
+         */
+        private List<Action> legalActions(boolean own) {
+            List<Action> actions = new ArrayList<>();
+            PlayerState player = state.currentPlayerState();
+            for (Route route : claimableRoutes(state)) {
+                if (!own) {
+                    actions.add(Action.claim(route, null));
+                    continue;
+                }
+                List<SortedBag<Card>> options = player.possibleClaimCards(route);
+                int locomotives = options.get(0).countOf(Card.LOCOMOTIVE);
+                for (SortedBag<Card> cards : options) {
+                    if (cards.countOf(Card.LOCOMOTIVE) == locomotives) {
+                        actions.add(Action.claim(route, cards));
+                    }
+                }
+            }
+            if (state.canDrawCards()) {
+                actions.add(Action.DRAW_CARDS);
+            }
+            if (state.ticketsCount() >= Constants.IN_GAME_TICKETS_COUNT) {
+                actions.add(Action.DRAW_TICKETS);
+            }
+            return actions;
+        }
+
+        /**
+         * joue le tour du joueur courant.
+         *
+         * @param action action possible du joueur courant
+         */
+        private void play(Action action) {
+            GameState s = state;
+            switch (action.kind) {
+                case DRAW_TICKETS:
+                    SortedBag<Ticket> drawn = s.topTickets(Constants.IN_GAME_TICKETS_COUNT);
+                    s = s.withChosenAdditionalTickets(drawn, keptTickets(s.currentPlayerState(), drawn, 1));
+                    break;
+                case DRAW_CARDS:
+                    s = s.withCardsDeckRecreatedIfNeeded(rng);
+                    for (int i = 0; i < 2; ++i) {
+                        s = s.withCardsDeckRecreatedIfNeeded(rng);
+                        int slot = drawSlot(s.cardState(), s.currentPlayerState());
+                        s = slot == Constants.DECK_SLOT ? s.withBlindlyDrawnCard() : s.withDrawnFaceUpCard(slot);
+                    }
+                    break;
+                case CLAIM_ROUTE:
+                    SortedBag<Card> cards = action.cards != null
+                            ? action.cards
+                            : s.currentPlayerState().possibleClaimCards(action.route).get(0);
+                    s = claimRoute(s, action.route, cards);
+                    break;
+                default:
+                    break;
+            }
+            endTurn(s);
+        }
+
+        private void endTurn(GameState s) {
+            boolean lastTurnBegins = s.lastTurnBegins();
+            state = s.forNextTurn();
+            if (lastTurns > 0) {
+                --lastTurns;
+            } else if (lastTurnBegins && lastTurns < 0) {
+                lastTurns = PlayerId.COUNT;
+            }
+        }
+
+        private GameState claimRoute(GameState s, Route route, SortedBag<Card> initialCards) {
+            s = s.withCardsDeckRecreatedIfNeeded(rng);
+            if (route.level() != Route.Level.UNDERGROUND) {
+                return s.withClaimedRoute(route, initialCards);
+            }
+
+            SortedBag.Builder<Card> drawn = new SortedBag.Builder<>();
+            for (int i = 0; i < Constants.ADDITIONAL_TUNNEL_CARDS; ++i) {
+                drawn.add(s.topCard());
+                s = s.withoutTopCard();
+                s = s.withCardsDeckRecreatedIfNeeded(rng);
+            }
+            SortedBag<Card> drawnCards = drawn.build();
+            s = s.withMoreDiscardedCards(drawnCards);
+
+            int additionalCount = route.additionalClaimCardsCount(initialCards, drawnCards);
+            if (additionalCount == 0) {
+                return s.withClaimedRoute(route, initialCards);
+            }
+            s = s.withCardsDeckRecreatedIfNeeded(rng);
+            List<SortedBag<Card>> options = s.currentPlayerState().possibleAdditionalCards(additionalCount, initialCards);
+            return options.isEmpty() ? s : s.withClaimedRoute(route, initialCards.union(options.get(0)));
+        }
+
+        /**
+         * joue au plus ROLLOUT_TURNS tours au moyen d'une politique rapide : le joueur courant s'empare le plus
+         * souvent de la plus longue des routes possibles, en préférant celles qui touchent une gare de ses billets,
+         * et tire sinon des cartes.
+         *
+         * @return la valeur de l'état atteint pour le joueur
+         */
+        private double rollout() {
+            for (int turn = 0; turn < ROLLOUT_TURNS && !isOver(); ++turn) {
+                Action action = rolloutAction();
+                if (action == null) {
+                    endTurn(state);
+                } else {
+                    play(action);
+                }
+            }
+            return value();
+        }
+
+        private Action rolloutAction() {
+            boolean canDrawCards = state.canDrawCards();
+            if (canDrawCards && rng.nextDouble() >= CLAIM_PROBABILITY) {
+                return Action.DRAW_CARDS;
+            }
+
+            BitSet stations = ticketStations(state.currentPlayerState());
+            Route bestRoute = null;
+            double bestScore = 0;
+            for (Route route : claimableRoutes(state)) {
+                double score = route.length() + rng.nextDouble();
+                if (stations.get(route.station1().id()) || stations.get(route.station2().id())) {
+                    score += TICKET_STATION_BONUS;
+                }
+                if (score > bestScore) {
+                    bestRoute = route;
+                    bestScore = score;
+                }
+            }
+            if (bestRoute != null) {
+                return Action.claim(bestRoute, null);
+            }
+            return canDrawCards ? Action.DRAW_CARDS : null;
+        }
+
+        /**
+         * @return une valeur entre 0 et 1, croissante avec l'avance en points (bonus du plus long chemin compris)
+         * du joueur sur son adversaire
+         */
+        private double value() {
+            int difference = points(ownId) - points(ownId.next());
+            return 1 / (1 + Math.exp(-difference / SCORE_SCALE));
+        }
+
+        private int points(PlayerId playerId) {
+            return state.playerState(playerId).finalPoints()
+                    + (state.holdsLongestTrailBonus(playerId) ? Constants.LONGEST_TRAIL_BONUS_POINTS : 0);
+        }
+    }
+}
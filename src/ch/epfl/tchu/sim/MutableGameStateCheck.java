@@ -0,0 +1,273 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * classe verifiant par des tests differentiels aleatoires que MutableGameState se comporte comme GameState :
+ * des suites aleatoires de transitions (tirage de billets, de cartes visibles ou de la pioche, recreation
+ * de la pioche, prise et destruction de routes, fin de tour) sont appliquees aux deux, et les etats sont compares
+ * apres chacune d'elles ; de temps a autre, les dernieres transitions sont annulees (undo), et l'etat mutable
+ * doit alors redevenir celui d'avant.
+ * Les etats sont compares au moyen de l'interface publique de GameState seulement, pioches (dans leur ordre)
+ * et defausse comprises.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class MutableGameStateCheck {
+
+    private static final TchuMap MAP = ChMap.map();
+    private static final List<Route> ROUTES = MAP.routes();
+    private static final int STEPS_PER_GAME = 400;
+    private static final int MAX_UNDONE = 8;
+
+    private MutableGameStateCheck() {}
+
+    /**
+     * lance la verification et affiche le nombre de transitions verifiees, ou la premiere difference trouvee.
+     *
+     * @param args nombre de parties (1000 par defaut) et graine (2021 par defaut).
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 2021;
+
+        long transitions = 0;
+        long undone = 0;
+        for (int game = 0; game < games; ++game) {
+            String mismatch;
+            Checker checker = new Checker(new Random(seed + game));
+            try {
+                mismatch = checker.run();
+            } catch (RuntimeException e) {
+                mismatch = e.toString();
+            }
+            transitions += checker.transitions;
+            undone += checker.undone;
+            if (mismatch != null) {
+                System.out.printf("partie %d (graine %d), transition %d : %s%n",
+                        game, seed + game, checker.transitions, mismatch);
+                System.exit(1);
+            }
+        }
+        System.out.printf("%d parties, %d transitions verifiees, %d annulees : aucune difference%n",
+                games, transitions, undone);
+    }
+
+    /**
+     * @param s un etat du jeu
+     * @return une description complete de l'etat donne, egale pour deux etats egaux
+     */
+    private static String describe(GameState s) {
+        StringBuilder b = new StringBuilder();
+        for (GameState t = s; t.ticketsCount() > 0; t = t.withoutTopTickets(1)) {
+            b.append(t.topTickets(1)).append(',');
+        }
+        b.append("|").append(s.cardState().faceUpCards()).append('|');
+        GameState t = s;
+        while (!t.cardState().isDeckEmpty()) {
+            b.append(t.topCard()).append(',');
+            t = t.withoutTopCard();
+        }
+        //la defausse, melangee avec une graine fixe, donne la meme pioche pour les memes cartes
+        b.append('|').append(t.cardState().discardsSize()).append(':');
+        for (t = t.withCardsDeckRecreatedIfNeeded(new Random(0)); !t.cardState().isDeckEmpty(); t = t.withoutTopCard()) {
+            b.append(t.topCard()).append(',');
+        }
+        for (PlayerId id : PlayerId.ALL) {
+            PlayerState p = s.playerState(id);
+            b.append('|').append(p.tickets()).append(p.cards()).append(p.cardCount()).append(p.ticketCount())
+                    .append(p.routes()).append(' ').append(p.carCount()).append(' ').append(p.claimPoints())
+                    .append(' ').append(p.ticketPoints()).append(' ').append(p.longestTrail().length());
+        }
+        return b.append('|').append(s.currentPlayerId()).append(s.lastPlayer()).toString();
+    }
+
+    /**
+     * classe representant la verification d'une partie.
+     */
+    private static final class Checker {
+        private final Random rng;
+        private final Deque<GameState> previous = new ArrayDeque<>();
+        private GameState expected;
+        private MutableGameState actual;
+        private Random expectedRng;
+        private Random actualRng;
+        private long transitions;
+        private long undone;
+
+        private Checker(Random rng) {
+            this.rng = rng;
+        }
+
+        /**
+         * @return la premiere difference trouvee, ou null s'il n'y en a aucune
+         */
+        private String run() {
+            GameState s = GameState.initial(MAP, new Random(rng.nextLong()));
+            for (PlayerId id : PlayerId.ALL) {
+                s = s.withInitiallyChosenTickets(id, s.topTickets(Constants.INITIAL_TICKETS_COUNT
+                        - Constants.DISCARDABLE_TICKETS_COUNT))
+                        .withoutTopTickets(Constants.INITIAL_TICKETS_COUNT - Constants.DISCARDABLE_TICKETS_COUNT);
+            }
+            expected = s;
+            actual = MutableGameState.of(s);
+            resyncRngs();
+            String mismatch = compare("conversion");
+            for (int step = 0; step < STEPS_PER_GAME && mismatch == null; ++step) {
+                String transition = applyRandomTransition();
+                if (transition == null) {
+                    continue;
+                }
+                ++transitions;
+                mismatch = compare(transition);
+                if (mismatch == null && rng.nextInt(10) == 0) {
+                    mismatch = undoSome();
+                }
+            }
+            while (mismatch == null && !previous.isEmpty()) {
+                expected = previous.pop();
+                actual.undo();
+                ++undone;
+            }
+            return mismatch != null ? mismatch : compare("annulation de toutes les transitions");
+        }
+
+        /**
+         * applique une transition possible, choisie au hasard, aux deux etats.
+         *
+         * @return le nom de la transition, ou null si celle choisie n'est pas possible
+         */
+        private String applyRandomTransition() {
+            GameState s = expected;
+            PlayerState player = s.currentPlayerState();
+            boolean deckEmpty = s.cardState().isDeckEmpty();
+            switch (rng.nextInt(9)) {
+                case 0:
+                    if (s.ticketsCount() == 0) {
+                        return null;
+                    }
+                    int drawn = Math.min(Constants.IN_GAME_TICKETS_COUNT, s.ticketsCount());
+                    int kept = rng.nextInt(1 << drawn);
+                    SortedBag.Builder<Ticket> chosen = new SortedBag.Builder<>();
+                    GameState t = s;
+                    for (int i = 0; i < drawn; ++i, t = t.withoutTopTickets(1)) {
+                        if ((kept & 1 << i) != 0) {
+                            chosen.add(t.topTickets(1));
+                        }
+                    }
+                    push(s.withChosenAdditionalTickets(s.topTickets(drawn), chosen.build()));
+                    actual.drawTickets(drawn, kept);
+                    return "tirage de billets";
+                case 1:
+                    if (deckEmpty) {
+                        return null;
+                    }
+                    int slot = rng.nextInt(Constants.FACE_UP_CARDS_COUNT);
+                    push(s.withDrawnFaceUpCard(slot));
+                    actual.drawFaceUpCard(slot);
+                    return "tirage de la carte visible " + slot;
+                case 2:
+                    if (deckEmpty) {
+                        return null;
+                    }
+                    push(s.withBlindlyDrawnCard());
+                    actual.drawBlindCard();
+                    return "tirage de la pioche";
+                case 3:
+                    if (deckEmpty) {
+                        return null;
+                    }
+                    push(s.withoutTopCard());
+                    actual.removeTopCard();
+                    return "retrait du sommet de la pioche";
+                case 4:
+                    push(s.withCardsDeckRecreatedIfNeeded(expectedRng));
+                    actual.recreateCardsDeckIfNeeded(actualRng);
+                    return "recreation de la pioche";
+                case 5:
+                    Set<Route> claimed = new HashSet<>(s.claimedRoutes());
+                    List<Route> claimable = new ArrayList<>();
+                    for (Route route : ROUTES) {
+                        if (!claimed.contains(route) && player.canClaimRoute(route)) {
+                            claimable.add(route);
+                        }
+                    }
+                    if (claimable.isEmpty()) {
+                        return null;
+                    }
+                    Route route = claimable.get(rng.nextInt(claimable.size()));
+                    if (!actual.canClaimRoute(route)) {
+                        return null;
+                    }
+                    List<SortedBag<Card>> options = player.possibleClaimCards(route);
+                    SortedBag<Card> cards = options.get(rng.nextInt(options.size()));
+                    push(s.withClaimedRoute(route, cards));
+                    actual.claimRoute(route, CardBag.of(cards));
+                    return "prise de la route " + route.id() + " avec " + cards;
+                case 6:
+                    if (!player.cards().contains(Card.BOMB)) {
+                        return null;
+                    }
+                    List<Route> opponentRoutes = s.playerState(s.currentPlayerId().next()).routes();
+                    Route destroyed = !opponentRoutes.isEmpty() && rng.nextBoolean()
+                            ? opponentRoutes.get(rng.nextInt(opponentRoutes.size()))
+                            : ROUTES.get(rng.nextInt(ROUTES.size()));
+                    push(s.withDestructedRoute(destroyed));
+                    actual.destroyRoute(destroyed);
+                    return "destruction de la route " + destroyed.id();
+                default:
+                    push(s.forNextTurn());
+                    actual.nextTurn();
+                    return "fin du tour";
+            }
+        }
+
+        private void push(GameState next) {
+            previous.push(expected);
+            expected = next;
+        }
+
+        /**
+         * annule un petit nombre de transitions au moyen de undo(int).
+         *
+         * @return la difference trouvee, ou null s'il n'y en a aucune
+         */
+        private String undoSome() {
+            int count = 1 + rng.nextInt(Math.min(previous.size(), MAX_UNDONE));
+            int mark = actual.transitionCount() - count;
+            for (int i = 0; i < count; ++i) {
+                expected = previous.pop();
+            }
+            actual.undo(mark);
+            undone += count;
+            //les generateurs ont avance differemment si une recreation a ete annulee
+            resyncRngs();
+            if (actual.transitionCount() != previous.size()) {
+                return "nombre de transitions " + actual.transitionCount() + " au lieu de " + previous.size();
+            }
+            return compare("annulation de " + count + " transitions");
+        }
+
+        private void resyncRngs() {
+            long seed = rng.nextLong();
+            expectedRng = new Random(seed);
+            actualRng = new Random(seed);
+        }
+
+        private String compare(String transition) {
+            String e = describe(expected);
+            String a = describe(actual.toGameState());
+            return e.equals(a) ? null : String.format("apres %s,%n attendu %s%n obtenu  %s", transition, e, a);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Route;
+import ch.epfl.tchu.game.Station;
+import ch.epfl.tchu.game.StationBitPartition;
+import ch.epfl.tchu.game.StationPartition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * classe comparant le cout des deux partitions des gares, StationPartition (union-find) et StationBitPartition
+ * (une composante par masque de 64 bits), dans l'usage qu'en fait PlayerState : construire la partition des routes
+ * d'un joueur, puis demander si des paires de gares sont reliees.
+ * Les ensembles de routes sont tires au hasard parmi celles de ChMap, et les deux partitions sont d'abord comparees
+ * sur chacun d'eux, pour toutes les paires de gares. Chaque mesure est repetee plusieurs fois, en alternant l'ordre
+ * des deux partitions, les premieres repetitions servant surtout a la compilation a la volee.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class PartitionBenchmark {
+
+    private static final List<Route> ROUTES = ChMap.routes();
+    private static final List<Station> STATIONS = ChMap.stations();
+    private static final int STATION_COUNT = STATIONS.size();
+    private static final int ROUTE_SETS = 1_000;
+    private static final int ROUNDS = 10;
+
+    private PartitionBenchmark() {}
+
+    /**
+     * lance la comparaison et affiche, pour chaque repetition, le temps moyen d'une construction suivie
+     * des requetes.
+     *
+     * @param args nombre de routes par partition (30 par defaut), nombre de requetes connected par construction
+     *             (1 par defaut), nombre de constructions par repetition (200000 par defaut) et graine
+     *             (2021 par defaut).
+     */
+    public static void main(String[] args) {
+        int routeCount = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 2021;
+        Preconditions.checkArgument(0 <= routeCount && routeCount <= ROUTES.size());
+        Preconditions.checkArgument(queries >= 0 && iterations > 0);
+
+        Random rng = new Random(seed);
+        Route[][] routeSets = new Route[ROUTE_SETS][];
+        for (int i = 0; i < ROUTE_SETS; ++i) {
+            List<Route> routes = new ArrayList<>(ROUTES);
+            Collections.shuffle(routes, rng);
+            routeSets[i] = routes.subList(0, routeCount).toArray(new Route[0]);
+        }
+        Station[] from = new Station[iterations * queries];
+        Station[] to = new Station[iterations * queries];
+        for (int i = 0; i < from.length; ++i) {
+            from[i] = STATIONS.get(rng.nextInt(STATION_COUNT));
+            to[i] = STATIONS.get(rng.nextInt(STATION_COUNT));
+        }
+
+        for (Route[] routes : routeSets) {
+            StationPartition partition = unionFind(routes);
+            StationBitPartition bitPartition = bitmask(routes);
+            for (Station s1 : STATIONS) {
+                for (Station s2 : STATIONS) {
+                    if (partition.connected(s1, s2) != bitPartition.connected(s1, s2)) {
+                        System.out.printf("les partitions different pour %s et %s%n", s1, s2);
+                        System.exit(1);
+                    }
+                }
+            }
+        }
+        System.out.printf("partitions identiques sur %d ensembles de %d routes%n", ROUTE_SETS, routeCount);
+
+        for (int round = 0; round < ROUNDS; ++round) {
+            long unionFindNanos;
+            long bitmaskNanos;
+            int connected;
+            if (round % 2 == 0) {
+                long t0 = System.nanoTime();
+                connected = runUnionFind(routeSets, from, to, queries, iterations);
+                long t1 = System.nanoTime();
+                connected += runBitmask(routeSets, from, to, queries, iterations);
+                bitmaskNanos = System.nanoTime() - t1;
+                unionFindNanos = t1 - t0;
+            } else {
+                long t0 = System.nanoTime();
+                connected = runBitmask(routeSets, from, to, queries, iterations);
+                long t1 = System.nanoTime();
+                connected += runUnionFind(routeSets, from, to, queries, iterations);
+                unionFindNanos = System.nanoTime() - t1;
+                bitmaskNanos = t1 - t0;
+            }
+            System.out.printf("repetition %d : StationPartition %.0f ns, StationBitPartition %.0f ns"
+                            + " par construction et %d requetes (%d)%n",
+                    round, (double) unionFindNanos / iterations, (double) bitmaskNanos / iterations,
+                    queries, connected);
+        }
+    }
+
+    private static StationPartition unionFind(Route[] routes) {
+        StationPartition.Builder builder = new StationPartition.Builder(STATION_COUNT);
+        for (Route route : routes) {
+            builder.connect(route.station1(), route.station2());
+        }
+        return builder.build();
+    }
+
+    private static StationBitPartition bitmask(Route[] routes) {
+        StationBitPartition.Builder builder = new StationBitPartition.Builder(STATION_COUNT);
+        for (Route route : routes) {
+            builder.connect(route.station1(), route.station2());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return le nombre de requetes auxquelles la partition a repondu vrai, pour que le travail ne soit pas elimine
+     */
+    private static int runUnionFind(Route[][] routeSets, Station[] from, Station[] to, int queries, int iterations) {
+        int connected = 0;
+        for (int i = 0, q = 0; i < iterations; ++i) {
+            StationPartition partition = unionFind(routeSets[i % routeSets.length]);
+            for (int j = 0; j < queries; ++j, ++q) {
+                if (partition.connected(from[q], to[q])) {
+                    ++connected;
+                }
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * @return le nombre de requetes auxquelles la partition a repondu vrai, pour que le travail ne soit pas elimine
+     */
+    private static int runBitmask(Route[][] routeSets, Station[] from, Station[] to, int queries, int iterations) {
+        int connected = 0;
+        for (int i = 0, q = 0; i < iterations; ++i) {
+            StationBitPartition partition = bitmask(routeSets[i % routeSets.length]);
+            for (int j = 0; j < queries; ++j, ++q) {
+                if (partition.connected(from[q], to[q])) {
+                    ++connected;
+                }
+            }
+        }
+        return connected;
+    }
+}
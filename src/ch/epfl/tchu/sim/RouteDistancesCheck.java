@@ -0,0 +1,176 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Route;
+import ch.epfl.tchu.game.RouteDistances;
+import ch.epfl.tchu.game.Station;
+import ch.epfl.tchu.game.TchuMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * classe verifiant la mise a jour incrementale de RouteDistances : des suites aleatoires de routes possedees
+ * ou bloquees sont appliquees a la table initiale (withOwnedRoute, withBlockedRoute), et apres chacune d'elles
+ * la table est comparee a celle calculee de zero par l'algorithme de Floyd-Warshall, ainsi qu'a celle construite
+ * d'un coup par RouteDistances.of.
+ * Pour chaque paire de gares, la distance doit etre la meme, et le chemin donne (path, nextRoute) doit relier
+ * les deux gares sans emprunter de route bloquee, pour un cout egal a la distance.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class RouteDistancesCheck {
+
+    private static final TchuMap MAP = ChMap.map();
+    private static final List<Route> ROUTES = MAP.routes();
+    private static final List<Station> STATIONS = MAP.stations();
+    private static final int STEPS_PER_SEQUENCE = 40;
+    private static final int BLOCKED = -1;
+    private static final long INFINITY = Long.MAX_VALUE / 4;
+
+    private RouteDistancesCheck() {}
+
+    /**
+     * lance la verification et affiche le nombre de paires de gares verifiees, ou la premiere difference trouvee.
+     *
+     * @param args nombre de suites de modifications (200 par defaut) et graine (2021 par defaut).
+     */
+    public static void main(String[] args) {
+        int sequences = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 2021;
+
+        Random rng = new Random(seed);
+        long checks = 0;
+        for (int sequence = 0; sequence < sequences; ++sequence) {
+            RouteDistances table = RouteDistances.initial(MAP);
+            int[] costs = new int[ROUTES.size()];
+            for (int r = 0; r < ROUTES.size(); ++r) {
+                costs[r] = ROUTES.get(r).length();
+            }
+            for (int step = 0; step < STEPS_PER_SEQUENCE; ++step) {
+                int r = rng.nextInt(ROUTES.size());
+                String change;
+                if (rng.nextInt(3) == 0) {
+                    table = table.withOwnedRoute(ROUTES.get(r));
+                    costs[r] = 0;
+                    change = "prise";
+                } else {
+                    table = table.withBlockedRoute(ROUTES.get(r));
+                    costs[r] = BLOCKED;
+                    change = "blocage";
+                }
+                String mismatch = compare(table, costs);
+                if (mismatch == null) {
+                    mismatch = compare(rebuilt(costs), costs);
+                    if (mismatch != null) {
+                        mismatch = "table construite d'un coup, " + mismatch;
+                    }
+                }
+                if (mismatch != null) {
+                    System.out.printf("suite %d, apres %s de la route %s (modification %d) : %s%n",
+                            sequence, change, ROUTES.get(r).id(), step, mismatch);
+                    System.exit(1);
+                }
+                checks += (long) STATIONS.size() * STATIONS.size();
+            }
+        }
+        System.out.printf("%d suites de %d modifications, %d paires de gares verifiees : aucune difference%n",
+                sequences, STEPS_PER_SEQUENCE, checks);
+    }
+
+    /**
+     * @param costs cout de chaque route, BLOCKED si elle est bloquee
+     * @return la table construite d'un coup par RouteDistances.of pour les couts donnes
+     */
+    private static RouteDistances rebuilt(int[] costs) {
+        List<Route> owned = new ArrayList<>();
+        List<Route> blocked = new ArrayList<>();
+        for (int r = 0; r < ROUTES.size(); ++r) {
+            if (costs[r] == 0) {
+                owned.add(ROUTES.get(r));
+            } else if (costs[r] == BLOCKED) {
+                blocked.add(ROUTES.get(r));
+            }
+        }
+        return RouteDistances.of(MAP, owned, blocked);
+    }
+
+    /**
+     * @param costs cout de chaque route, BLOCKED si elle est bloquee
+     * @return les distances entre toutes les paires de gares, calculees par l'algorithme de Floyd-Warshall
+     */
+    private static long[][] floydWarshall(int[] costs) {
+        int n = STATIONS.size();
+        long[][] d = new long[n][n];
+        for (int i = 0; i < n; ++i) {
+            Arrays.fill(d[i], INFINITY);
+            d[i][i] = 0;
+        }
+        for (int r = 0; r < ROUTES.size(); ++r) {
+            if (costs[r] == BLOCKED) {
+                continue;
+            }
+            int s1 = ROUTES.get(r).station1().id();
+            int s2 = ROUTES.get(r).station2().id();
+            d[s1][s2] = Math.min(d[s1][s2], costs[r]);
+            d[s2][s1] = Math.min(d[s2][s1], costs[r]);
+        }
+        for (int k = 0; k < n; ++k) {
+            for (int i = 0; i < n; ++i) {
+                for (int j = 0; j < n; ++j) {
+                    d[i][j] = Math.min(d[i][j], d[i][k] + d[k][j]);
+                }
+            }
+        }
+        return d;
+    }
+
+    /**
+     * @param table la table a verifier
+     * @param costs cout de chaque route, BLOCKED si elle est bloquee
+     * @return la premiere difference trouvee, ou null s'il n'y en a aucune
+     */
+    private static String compare(RouteDistances table, int[] costs) {
+        long[][] expected = floydWarshall(costs);
+        for (Station from : STATIONS) {
+            for (Station to : STATIONS) {
+                long e = expected[from.id()][to.id()];
+                int distance = table.distance(from, to);
+                if (e == INFINITY ? distance != RouteDistances.UNREACHABLE : distance != e) {
+                    return String.format("distance de %s a %s : %d au lieu de %s",
+                            from, to, distance, e == INFINITY ? "inaccessible" : e);
+                }
+                List<Route> path = table.path(from, to);
+                Route next = table.nextRoute(from, to);
+                if (path.isEmpty() ? next != null : !path.get(0).equals(next)) {
+                    return String.format("route suivante de %s a %s : %s au lieu de la premiere de %s",
+                            from, to, next, path);
+                }
+                if (distance == RouteDistances.UNREACHABLE) {
+                    if (!path.isEmpty()) {
+                        return String.format("chemin de %s a %s inaccessible : %s", from, to, path);
+                    }
+                    continue;
+                }
+                Station at = from;
+                int cost = 0;
+                for (Route route : path) {
+                    int r = ROUTES.indexOf(route);
+                    if (costs[r] == BLOCKED || !route.stations().contains(at)) {
+                        return String.format("chemin de %s a %s invalide : %s", from, to, path);
+                    }
+                    cost += costs[r];
+                    at = route.stationOpposite(at);
+                }
+                if (!at.equals(to) || cost != distance) {
+                    return String.format("chemin de %s a %s de cout %d au lieu de %d : %s",
+                            from, to, cost, distance, path);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.*;
+
+/**
+ * classe représentant un joueur automatique, sans interface graphique,
+ * qui joue des coups légaux choisis au hasard au moyen de son propre générateur aléatoire.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class ScriptedPlayer implements Player {
+
+    private final String name;
+    private final Random rng;
+    private PlayerId ownId;
+    private TchuMap map;
+    private PublicGameState gameState;
+    private PlayerState ownState;
+    private SortedBag<Ticket> initialTickets;
+    private Route chosenRoute;
+    private SortedBag<Card> chosenCards;
+
+    /**
+     * construit un joueur automatique.
+     *
+     * @param name nom du joueur,
+     * @param rng  generateur aleatoire utilise pour tous les choix du joueur.
+     */
+    public ScriptedPlayer(String name, Random rng) {
+        this.name = Objects.requireNonNull(name);
+        this.rng = Objects.requireNonNull(rng);
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames, TchuMap map) {
+        this.ownId = ownId;
+        this.map = map;
+    }
+
+    @Override
+    public void receiveInfo(String info) {}
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        this.gameState = newState;
+        this.ownState = ownState;
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        this.initialTickets = tickets;
+    }
+
+    /**
+     * @return trois billets choisis au hasard parmi ceux distribues en debut de partie.
+     */
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        return randomSubset(initialTickets, Constants.INITIAL_TICKETS_COUNT - Constants.DISCARDABLE_TICKETS_COUNT);
+    }
+
+    /**
+     * choisit l'action du tour: detruire une route adverse (rarement, s'il possede une bombe),
+     * s'emparer d'une route libre, tirer des cartes ou, a defaut, tirer des billets.
+     *
+     * @return l'action que le joueur desire effectuer durant ce tour.
+     */
+    @Override
+    public TurnKind nextTurn() {
+        List<Route> opponentRoutes = gameState.playerState(ownId.next()).routes();
+        if (ownState.canDestroyRoutes() && !opponentRoutes.isEmpty() && rng.nextInt(4) == 0) {
+            chosenRoute = opponentRoutes.get(rng.nextInt(opponentRoutes.size()));
+            return TurnKind.DESTROY_ROUTE;
+        }
+
+        List<Route> claimableRoutes = claimableRoutes();
+        boolean canClaim = !claimableRoutes.isEmpty();
+        if (canClaim && (rng.nextInt(3) != 0 || !gameState.canDrawCards())) {
+            chosenRoute = claimableRoutes.get(rng.nextInt(claimableRoutes.size()));
+            List<SortedBag<Card>> options = ownState.possibleClaimCards(chosenRoute);
+            chosenCards = options.get(rng.nextInt(options.size()));
+            return TurnKind.CLAIM_ROUTE;
+        }
+        if (gameState.canDrawTickets() && (rng.nextInt(20) == 0 || !gameState.canDrawCards())) {
+            return TurnKind.DRAW_TICKETS;
+        }
+        return TurnKind.DRAW_CARDS;
+    }
+
+    /**
+     * @param options billets tires
+     * @return un billet choisi au hasard parmi ceux tires.
+     */
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        return randomSubset(options, 1);
+    }
+
+    /**
+     * @return un emplacement de carte face visible, ou la pioche, choisi au hasard.
+     */
+    @Override
+    public int drawSlot() {
+        return rng.nextInt(Constants.FACE_UP_CARDS_COUNT + 1) - 1;
+    }
+
+    @Override
+    public Route claimedRoute() {
+        return chosenRoute;
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return chosenCards;
+    }
+
+    /**
+     * @param options liste des ensembles de cartes additionnelles possibles
+     * @return l'option utilisant le moins de locomotives, ou (une fois sur quatre) aucune.
+     */
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        return rng.nextInt(4) == 0 ? SortedBag.of() : options.get(0);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Route destroyedRoute() {
+        return chosenRoute;
+    }
+
+    /**
+     * @return la liste des routes libres (ainsi que leur voisine) dont le joueur peut s'emparer.
+     */
+    private List<Route> claimableRoutes() {
+        Set<Route> claimedRoutes = new HashSet<>(gameState.claimedRoutes());
+        List<Route> claimableRoutes = new ArrayList<>();
+        for (Route r : map.routes()) {
+            if (!claimedRoutes.contains(r)
+                    && !claimedRoutes.contains(map.neighbor(r))
+                    && ownState.canClaimRoute(r)) {
+                claimableRoutes.add(r);
+            }
+        }
+        return claimableRoutes;
+    }
+
+    /**
+     * @param bag   multiensemble dont on extrait les elements
+     * @param count nombre d'elements a garder
+     * @return un sous-multiensemble de bag de taille count, choisi au hasard.
+     */
+    private <E extends Comparable<E>> SortedBag<E> randomSubset(SortedBag<E> bag, int count) {
+        List<E> elements = bag.toList();
+        Collections.shuffle(elements, rng);
+        return SortedBag.of(elements.subList(0, count));
+    }
+}
@@ -0,0 +1,224 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.PlayerId;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * classe accumulant les statistiques d'un lot de parties simulees:
+ * distribution du nombre de tours par partie, points finaux et victoires de chaque joueur.
+ * une instance n'est pas partagee entre fils d'execution, les instances partielles sont combinees.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class SimulationStats {
+
+    // nombre maximal de tours distingues dans l'histogramme, les parties plus longues sont comptees dans la derniere case
+    private static final int MAX_TURNS = 512;
+    // nombre maximal de parties interrompues par une exception detaillees, celles de plus petites graines
+    private static final int MAX_REPORTED_ABORTS = 10;
+
+    private final long[] turnHistogram = new long[MAX_TURNS + 1];
+    private final long[] pointsSum = new long[PlayerId.COUNT];
+    private final long[] pointsSquareSum = new long[PlayerId.COUNT];
+    private final int[] pointsMin = {Integer.MAX_VALUE, Integer.MAX_VALUE};
+    private final int[] pointsMax = {Integer.MIN_VALUE, Integer.MIN_VALUE};
+    private final long[] wins = new long[PlayerId.COUNT];
+    private long draws;
+    private long games;
+    private long abortedGames;
+    private long turns;
+    private final Map<String, Long> abortCauses = new TreeMap<>();
+    private final TreeMap<Long, String> reportedAborts = new TreeMap<>();
+
+    /**
+     * ajoute le resultat d'une partie terminee aux statistiques.
+     *
+     * @param game partie jouee jusqu'au bout
+     */
+    public void add(Game game) {
+        Map<PlayerId, Integer> finalPoints = game.finalPoints();
+        if (finalPoints.isEmpty()) {
+            ++abortedGames;
+            return;
+        }
+        ++games;
+        turns += game.turnCount();
+        ++turnHistogram[Math.min(game.turnCount(), MAX_TURNS)];
+
+        for (PlayerId id : PlayerId.ALL) {
+            int points = finalPoints.get(id);
+            int i = id.ordinal();
+            pointsSum[i] += points;
+            pointsSquareSum[i] += (long) points * points;
+            pointsMin[i] = Math.min(pointsMin[i], points);
+            pointsMax[i] = Math.max(pointsMax[i], points);
+        }
+
+        int points1 = finalPoints.get(PlayerId.PLAYER_1);
+        int points2 = finalPoints.get(PlayerId.PLAYER_2);
+        if (points1 == points2) {
+            ++draws;
+        } else {
+            ++wins[(points1 > points2 ? PlayerId.PLAYER_1 : PlayerId.PLAYER_2).ordinal()];
+        }
+    }
+
+    /**
+     * ajoute aux statistiques une partie interrompue par une exception, dont le type est compte
+     * et qui est detaillee (graine, message et lieu) si elle fait partie des premieres.
+     *
+     * @param gameSeed graine de la partie
+     * @param e        exception ayant interrompu la partie
+     */
+    public void addAborted(long gameSeed, RuntimeException e) {
+        ++abortedGames;
+        abortCauses.merge(e.getClass().getName(), 1L, Long::sum);
+        reportAbort(gameSeed, String.format("%s (%s)", e, thrower(e)));
+    }
+
+    // premier appel de la pile de l'exception donnee ne faisant pas partie de Preconditions
+    private static String thrower(RuntimeException e) {
+        for (StackTraceElement element : e.getStackTrace()) {
+            if (!element.getClassName().equals(Preconditions.class.getName())) {
+                return element.toString();
+            }
+        }
+        return "?";
+    }
+
+    private void reportAbort(long gameSeed, String cause) {
+        reportedAborts.put(gameSeed, cause);
+        if (reportedAborts.size() > MAX_REPORTED_ABORTS) {
+            reportedAborts.pollLastEntry();
+        }
+    }
+
+    /**
+     * @param that statistiques partielles a ajouter au recepteur
+     * @return le recepteur (this), auquel les statistiques donnees ont ete ajoutees.
+     */
+    public SimulationStats combine(SimulationStats that) {
+        for (int t = 0; t <= MAX_TURNS; ++t) {
+            turnHistogram[t] += that.turnHistogram[t];
+        }
+        for (int i = 0; i < PlayerId.COUNT; ++i) {
+            pointsSum[i] += that.pointsSum[i];
+            pointsSquareSum[i] += that.pointsSquareSum[i];
+            pointsMin[i] = Math.min(pointsMin[i], that.pointsMin[i]);
+            pointsMax[i] = Math.max(pointsMax[i], that.pointsMax[i]);
+            wins[i] += that.wins[i];
+        }
+        draws += that.draws;
+        games += that.games;
+        abortedGames += that.abortedGames;
+        turns += that.turns;
+        that.abortCauses.forEach((cause, count) -> abortCauses.merge(cause, count, Long::sum));
+        that.reportedAborts.forEach(this::reportAbort);
+        return this;
+    }
+
+    /**
+     * @return le nombre de parties terminees.
+     */
+    public long games() {
+        return games;
+    }
+
+    /**
+     * @return le nombre de parties interrompues avant leur fin.
+     */
+    public long abortedGames() {
+        return abortedGames;
+    }
+
+    /**
+     * @return le nombre moyen de tours par partie terminee.
+     */
+    public double meanTurns() {
+        return games == 0 ? 0 : (double) turns / games;
+    }
+
+    /**
+     * @param percentile centile desire, entre 0 et 100
+     * @return le nombre de tours en dessous duquel se trouvent le centile donne des parties.
+     */
+    public int turnsPercentile(double percentile) {
+        long rank = (long) Math.ceil(percentile / 100 * games);
+        long seen = 0;
+        for (int t = 0; t <= MAX_TURNS; ++t) {
+            seen += turnHistogram[t];
+            if (seen >= Math.max(rank, 1)) {
+                return t;
+            }
+        }
+        return MAX_TURNS;
+    }
+
+    /**
+     * @param id identite du joueur
+     * @return la moyenne des points finaux du joueur donne.
+     */
+    public double meanPoints(PlayerId id) {
+        return games == 0 ? 0 : (double) pointsSum[id.ordinal()] / games;
+    }
+
+    /**
+     * @param id identite du joueur
+     * @return l'ecart-type des points finaux du joueur donne.
+     */
+    public double pointsStandardDeviation(PlayerId id) {
+        if (games == 0) {
+            return 0;
+        }
+        double mean = meanPoints(id);
+        return Math.sqrt(Math.max(0, (double) pointsSquareSum[id.ordinal()] / games - mean * mean));
+    }
+
+    /**
+     * @param id identite du joueur
+     * @return le nombre de parties gagnees par le joueur donne.
+     */
+    public long wins(PlayerId id) {
+        return wins[id.ordinal()];
+    }
+
+    /**
+     * @return le nombre de parties terminees ex æquo.
+     */
+    public long draws() {
+        return draws;
+    }
+
+    /**
+     * @return la representation textuelle des statistiques.
+     */
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        b.append(String.format("parties: %d terminees, %d interrompues%n", games, abortedGames));
+        b.append(String.format("tours par partie: moyenne %.1f, p10 %d, p50 %d, p90 %d, p99 %d%n",
+                meanTurns(),
+                turnsPercentile(10),
+                turnsPercentile(50),
+                turnsPercentile(90),
+                turnsPercentile(99)));
+        for (PlayerId id : PlayerId.ALL) {
+            b.append(String.format("%s: points moyenne %.1f, ecart-type %.1f, min %d, max %d, victoires %d%n",
+                    id,
+                    meanPoints(id),
+                    pointsStandardDeviation(id),
+                    games == 0 ? 0 : pointsMin[id.ordinal()],
+                    games == 0 ? 0 : pointsMax[id.ordinal()],
+                    wins(id)));
+        }
+        b.append(String.format("ex aequo: %d%n", draws));
+        abortCauses.forEach((cause, count) -> b.append(String.format("interruptions %s: %d%n", cause, count)));
+        reportedAborts.forEach((seed, cause) -> b.append(String.format("  graine %d: %s%n", seed, cause)));
+        return b.toString();
+    }
+}
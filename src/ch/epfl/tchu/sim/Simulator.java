@@ -0,0 +1,108 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.PlayerId;
+import ch.epfl.tchu.game.TchuMap;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * classe permettant de simuler, sans interface graphique, un grand nombre de parties
+ * entre joueurs automatiques, en parallele sur tous les coeurs disponibles.
+ * chaque partie possede son propre generateur aleatoire, derive de la graine du lot et de son numero,
+ * de sorte que les resultats sont reproductibles quel que soit le nombre de fils d'execution.
+ * Les parties se jouent sur la carte de la Suisse (ChMap) ou sur une carte lue dans un fichier (voir TchuMap).
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class Simulator {
+
+    private Simulator() {}
+
+    /**
+     * lance une simulation et affiche ses statistiques.
+     *
+     * @param args nombre de parties (10000 par defaut), graine (2021 par defaut),
+     *             nombre de fils d'execution (nombre de coeurs par defaut)
+     *             et fichier de la carte (ChMap par defaut).
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 10_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 2021;
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        TchuMap map = args.length > 3 ? TchuMap.load(Path.of(args[3])) : ChMap.map();
+
+        long start = System.nanoTime();
+        SimulationStats stats = simulate(map, games, seed, parallelism);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.print(stats);
+        System.out.printf("%.1f parties/s (%d fils, %.1f s)%n",
+                (stats.games() + stats.abortedGames()) / seconds, parallelism, seconds);
+    }
+
+    /**
+     * simule un lot de parties en parallele.
+     *
+     * @param map         carte des parties
+     * @param games       nombre de parties a jouer
+     * @param seed        graine du lot
+     * @param parallelism nombre de fils d'execution a utiliser
+     * @return les statistiques des parties jouees.
+     * @throws IllegalArgumentException si le nombre de parties est negatif ou le nombre de fils n'est pas positif.
+     */
+    public static SimulationStats simulate(TchuMap map, long games, long seed, int parallelism)
+            throws InterruptedException, ExecutionException {
+        Preconditions.checkArgument(games >= 0 && parallelism > 0);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> LongStream.range(0, games)
+                    .parallel()
+                    .map(i -> seed + i)
+                    .collect(SimulationStats::new,
+                            (stats, gameSeed) -> accumulate(map, stats, gameSeed),
+                            SimulationStats::combine))
+                    .get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * joue une partie complete entre deux joueurs automatiques.
+     *
+     * @param map      carte de la partie
+     * @param gameSeed graine de la partie
+     * @return la partie jouee
+     * @throws RuntimeException si la partie a ete interrompue par une exception.
+     */
+    public static Game playGame(TchuMap map, long gameSeed) {
+        Random rng = new Random(gameSeed);
+        Map<PlayerId, Player> players = Map.of(
+                PlayerId.PLAYER_1, new ScriptedPlayer("Ada", new Random(rng.nextLong())),
+                PlayerId.PLAYER_2, new ScriptedPlayer("Charles", new Random(rng.nextLong())));
+        Game game = new Game(players, map, rng);
+        game.play();
+        return game;
+    }
+
+    private static void accumulate(TchuMap map, SimulationStats stats, long gameSeed) {
+        Game game;
+        try {
+            game = playGame(map, gameSeed);
+        } catch (RuntimeException e) {
+            stats.addAborted(gameSeed, e);
+            return;
+        }
+        stats.add(game);
+    }
+}
@@ -0,0 +1,196 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collector;
+import java.util.stream.LongStream;
+
+/**
+ * classe estimant par simulation la difficulte des billets de ChMap (voir TicketDifficulty) et l'ecrivant
+ * dans la ressource chargee par TicketDifficulty.standard.
+ * Les parties sont jouees en parallele entre joueurs gloutons (GreedyPlayer) qui gardent tous les billets
+ * qu'on leur propose, de sorte que chaque billet est observe aussi souvent qu'il est tire, et non seulement
+ * lorsqu'il parait facile au joueur qui le choisit.
+ * Comme pour Simulator, chaque partie a sa propre graine et les estimations ne dependent pas du nombre de fils.
+ *
+ * @author Rasan Younis (329880)
+ *         Elyes Ben Chaabane (330441)
+ */
+public final class TicketDifficultyEstimator {
+
+    private static final TchuMap MAP = ChMap.map();
+    private static final List<Ticket> TICKET_LIST = MAP.tickets();
+
+    private TicketDifficultyEstimator() {}
+
+    /**
+     * lance une estimation et l'ecrit dans un fichier.
+     *
+     * @param args nombre de parties (5000 par defaut), graine (2021 par defaut), nombre de fils d'execution
+     *             (nombre de coeurs par defaut) et fichier de sortie (resources/ticket-difficulty.bin par defaut).
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException, IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 5_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 2021;
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String output = args.length > 3 ? args[3] : "resources/ticket-difficulty.bin";
+
+        long start = System.nanoTime();
+        TicketDifficulty difficulty = estimate(games, seed, parallelism);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+            difficulty.writeTo(out);
+        }
+        System.out.printf("%d mains observees en %.1f s (%d fils), ecrites dans %s%n",
+                difficulty.hands(), seconds, parallelism, output);
+    }
+
+    /**
+     * estime la difficulte des billets de ChMap en simulant un lot de parties en parallele.
+     *
+     * @param games       nombre de parties a jouer
+     * @param seed        graine du lot
+     * @param parallelism nombre de fils d'execution a utiliser
+     * @return les estimations tirees des parties menees a leur terme
+     * @throws IllegalArgumentException si le nombre de parties est negatif ou le nombre de fils n'est pas positif.
+     */
+    public static TicketDifficulty estimate(long games, long seed, int parallelism)
+            throws InterruptedException, ExecutionException {
+        Preconditions.checkArgument(games >= 0 && parallelism > 0);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> LongStream.range(0, games)
+                    .parallel()
+                    .mapToObj(i -> playGame(seed + i))
+                    .collect(Collector.of(() -> new TicketDifficulty.Builder(TICKET_LIST),
+                            TicketDifficultyEstimator::accumulate,
+                            TicketDifficulty.Builder::combine,
+                            TicketDifficulty.Builder::build)))
+                    .get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * joue une partie complete entre deux joueurs gloutons gardant tous leurs billets.
+     *
+     * @param gameSeed graine de la partie
+     * @return l'etat final de chaque joueur, ou null si la partie n'a pas ete menee a son terme.
+     */
+    private static List<PlayerState> playGame(long gameSeed) {
+        Random rng = new Random(gameSeed);
+        List<TicketKeeper> keepers = List.of(new TicketKeeper(new GreedyPlayer("Ada")),
+                new TicketKeeper(new GreedyPlayer("Charles")));
+        Game game = new Game(Map.of(PlayerId.PLAYER_1, keepers.get(0), PlayerId.PLAYER_2, keepers.get(1)),
+                MAP, rng);
+        try {
+            game.play();
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (game.finalPoints().isEmpty()) {
+            return null;
+        }
+        List<PlayerState> finalStates = new ArrayList<>();
+        for (TicketKeeper keeper : keepers) {
+            finalStates.add(keeper.lastOwnState);
+        }
+        return finalStates;
+    }
+
+    private static void accumulate(TicketDifficulty.Builder builder, List<PlayerState> finalStates) {
+        if (finalStates != null) {
+            finalStates.forEach(builder::add);
+        }
+    }
+
+    // joueur gardant tous les billets proposes et retenant son dernier etat, le reste etant delegue
+    private static final class TicketKeeper implements Player {
+
+        private final Player player;
+        private PlayerState lastOwnState;
+        private SortedBag<Ticket> initialTickets;
+
+        private TicketKeeper(Player player) {
+            this.player = player;
+        }
+
+        @Override
+        public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames, TchuMap map) {
+            player.initPlayers(ownId, playerNames, map);
+        }
+
+        @Override
+        public void receiveInfo(String info) {
+            player.receiveInfo(info);
+        }
+
+        @Override
+        public void updateState(PublicGameState newState, PlayerState ownState) {
+            lastOwnState = ownState;
+            player.updateState(newState, ownState);
+        }
+
+        @Override
+        public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+            initialTickets = tickets;
+            player.setInitialTicketChoice(tickets);
+        }
+
+        @Override
+        public SortedBag<Ticket> chooseInitialTickets() {
+            return initialTickets;
+        }
+
+        @Override
+        public TurnKind nextTurn() {
+            return player.nextTurn();
+        }
+
+        @Override
+        public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+            return options;
+        }
+
+        @Override
+        public int drawSlot() {
+            return player.drawSlot();
+        }
+
+        @Override
+        public Route claimedRoute() {
+            return player.claimedRoute();
+        }
+
+        @Override
+        public SortedBag<Card> initialClaimCards() {
+            return player.initialClaimCards();
+        }
+
+        @Override
+        public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+            return player.chooseAdditionalCards(options);
+        }
+
+        @Override
+        public String getName() {
+            return player.getName();
+        }
+
+        @Override
+        public Route destroyedRoute() {
+            return player.destroyedRoute();
+        }
+    }
+}